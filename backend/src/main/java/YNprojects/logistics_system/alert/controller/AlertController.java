@@ -1,5 +1,8 @@
 package YNprojects.logistics_system.alert.controller;
 
+import YNprojects.logistics_system.alert.dto.AlertCount;
+import YNprojects.logistics_system.alert.dto.AlertFilterDto;
+import YNprojects.logistics_system.alert.dto.AlertPageDto;
 import YNprojects.logistics_system.alert.entity.Alert;
 import YNprojects.logistics_system.alert.service.AlertService;
 import lombok.AllArgsConstructor;
@@ -21,6 +24,18 @@ public class AlertController {
         return ResponseEntity.ok(alertService.getAll());
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<AlertPageDto> pageAlerts(AlertFilterDto filter,
+                                                   @RequestParam(required = false) Long cursor,
+                                                   @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(alertService.getPage(filter, cursor, size));
+    }
+
+    @GetMapping("/counts")
+    public ResponseEntity<List<AlertCount>> getCounts() {
+        return ResponseEntity.ok(alertService.getCounts());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Alert> getAlertById(@PathVariable Long id) {
         return ResponseEntity.ok(alertService.getById(id));
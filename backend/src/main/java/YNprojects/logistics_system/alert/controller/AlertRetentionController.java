@@ -0,0 +1,34 @@
+package YNprojects.logistics_system.alert.controller;
+
+import YNprojects.logistics_system.alert.entity.AlertRetentionPolicy;
+import YNprojects.logistics_system.alert.service.AlertRetentionService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/alert/retention-policies")
+@CrossOrigin(origins = "*")
+public class AlertRetentionController {
+
+    private final AlertRetentionService retentionService;
+
+    @GetMapping
+    public ResponseEntity<List<AlertRetentionPolicy>> getPolicies() {
+        return ResponseEntity.ok(retentionService.getAll());
+    }
+
+    @PutMapping
+    public ResponseEntity<AlertRetentionPolicy> savePolicy(@RequestBody AlertRetentionPolicy policy) {
+        return ResponseEntity.ok(retentionService.save(policy));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deletePolicy(@PathVariable Long id) {
+        retentionService.delete(id);
+        return ResponseEntity.ok().build();
+    }
+}
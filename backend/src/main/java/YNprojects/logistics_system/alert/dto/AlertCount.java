@@ -0,0 +1,11 @@
+package YNprojects.logistics_system.alert.dto;
+
+import YNprojects.logistics_system.alert.entity.AlertSeverity;
+import YNprojects.logistics_system.alert.entity.AlertType;
+
+/** Row of an alert count grouped by severity and type. */
+public interface AlertCount {
+    AlertSeverity getSeverity();
+    AlertType getAlertType();
+    long getTotal();
+}
@@ -0,0 +1,27 @@
+package YNprojects.logistics_system.alert.dto;
+
+import YNprojects.logistics_system.alert.entity.AlertSeverity;
+import YNprojects.logistics_system.alert.entity.AlertType;
+import YNprojects.logistics_system.alert.entity.EntityType;
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/** Optional filters of the alert page; null fields match everything. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class AlertFilterDto {
+
+    private AlertSeverity severity;
+    private AlertType alertType;
+    private EntityType entityType;
+    private Long entityId;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdTo;
+}
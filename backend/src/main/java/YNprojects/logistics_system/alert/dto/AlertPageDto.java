@@ -0,0 +1,20 @@
+package YNprojects.logistics_system.alert.dto;
+
+import YNprojects.logistics_system.alert.entity.Alert;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/** One page of alerts, newest first. Pass {@code nextCursor} back as {@code cursor}; it is null on the last page. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class AlertPageDto {
+
+    private List<Alert> items;
+    private Long nextCursor;
+}
@@ -0,0 +1,9 @@
+package YNprojects.logistics_system.alert.dto;
+
+import YNprojects.logistics_system.alert.entity.AlertSeverity;
+
+/** Row of an alert count grouped by severity. */
+public interface AlertSeverityCount {
+    AlertSeverity getSeverity();
+    long getTotal();
+}
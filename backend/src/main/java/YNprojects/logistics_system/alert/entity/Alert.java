@@ -13,6 +13,15 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+// one alert of a type per entity; AlertEngine upserts against it.
+// The unique key also serves lookups by type; pages are read newest (highest id) first.
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_alert_type_entity", columnNames = {"alertType", "entityType", "entityId"}),
+        indexes = {
+                @Index(name = "idx_alert_entity", columnList = "entityType, entityId"),
+                @Index(name = "idx_alert_severity", columnList = "severity, id"),
+                @Index(name = "idx_alert_type_created", columnList = "alertType, createdAt"),
+                @Index(name = "idx_alert_created", columnList = "createdAt")
+        })
 public class Alert {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
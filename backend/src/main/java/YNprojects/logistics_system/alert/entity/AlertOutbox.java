@@ -0,0 +1,44 @@
+package YNprojects.logistics_system.alert.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * An alert to raise or resolve, written in the transaction of the change it follows and applied to
+ * {@link Alert} by AlertEngine once that transaction has committed. Rows are deleted once applied;
+ * rows that failed {@code alert.outbox.max-attempts} times are left for inspection.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "idx_alert_outbox_attempts", columnList = "attempts, id"))
+public class AlertOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private AlertType alertType;
+
+    @Enumerated(EnumType.STRING)
+    private AlertSeverity severity;     // null when resolving
+
+    @Enumerated(EnumType.STRING)
+    private EntityType entityType;
+    private Long entityId;
+
+    private String message;
+
+    private boolean raise;              // false resolves the alert
+
+    private int attempts;
+
+    private LocalDateTime createdAt;
+}
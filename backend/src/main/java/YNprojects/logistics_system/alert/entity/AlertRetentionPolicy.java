@@ -0,0 +1,34 @@
+package YNprojects.logistics_system.alert.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * How long alerts of a type are kept before the nightly purge deletes them.
+ * A null entity type applies the policy to the alert type on every entity type.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_alert_retention_type_entity", columnNames = {"alertType", "entityType"}))
+public class AlertRetentionPolicy {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AlertType alertType;
+
+    @Enumerated(EnumType.STRING)
+    private EntityType entityType;
+
+    private int ttlDays;
+
+    private boolean enabled;
+}
@@ -0,0 +1,25 @@
+package YNprojects.logistics_system.alert.repository;
+
+import YNprojects.logistics_system.alert.entity.AlertOutbox;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AlertOutboxRepo extends JpaRepository<AlertOutbox, Long> {
+
+    /** Oldest pending rows, locked so that one node applies them. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from AlertOutbox o where o.attempts < :maxAttempts order by o.id")
+    List<AlertOutbox> findPendingForUpdate(@Param("maxAttempts") int maxAttempts, Pageable pageable);
+
+    @Modifying
+    @Query("update AlertOutbox o set o.attempts = o.attempts + 1 where o.id in :ids")
+    int incrementAttempts(@Param("ids") Collection<Long> ids);
+}
@@ -1,23 +1,83 @@
 package YNprojects.logistics_system.alert.repository;
 
+import YNprojects.logistics_system.alert.dto.AlertCount;
+import YNprojects.logistics_system.alert.dto.AlertSeverityCount;
 import YNprojects.logistics_system.alert.entity.Alert;
+import YNprojects.logistics_system.alert.entity.AlertSeverity;
 import YNprojects.logistics_system.alert.entity.AlertType;
 import YNprojects.logistics_system.alert.entity.EntityType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface AlertRepo extends JpaRepository<Alert, Long> {
 
     Optional<Alert> findFirstByAlertTypeAndEntityTypeAndEntityId(AlertType type, EntityType entityType, Long entityId);
 
+    List<Alert> findByAlertTypeAndEntityTypeAndEntityIdIn(AlertType type, EntityType entityType, Collection<Long> entityIds);
+
+    /** Entity ids among {@code entityIds} that have an alert of the type, without loading the alerts. */
+    @Query("select a.entityId from Alert a " +
+            "where a.alertType = :alertType and a.entityType = :entityType and a.entityId in :entityIds")
+    Set<Long> findEntityIdsWithAlert(@Param("alertType") AlertType alertType,
+                                     @Param("entityType") EntityType entityType,
+                                     @Param("entityIds") Collection<Long> entityIds);
+
     List<Alert> findByEntityTypeAndEntityId(EntityType entityType, Long entityId);
 
     List<Alert> findByAlertType(AlertType alertType);
 
-    int deleteByAlertTypeAndCreatedAtBefore(AlertType alertType, LocalDateTime createdAtBefore);
+    List<Alert> findTop5ByOrderByCreatedAtDesc();
+
+    @Query("select a.severity as severity, count(a) as total from Alert a group by a.severity")
+    List<AlertSeverityCount> countBySeverity();
+
+    @Query("select a.severity as severity, a.alertType as alertType, count(a) as total " +
+            "from Alert a group by a.severity, a.alertType")
+    List<AlertCount> countBySeverityAndType();
+
+    /** Alerts with an id below {@code cursor} (all when null) matching the non-null filters, newest first. */
+    @Query("select a from Alert a " +
+            "where (:cursor is null or a.id < :cursor) " +
+            "and (:severity is null or a.severity = :severity) " +
+            "and (:alertType is null or a.alertType = :alertType) " +
+            "and (:entityType is null or a.entityType = :entityType) " +
+            "and (:entityId is null or a.entityId = :entityId) " +
+            "and (:createdFrom is null or a.createdAt >= :createdFrom) " +
+            "and (:createdTo is null or a.createdAt < :createdTo) " +
+            "order by a.id desc")
+    List<Alert> findPage(@Param("cursor") Long cursor,
+                         @Param("severity") AlertSeverity severity,
+                         @Param("alertType") AlertType alertType,
+                         @Param("entityType") EntityType entityType,
+                         @Param("entityId") Long entityId,
+                         @Param("createdFrom") LocalDateTime createdFrom,
+                         @Param("createdTo") LocalDateTime createdTo,
+                         Pageable pageable);
+
+    /** Ids above {@code afterId} of the alerts a retention policy has expired, in id order. */
+    @Query("select a.id from Alert a " +
+            "where a.id > :afterId " +
+            "and a.alertType = :alertType " +
+            "and (:entityType is null or a.entityType = :entityType) " +
+            "and a.createdAt < :cutoff " +
+            "order by a.id")
+    List<Long> findExpiredIds(@Param("alertType") AlertType alertType,
+                              @Param("entityType") EntityType entityType,
+                              @Param("cutoff") LocalDateTime cutoff,
+                              @Param("afterId") long afterId,
+                              Pageable pageable);
 
-    int deleteByAlertTypeAndEntityTypeAndCreatedAtBefore(AlertType alertType, EntityType entityType, LocalDateTime createdAtBefore);
+    /** Bulk delete by id, without loading the alerts first. */
+    @Modifying
+    @Query("delete from Alert a where a.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,16 @@
+package YNprojects.logistics_system.alert.repository;
+
+import YNprojects.logistics_system.alert.entity.AlertRetentionPolicy;
+import YNprojects.logistics_system.alert.entity.AlertType;
+import YNprojects.logistics_system.alert.entity.EntityType;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface AlertRetentionPolicyRepo extends JpaRepository<AlertRetentionPolicy, Long> {
+
+    List<AlertRetentionPolicy> findByEnabledTrueOrderByIdAsc();
+
+    Optional<AlertRetentionPolicy> findByAlertTypeAndEntityType(AlertType alertType, EntityType entityType);
+}
@@ -0,0 +1,269 @@
+package YNprojects.logistics_system.alert.service;
+
+import YNprojects.logistics_system.alert.entity.Alert;
+import YNprojects.logistics_system.alert.entity.AlertOutbox;
+import YNprojects.logistics_system.alert.entity.AlertSeverity;
+import YNprojects.logistics_system.alert.entity.AlertType;
+import YNprojects.logistics_system.alert.entity.EntityType;
+import YNprojects.logistics_system.alert.repository.AlertOutboxRepo;
+import YNprojects.logistics_system.alert.repository.AlertRepo;
+import YNprojects.logistics_system.events.AlertChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the alerts to raise and resolve during a transaction and applies them once it has committed.
+ *
+ * Intents are keyed by (alert type, entity type, entity id), the unique key of {@link Alert}; the last
+ * intent for a key wins, so raising then resolving the same alert in one transaction writes nothing
+ * but a delete. Just before the transaction commits, the intents are inserted into {@link AlertOutbox}
+ * with one batch, so they commit or roll back with the change they follow. Without a transaction they
+ * are inserted right away.
+ *
+ * The outbox is applied after commit on a thread of its own, so the committing request neither waits
+ * nor takes a second connection, and every {@code alert.outbox.relay-ms} for what is left, such as rows
+ * of another node or of a failed attempt. Rows are applied in id order, in batches locked with
+ * {@code FOR UPDATE} so that one node applies each; a relay that times out waiting for that lock leaves
+ * the rows to the node holding it. Raises are inserted with one batched
+ * {@code INSERT ... ON DUPLICATE KEY UPDATE} (an alert that already exists is left as is) and resolves
+ * with one lookup and one delete per alert and entity type. A batch that fails is rolled back and
+ * retried, up to {@code alert.outbox.max-attempts} times.
+ */
+@Slf4j
+@Component
+public class AlertEngine {
+
+    private static final String INSERT_OUTBOX = "insert into alert_outbox " +
+            "(alert_type, severity, entity_type, entity_id, message, raise, attempts, created_at) values (?, ?, ?, ?, ?, ?, 0, ?)";
+
+    private static final String UPSERT = "insert into alert " +
+            "(alert_type, severity, entity_type, entity_id, message, created_at) values (?, ?, ?, ?, ?, ?) " +
+            "on duplicate key update id = id";
+
+    private final AlertRepo alertRepo;
+    private final AlertOutboxRepo alertOutboxRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate relayTransaction;
+    private final TransactionTemplate failureTransaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int maxAttempts;
+
+    private final ExecutorService relayer = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("alert-relay").factory());
+    private final AtomicBoolean relayRequested = new AtomicBoolean();
+    private final ReentrantLock relayLock = new ReentrantLock();
+
+    public AlertEngine(AlertRepo alertRepo,
+                       AlertOutboxRepo alertOutboxRepo,
+                       JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       ApplicationEventPublisher eventPublisher,
+                       @Value("${alert.outbox.batch-size:500}") int batchSize,
+                       @Value("${alert.outbox.max-attempts:10}") int maxAttempts) {
+        this.alertRepo = alertRepo;
+        this.alertOutboxRepo = alertOutboxRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.relayTransaction = new TransactionTemplate(transactionManager);
+        this.failureTransaction = new TransactionTemplate(transactionManager);
+        this.failureTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+    }
+
+    public void raise(AlertType type, AlertSeverity severity, EntityType entityType, Long entityId, String message) {
+        add(new Key(type, entityType, entityId), new Intent(true, severity, message));
+    }
+
+    public void resolve(AlertType type, EntityType entityType, Long entityId) {
+        add(new Key(type, entityType, entityId), new Intent(false, null, null));
+    }
+
+    private void add(Key key, Intent intent) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(Map.of(key, intent));
+            requestRelay();
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<Key, Intent> pending = (Map<Key, Intent>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<Key, Intent> buffer = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    enqueue(buffer);
+                }
+
+                @Override
+                public void afterCommit() {
+                    requestRelay();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AlertEngine.this);
+                }
+            });
+            pending = buffer;
+        }
+        pending.put(key, intent);
+    }
+
+    /** Inserts the intents into the outbox, in the caller's transaction if there is one. */
+    private void enqueue(Map<Key, Intent> intents) {
+        if (intents.isEmpty()) return;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Map.Entry<Key, Intent>> rows = new ArrayList<>(intents.entrySet());
+        jdbcTemplate.batchUpdate(INSERT_OUTBOX, rows, rows.size(), (ps, entry) -> {
+            Key key = entry.getKey();
+            Intent intent = entry.getValue();
+            ps.setString(1, key.type().name());
+            ps.setString(2, intent.severity() == null ? null : intent.severity().name());
+            ps.setString(3, key.entityType().name());
+            ps.setLong(4, key.entityId());
+            ps.setString(5, intent.message());
+            ps.setBoolean(6, intent.raise());
+            ps.setTimestamp(7, now);
+        });
+    }
+
+    /** Applies the outbox soon on the relay thread; requests made while one is pending are merged into it. */
+    private void requestRelay() {
+        if (relayRequested.compareAndSet(false, true)) {
+            relayer.execute(this::relay);
+        }
+    }
+
+    /** Applies every pending outbox row, batch by batch. */
+    @Scheduled(fixedDelayString = "${alert.outbox.relay-ms:5000}")
+    public void relay() {
+        relayLock.lock();
+        try {
+            relayRequested.set(false);
+            while (relayBatch()) {
+                // a full batch: there may be more
+            }
+        } finally {
+            relayLock.unlock();
+        }
+    }
+
+    /** Applies and deletes one batch; true when it was full. */
+    private boolean relayBatch() {
+        List<Long> ids = new ArrayList<>();
+        try {
+            return Boolean.TRUE.equals(relayTransaction.execute(status -> {
+                List<AlertOutbox> rows = alertOutboxRepo.findPendingForUpdate(maxAttempts, PageRequest.of(0, batchSize));
+                rows.forEach(row -> ids.add(row.getId()));
+                if (rows.isEmpty()) return false;
+                Map<Key, Intent> intents = new LinkedHashMap<>();
+                for (AlertOutbox row : rows) {
+                    Key key = new Key(row.getAlertType(), row.getEntityType(), row.getEntityId());
+                    intents.remove(key);    // the later intent goes last
+                    intents.put(key, new Intent(row.isRaise(), row.getSeverity(), row.getMessage()));
+                }
+                deleteResolved(intents);
+                insertRaised(intents);
+                alertOutboxRepo.deleteAllByIdInBatch(ids);
+                return rows.size() == batchSize;
+            }));
+        } catch (RuntimeException e) {
+            if (ids.isEmpty() && e instanceof PessimisticLockingFailureException) {
+                // another node is applying the head of the outbox and will go on to the rest
+                log.debug("Alert outbox is being applied elsewhere: {}", e.getMessage());
+                return false;
+            }
+            log.error("Could not apply {} alert change(s), will retry", ids.size(), e);
+            if (!ids.isEmpty()) {
+                failureTransaction.executeWithoutResult(status -> alertOutboxRepo.incrementAttempts(ids));
+            }
+            return false;
+        }
+    }
+
+    private void deleteResolved(Map<Key, Intent> intents) {
+        Map<Group, Set<Long>> resolved = group(intents, false);
+        for (Map.Entry<Group, Set<Long>> entry : resolved.entrySet()) {
+            List<Alert> existing = alertRepo.findByAlertTypeAndEntityTypeAndEntityIdIn(
+                    entry.getKey().type(), entry.getKey().entityType(), entry.getValue());
+            if (existing.isEmpty()) continue;
+            alertRepo.deleteAllInBatch(existing);
+            existing.forEach(alert -> eventPublisher.publishEvent(
+                    AlertChangedEvent.of(AlertChangedEvent.Change.RESOLVED, alert)));
+        }
+    }
+
+    private void insertRaised(Map<Key, Intent> intents) {
+        List<Map.Entry<Key, Intent>> raised = intents.entrySet().stream().filter(e -> e.getValue().raise()).toList();
+        if (raised.isEmpty()) return;
+        Map<Group, Set<Long>> groups = group(intents, true);
+
+        // alerts that exist already are left as is and do not announce anything
+        Map<Group, Set<Long>> existing = new LinkedHashMap<>();
+        groups.forEach((group, entityIds) -> existing.put(group,
+                alertRepo.findEntityIdsWithAlert(group.type(), group.entityType(), entityIds)));
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPSERT, raised, raised.size(), (ps, entry) -> {
+            Key key = entry.getKey();
+            ps.setString(1, key.type().name());
+            ps.setString(2, entry.getValue().severity().name());
+            ps.setString(3, key.entityType().name());
+            ps.setLong(4, key.entityId());
+            ps.setString(5, entry.getValue().message());
+            ps.setTimestamp(6, now);
+        });
+
+        groups.forEach((group, entityIds) -> {
+            Set<Long> created = new HashSet<>(entityIds);
+            created.removeAll(existing.get(group));
+            if (created.isEmpty()) return;
+            alertRepo.findByAlertTypeAndEntityTypeAndEntityIdIn(group.type(), group.entityType(), created)
+                    .forEach(alert -> eventPublisher.publishEvent(
+                            AlertChangedEvent.of(AlertChangedEvent.Change.CREATED, alert)));
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        relayer.shutdown();
+    }
+
+    private static Map<Group, Set<Long>> group(Map<Key, Intent> intents, boolean raise) {
+        return intents.entrySet().stream()
+                .filter(e -> e.getValue().raise() == raise)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.groupingBy(key -> new Group(key.type(), key.entityType()), LinkedHashMap::new,
+                        Collectors.mapping(Key::entityId, Collectors.toCollection(HashSet::new))));
+    }
+
+    private record Key(AlertType type, EntityType entityType, Long entityId) {}
+
+    private record Group(AlertType type, EntityType entityType) {}
+
+    private record Intent(boolean raise, AlertSeverity severity, String message) {}
+}
@@ -0,0 +1,80 @@
+package YNprojects.logistics_system.alert.service;
+
+import YNprojects.logistics_system.alert.entity.AlertRetentionPolicy;
+import YNprojects.logistics_system.alert.entity.AlertType;
+import YNprojects.logistics_system.alert.entity.EntityType;
+import YNprojects.logistics_system.alert.repository.AlertRetentionPolicyRepo;
+import YNprojects.logistics_system.exceptions.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Retention policies read by the nightly alert purge in {@code SystemScheduler}.
+ * There is at most one policy per alert type and entity type; saving one for a pair that
+ * already has a policy replaces its ttl and enabled flag.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AlertRetentionService {
+
+    private static final int DEFAULT_TTL_DAYS = 3;
+
+    private final AlertRetentionPolicyRepo policyRepo;
+
+    @Transactional(readOnly = true)
+    public List<AlertRetentionPolicy> getAll() {
+        return policyRepo.findAll();
+    }
+
+    @Transactional(readOnly = true)
+    public List<AlertRetentionPolicy> getEnabled() {
+        return policyRepo.findByEnabledTrueOrderByIdAsc();
+    }
+
+    @Transactional
+    public AlertRetentionPolicy save(AlertRetentionPolicy policy) {
+        if (policy == null) throw new IllegalArgumentException("AlertRetentionPolicy cannot be null");
+        if (policy.getAlertType() == null) throw new IllegalArgumentException("Alert type is required");
+        if (policy.getTtlDays() < 1) throw new IllegalArgumentException("Ttl must be at least one day");
+
+        AlertRetentionPolicy target = policyRepo
+                .findByAlertTypeAndEntityType(policy.getAlertType(), policy.getEntityType())
+                .orElseGet(() -> new AlertRetentionPolicy(null, policy.getAlertType(), policy.getEntityType(), 0, false));
+        target.setTtlDays(policy.getTtlDays());
+        target.setEnabled(policy.isEnabled());
+        return policyRepo.save(target);
+    }
+
+    @Transactional
+    public void delete(Long id) {
+        AlertRetentionPolicy policy = policyRepo.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Alert retention policy not found. Id: " + id));
+        policyRepo.delete(policy);
+    }
+
+    /**
+     * Seeds the purges the scheduler used to hard-code when no policy exists yet. Runs before the
+     * scheduler's startup catch-up so a first run already has policies.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void seedDefaults() {
+        if (policyRepo.count() > 0) return;
+        policyRepo.saveAll(List.of(
+                new AlertRetentionPolicy(null, AlertType.SHIPMENT_CANCELLED, null, DEFAULT_TTL_DAYS, true),
+                new AlertRetentionPolicy(null, AlertType.PRODUCTION_CANCELLED, null, DEFAULT_TTL_DAYS, true),
+                new AlertRetentionPolicy(null, AlertType.PRODUCTION_REVERSED, null, DEFAULT_TTL_DAYS, true),
+                new AlertRetentionPolicy(null, AlertType.RAW_MATERIAL_SHORTAGE, EntityType.PRODUCTION_ORDER, DEFAULT_TTL_DAYS, true)));
+        log.info("Seeded default alert retention policies");
+    }
+}
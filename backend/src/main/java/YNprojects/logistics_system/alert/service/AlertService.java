@@ -1,51 +1,45 @@
 package YNprojects.logistics_system.alert.service;
 
+import YNprojects.logistics_system.alert.dto.AlertCount;
+import YNprojects.logistics_system.alert.dto.AlertFilterDto;
+import YNprojects.logistics_system.alert.dto.AlertPageDto;
 import YNprojects.logistics_system.alert.entity.Alert;
 import YNprojects.logistics_system.alert.entity.AlertSeverity;
 import YNprojects.logistics_system.alert.entity.AlertType;
 import YNprojects.logistics_system.alert.entity.EntityType;
 import YNprojects.logistics_system.alert.repository.AlertRepo;
+import YNprojects.logistics_system.events.AlertChangedEvent;
 import YNprojects.logistics_system.exceptions.ResourceNotFoundException;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class AlertService {
 
     private final AlertRepo alertRepo;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AlertEngine alertEngine;
 
-    @Transactional
-    public Alert createIfNotExists(AlertType type, AlertSeverity severity, EntityType entityType, Long entityId) {
-        return alertRepo.findFirstByAlertTypeAndEntityTypeAndEntityId(type, entityType, entityId)
-                .orElseGet(() -> {
-                    Alert alert = new Alert();
-                    alert.setAlertType(type);
-                    alert.setSeverity(severity);
-                    alert.setEntityType(entityType);
-                    alert.setEntityId(entityId);
-                    alert.setCreatedAt(LocalDateTime.now());
-                    return alertRepo.save(alert);
-                });
+    @Value("${alert.page.max-size:200}")
+    private int maxPageSize;
+
+    /** Raised once the current transaction commits, unless the alert already exists. See {@link AlertEngine}. */
+    public void createIfNotExists(AlertType type, AlertSeverity severity, EntityType entityType, Long entityId) {
+        alertEngine.raise(type, severity, entityType, entityId, null);
     }
-    @Transactional
-    public Alert createIfNotExistsWithMessage(AlertType type, AlertSeverity severity,
-                                              EntityType entityType, Long entityId, String message) {
-        return alertRepo.findFirstByAlertTypeAndEntityTypeAndEntityId(type, entityType, entityId)
-                .orElseGet(() -> {
-                    Alert alert = new Alert();
-                    alert.setAlertType(type);
-                    alert.setSeverity(severity);
-                    alert.setEntityType(entityType);
-                    alert.setEntityId(entityId);
-                    alert.setMessage(message);
-                    alert.setCreatedAt(LocalDateTime.now());
-                    return alertRepo.save(alert);
-                });
+
+    public void createIfNotExistsWithMessage(AlertType type, AlertSeverity severity,
+                                             EntityType entityType, Long entityId, String message) {
+        alertEngine.raise(type, severity, entityType, entityId, message);
     }
 
     @Transactional(readOnly = true)
@@ -53,6 +47,36 @@ public class AlertService {
         return alertRepo.findAll();
     }
 
+    /**
+     * Keyset page of alerts, newest first. {@code cursor} is the {@code nextCursor} of the previous page
+     * (null for the first). One extra row is read to know whether another page follows.
+     */
+    @Transactional(readOnly = true)
+    public AlertPageDto getPage(AlertFilterDto filter, Long cursor, int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+        }
+        List<Alert> rows = alertRepo.findPage(
+                cursor,
+                filter.getSeverity(),
+                filter.getAlertType(),
+                filter.getEntityType(),
+                filter.getEntityId(),
+                filter.getCreatedFrom(),
+                filter.getCreatedTo(),
+                PageRequest.of(0, size + 1));
+        if (rows.size() <= size) {
+            return new AlertPageDto(rows, null);
+        }
+        List<Alert> items = rows.subList(0, size);
+        return new AlertPageDto(new ArrayList<>(items), items.get(size - 1).getId());
+    }
+
+    @Transactional(readOnly = true)
+    public List<AlertCount> getCounts() {
+        return alertRepo.countBySeverityAndType();
+    }
+
     @Transactional(readOnly = true)
     public Alert getById(Long id) {
         return alertRepo.findById(id).orElseThrow(
@@ -72,15 +96,32 @@ public class AlertService {
 
     @Transactional
     public boolean resolve(Long alertId) {
-        if (!alertRepo.existsById(alertId)) return false;
-        alertRepo.deleteById(alertId);
-        return true;
+        return alertRepo.findById(alertId)
+                .map(a -> { delete(a); return true; })
+                .orElse(false);
     }
 
-    @Transactional
-    public int resolveByTypeAndEntity(AlertType type, EntityType entityType, Long entityId) {
-        return alertRepo.findFirstByAlertTypeAndEntityTypeAndEntityId(type, entityType, entityId)
-                .map(a -> { alertRepo.delete(a); return 1; })
-                .orElse(0);
+    /** Resolved once the current transaction commits. */
+    public void resolveByTypeAndEntity(AlertType type, EntityType entityType, Long entityId) {
+        alertEngine.resolve(type, entityType, entityId);
+    }
+
+    /**
+     * Raises {@code type} for every entity in {@code raise} that does not have it yet and resolves it
+     * for every entity in {@code resolve}, all in the same batch once the current transaction commits.
+     */
+    public void sync(AlertType type, AlertSeverity severity, EntityType entityType,
+                     Collection<Long> raise, Collection<Long> resolve) {
+        raise.forEach(entityId -> alertEngine.raise(type, severity, entityType, entityId, null));
+        resolve.forEach(entityId -> alertEngine.resolve(type, entityType, entityId));
+    }
+
+    private void delete(Alert alert) {
+        alertRepo.delete(alert);
+        resolved(alert);
+    }
+
+    private void resolved(Alert alert) {
+        eventPublisher.publishEvent(AlertChangedEvent.of(AlertChangedEvent.Change.RESOLVED, alert));
     }
 }
@@ -0,0 +1,20 @@
+package YNprojects.logistics_system.atp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/** One day with expected production output, and what can be promised from that day on. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class AtpBucketDto {
+
+    private LocalDate date;
+    private double supply;
+    private double available;
+}
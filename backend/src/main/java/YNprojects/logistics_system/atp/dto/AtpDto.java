@@ -0,0 +1,23 @@
+package YNprojects.logistics_system.atp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class AtpDto {
+
+    private Long productId;
+    private double onHand;
+    private LocalDate from;
+    private LocalDate to;
+    private double available;               // can be promised for delivery on {@code from}
+    private List<AtpBucketDto> buckets;     // days up to {@code to} that add to it
+}
@@ -0,0 +1,11 @@
+package YNprojects.logistics_system.atp.dto;
+
+import java.time.LocalDate;
+
+/** Quantity of a product a production order is expected to output, on its planned completion date. */
+public interface ProductFlow {
+    Long getSourceId();         // production order id
+    Long getProductId();
+    double getQuantity();
+    LocalDate getDate();
+}
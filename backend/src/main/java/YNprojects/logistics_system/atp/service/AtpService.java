@@ -0,0 +1,171 @@
+package YNprojects.logistics_system.atp.service;
+
+import YNprojects.logistics_system.alert.entity.EntityType;
+import YNprojects.logistics_system.atp.dto.AtpDto;
+import YNprojects.logistics_system.atp.dto.ProductFlow;
+import YNprojects.logistics_system.events.InventoryChangedEvent;
+import YNprojects.logistics_system.events.ProductionOrderStatusChangedEvent;
+import YNprojects.logistics_system.exceptions.ResourceNotFoundException;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import YNprojects.logistics_system.inventory.service.InventoryEngine;
+import YNprojects.logistics_system.productinventory.repository.ProductInventoryRepo;
+import YNprojects.logistics_system.productionorder.entity.ProductionOrderStatus;
+import YNprojects.logistics_system.productionorder.repository.ProductionOrderRepo;
+import YNprojects.logistics_system.projection.service.IncrementalProjection;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Available-to-promise of every product, served from memory.
+ *
+ * Each product has a {@link ProductLedger}: the quantity on hand plus what the PLANNED and IN_PROGRESS
+ * production orders output on their planned completion date. Outbound shipments are not subtracted
+ * again, their products left the inventory when they were created and come back if they are cancelled.
+ *
+ * The ledgers are an {@link IncrementalProjection}: rebuilt at startup and every
+ * {@code atp.rebuild-interval-ms}, and in between the orders and inventories named by committed
+ * events are reloaded in batches every {@code atp.flush-ms} and before a read.
+ */
+@Service
+@RequiredArgsConstructor
+public class AtpService extends IncrementalProjection {
+
+    /** Orders whose output is still to come. */
+    private static final Set<ProductionOrderStatus> OPEN_ORDERS =
+            EnumSet.of(ProductionOrderStatus.PLANNED, ProductionOrderStatus.IN_PROGRESS);
+
+    private final ProductInventoryRepo productInventoryRepo;
+    private final ProductionOrderRepo productionOrderRepo;
+    private final InventoryEngine inventoryEngine;
+    private final Clock clock;
+
+    @Value("${atp.horizon-days:90}")
+    private int defaultHorizonDays;
+
+    @Value("${atp.max-range-days:730}")
+    private int maxRangeDays;
+
+    @Value("${atp.load-chunk-size:1000}")
+    private int loadChunkSize;
+
+    @Value("${atp.flush-ms:1000}")
+    private long flushMillis;
+
+    @Value("${atp.rebuild-interval-ms:3600000}")
+    private long rebuildMillis;
+
+    private final Map<Long, ProductLedger> ledgers = new HashMap<>();
+    private final Map<Long, Flow> orderFlows = new HashMap<>();
+
+    private final Dirty dirtyOrders = dirtySet();
+    private final Dirty dirtyProducts = dirtySet();
+
+    /**
+     * What can be promised of a product from {@code from} (default and earliest today), and the days
+     * up to {@code to} (default {@code atp.horizon-days} after {@code from}) on which it grows.
+     */
+    public AtpDto getAtp(Long productId, LocalDate from, LocalDate to) {
+        LocalDate today = LocalDate.now(clock);
+        LocalDate start = from == null || from.isBefore(today) ? today : from;
+        LocalDate end = to == null ? start.plusDays(defaultHorizonDays) : to;
+        if (end.isBefore(start)) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+        if (ChronoUnit.DAYS.between(start, end) > maxRangeDays) {
+            throw new IllegalArgumentException("Range must not exceed " + maxRangeDays + " days");
+        }
+        return read(() -> {
+            ProductLedger ledger = ledgers.get(productId);
+            if (ledger == null) {
+                throw new ResourceNotFoundException("No inventory or production order for product: " + productId);
+            }
+            return new AtpDto(productId, ledger.getOnHand(), start, end,
+                    ledger.available(today, start), ledger.buckets(today, start, end));
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductionOrderChanged(ProductionOrderStatusChangedEvent event) {
+        dirtyOrders.mark(event.getOrderId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (event.getInventoryType() == EntityType.PRODUCT_INVENTORY) {
+            dirtyProducts.mark(event.getItemId());
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        schedule("atp-projection", flushMillis, rebuildMillis);
+    }
+
+    @Override
+    protected String name() {
+        return "ATP ledgers";
+    }
+
+    @Override
+    protected String summary() {
+        return ledgers.size() + " products, " + orderFlows.size() + " open orders";
+    }
+
+    @Override
+    protected Runnable loadChanges() {
+        List<Long> orders = dirtyOrders.drain();
+        List<Long> products = dirtyProducts.drain();
+        Map<Long, Flow> loadedOrders = bySource(inChunks(orders, loadChunkSize, ids ->
+                productionOrderRepo.findProductFlowsByStatusInAndIdIn(OPEN_ORDERS, ids)));
+        Map<Long, Double> onHand = onHand(inChunks(products, loadChunkSize,
+                productInventoryRepo::findBalancesByProductIdIn), inventoryEngine, StockItemType.PRODUCT);
+        return () -> {
+            orders.forEach(id -> replace(id, loadedOrders.get(id)));
+            // an inventory row that is gone leaves nothing on hand
+            products.forEach(id -> ledger(id).setOnHand(onHand.getOrDefault(id, 0.0)));
+        };
+    }
+
+    @Override
+    protected Runnable loadAll() {
+        Map<Long, Double> onHand = onHand(productInventoryRepo.findAllBalances(), inventoryEngine, StockItemType.PRODUCT);
+        Map<Long, Flow> orders = bySource(productionOrderRepo.findProductFlowsByStatusIn(OPEN_ORDERS));
+        return () -> {
+            ledgers.clear();
+            orderFlows.clear();
+            onHand.forEach((id, quantity) -> ledger(id).setOnHand(quantity));
+            orders.forEach(this::replace);
+        };
+    }
+
+    /** Swaps the output of one order; null removes it. Holds the state lock. */
+    private void replace(Long orderId, Flow flow) {
+        Flow previous = flow == null ? orderFlows.remove(orderId) : orderFlows.put(orderId, flow);
+        if (previous != null) ledger(previous.productId()).remove(previous.date(), previous.quantity());
+        if (flow != null) ledger(flow.productId()).add(flow.date(), flow.quantity());
+    }
+
+    private ProductLedger ledger(Long productId) {
+        return ledgers.computeIfAbsent(productId, id -> new ProductLedger());
+    }
+
+    /** An order has one product. Without a planned completion date nothing says when it comes, so it is not counted. */
+    private static Map<Long, Flow> bySource(List<ProductFlow> rows) {
+        Map<Long, Flow> flows = new HashMap<>();
+        for (ProductFlow row : rows) {
+            if (row.getDate() == null) continue;
+            flows.put(row.getSourceId(), new Flow(row.getProductId(), row.getDate(), row.getQuantity()));
+        }
+        return flows;
+    }
+
+    private record Flow(Long productId, LocalDate date, double quantity) {}
+}
@@ -0,0 +1,103 @@
+package YNprojects.logistics_system.atp.service;
+
+import YNprojects.logistics_system.atp.dto.AtpBucketDto;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Available-to-promise of one product: the quantity on hand plus the expected production output,
+ * summed per day. Days before today count as today.
+ *
+ * Reads go through an index of the days with output and the running total after each, built on the
+ * first read after a change or on a new day; the quantity for a date is then a binary search.
+ * Not thread safe; {@link AtpService} guards it.
+ */
+final class ProductLedger {
+
+    private double onHand;
+    private final TreeMap<LocalDate, Bucket> buckets = new TreeMap<>();
+
+    private LocalDate indexedFor;
+    private LocalDate[] dates;
+    private double[] supply;
+    private double[] available;
+
+    double getOnHand() {
+        return onHand;
+    }
+
+    void setOnHand(double onHand) {
+        this.onHand = onHand;
+        indexedFor = null;
+    }
+
+    void add(LocalDate date, double quantity) {
+        Bucket bucket = buckets.computeIfAbsent(date, d -> new Bucket());
+        bucket.supply += quantity;
+        bucket.flows++;
+        indexedFor = null;
+    }
+
+    /** Takes back an output added with the same date and quantity. */
+    void remove(LocalDate date, double quantity) {
+        Bucket bucket = buckets.get(date);
+        if (bucket == null) return;
+        bucket.supply -= quantity;
+        if (--bucket.flows == 0) buckets.remove(date);
+        indexedFor = null;
+    }
+
+    /** Quantity that can be promised for {@code date}, not before {@code today}. */
+    double available(LocalDate today, LocalDate date) {
+        index(today);
+        int i = lastAtOrBefore(date);
+        return i < 0 ? onHand : available[i];
+    }
+
+    /** The days after {@code from} and up to {@code to} with output. */
+    List<AtpBucketDto> buckets(LocalDate today, LocalDate from, LocalDate to) {
+        index(today);
+        List<AtpBucketDto> result = new ArrayList<>();
+        for (int i = lastAtOrBefore(from) + 1; i < dates.length && !dates[i].isAfter(to); i++) {
+            result.add(new AtpBucketDto(dates[i], supply[i], available[i]));
+        }
+        return result;
+    }
+
+    private int lastAtOrBefore(LocalDate date) {
+        int i = Arrays.binarySearch(dates, date);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    private void index(LocalDate today) {
+        if (today.equals(indexedFor)) return;
+        List<LocalDate> indexDates = new ArrayList<>();
+        List<Double> indexSupply = new ArrayList<>();
+        SortedMap<LocalDate, Bucket> due = buckets.headMap(today, true);
+        if (!due.isEmpty()) {
+            indexDates.add(today);
+            indexSupply.add(due.values().stream().mapToDouble(bucket -> bucket.supply).sum());
+        }
+        for (Map.Entry<LocalDate, Bucket> entry : buckets.tailMap(today, false).entrySet()) {
+            indexDates.add(entry.getKey());
+            indexSupply.add(entry.getValue().supply);
+        }
+
+        dates = indexDates.toArray(LocalDate[]::new);
+        supply = new double[dates.length];
+        available = new double[dates.length];
+        double running = onHand;
+        for (int i = 0; i < dates.length; i++) {
+            supply[i] = indexSupply.get(i);
+            running += supply[i];
+            available[i] = running;
+        }
+        indexedFor = today;
+    }
+
+    private static final class Bucket {
+        private double supply;
+        private int flows;
+    }
+}
@@ -0,0 +1,23 @@
+package YNprojects.logistics_system.cache.controller;
+
+import YNprojects.logistics_system.cache.dto.CacheRegionStatsDto;
+import YNprojects.logistics_system.cache.service.CacheStatsService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/cache")
+@CrossOrigin(origins = "*")
+public class CacheStatsController {
+
+    private final CacheStatsService cacheStatsService;
+
+    @GetMapping("/stats")
+    public ResponseEntity<List<CacheRegionStatsDto>> getStats() {
+        return ResponseEntity.ok(cacheStatsService.getRegionStats());
+    }
+}
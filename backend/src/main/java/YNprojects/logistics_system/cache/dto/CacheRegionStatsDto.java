@@ -0,0 +1,21 @@
+package YNprojects.logistics_system.cache.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/** Second-level cache counters of one region since startup. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheRegionStatsDto {
+
+    private String region;
+    private long hits;
+    private long misses;
+    private long puts;
+    private long entriesInMemory;   // -1 when the provider does not report it
+    private double hitRatio;        // hits / (hits + misses), 0 before the first read
+}
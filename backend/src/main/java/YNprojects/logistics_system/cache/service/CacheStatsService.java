@@ -0,0 +1,44 @@
+package YNprojects.logistics_system.cache.service;
+
+import YNprojects.logistics_system.cache.dto.CacheRegionStatsDto;
+import YNprojects.logistics_system.exceptions.ResourceNotFoundException;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.AllArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/** Reads the Hibernate second-level cache statistics, collected while {@code cache.statistics.enabled} is set. */
+@Service
+@AllArgsConstructor
+public class CacheStatsService {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public List<CacheRegionStatsDto> getRegionStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            throw new ResourceNotFoundException("Cache statistics are off, set cache.statistics.enabled=true");
+        }
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(region -> toDto(region, statistics.getCacheRegionStatistics(region)))
+                .toList();
+    }
+
+    private CacheRegionStatsDto toDto(String region, CacheRegionStatistics stats) {
+        long hits = stats == null ? 0 : stats.getHitCount();
+        long misses = stats == null ? 0 : stats.getMissCount();
+        return new CacheRegionStatsDto(
+                region,
+                hits,
+                misses,
+                stats == null ? 0 : stats.getPutCount(),
+                stats == null ? -1 : Math.max(-1, stats.getElementCountInMemory()),   // JCache reports no count
+                hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+    }
+}
@@ -0,0 +1,101 @@
+package YNprojects.logistics_system.concurrency.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounds how many requests and scheduler chunks use the database at once.
+ *
+ * With virtual threads nothing else limits concurrency, and thousands of threads queueing inside
+ * the connection pool only turn into pool timeouts. The limit defaults to half the Hikari pool:
+ * a unit of work may hold two connections at a time (alerts are written after commit in a
+ * transaction of their own), so every holder of a permit can always get both.
+ * Work that gets no permit within {@code db.limiter.acquire-timeout-ms} is rejected.
+ *
+ * Off unless {@code db.limiter.enabled} is set, as in the {@code virtual-threads} profile.
+ */
+@Slf4j
+@Component
+public class ConnectionLimiter {
+
+    private static final int CONNECTIONS_PER_PERMIT = 2;
+    private static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+
+    private final boolean enabled;
+    private final int limit;
+    private final long acquireTimeoutMillis;
+    private final Semaphore permits;
+
+    public ConnectionLimiter(DataSource dataSource,
+                             @Value("${db.limiter.enabled:false}") boolean enabled,
+                             @Value("${db.limiter.max-concurrent:0}") int maxConcurrent,
+                             @Value("${db.limiter.acquire-timeout-ms:10000}") long acquireTimeoutMillis) {
+        this.enabled = enabled;
+        this.limit = maxConcurrent > 0 ? maxConcurrent : Math.max(1, poolSize(dataSource) / CONNECTIONS_PER_PERMIT);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.permits = new Semaphore(limit, true);
+        if (enabled) {
+            log.info("Database work limited to {} concurrent units", limit);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getAvailable() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * Waits up to the acquire timeout for a permit. Always true when the limiter is off.
+     * A caller that got {@code true} must call {@link #release()}.
+     */
+    public boolean tryAcquire() throws InterruptedException {
+        return !enabled || permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void release() {
+        if (enabled) permits.release();
+    }
+
+    /** Runs {@code work} holding a permit; fails with {@link IllegalStateException} when none is free in time. */
+    public <T> T run(Supplier<T> work) {
+        try {
+            if (!tryAcquire()) {
+                throw new IllegalStateException("No database capacity within " + acquireTimeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for database capacity", e);
+        }
+        try {
+            return work.get();
+        } finally {
+            release();
+        }
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.warn("Could not read the connection pool size: {}", e.getMessage());
+        }
+        return HIKARI_DEFAULT_POOL_SIZE;
+    }
+}
@@ -0,0 +1,36 @@
+package YNprojects.logistics_system.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hibernate second-level and query cache of the reference data (products, raw materials, suppliers),
+ * backed by Ehcache through JCache. Regions, sizes and ttls are in {@code ehcache.xml}.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Value("${cache.second-level.enabled:true}")
+    private boolean enabled;
+
+    // counting costs every session a little, so it is only on while looking at GET /cache/stats
+    @Value("${cache.statistics.enabled:false}")
+    private boolean statisticsEnabled;
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer() {
+        return properties -> {
+            properties.put("hibernate.cache.use_second_level_cache", enabled);
+            properties.put("hibernate.cache.use_query_cache", enabled);
+            properties.put("hibernate.generate_statistics", statisticsEnabled);
+            if (!enabled) return;
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.javax.cache.provider", "org.ehcache.jsr107.EhcacheCachingProvider");
+            properties.put("hibernate.javax.cache.uri", "ehcache.xml");
+            // every region the entities and queries use must be declared in ehcache.xml
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+        };
+    }
+}
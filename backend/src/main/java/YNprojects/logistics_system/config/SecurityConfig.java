@@ -3,6 +3,7 @@ package YNprojects.logistics_system.config;
 
 import YNprojects.logistics_system.filter.JwtAuthenticationFilter;
 import YNprojects.logistics_system.user.service.UserDetailsServiceImp;
+import jakarta.servlet.DispatcherType;
 import lombok.AllArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -43,6 +44,10 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(
                         req->req
+                                // async dispatches of the /events stream, which was authorized when it was opened
+                                .requestMatchers(request -> request.getDispatcherType() == DispatcherType.ASYNC
+                                        && "/events".equals(request.getServletPath()))
+                                .permitAll()
                                 .requestMatchers("/login","/register","/verifyJwt" )
                                 .permitAll()
                                 .anyRequest()
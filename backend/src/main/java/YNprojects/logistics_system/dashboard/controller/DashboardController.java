@@ -0,0 +1,21 @@
+package YNprojects.logistics_system.dashboard.controller;
+
+import YNprojects.logistics_system.dashboard.dto.DashboardSummaryDto;
+import YNprojects.logistics_system.dashboard.service.DashboardService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/dashboard")
+@CrossOrigin(origins = "*")
+public class DashboardController {
+
+    private final DashboardService dashboardService;
+
+    @GetMapping("/summary")
+    public ResponseEntity<DashboardSummaryDto> getSummary() {
+        return ResponseEntity.ok(dashboardService.getSummary());
+    }
+}
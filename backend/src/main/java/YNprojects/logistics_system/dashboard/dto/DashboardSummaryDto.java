@@ -0,0 +1,36 @@
+package YNprojects.logistics_system.dashboard.dto;
+
+import YNprojects.logistics_system.alert.entity.Alert;
+import YNprojects.logistics_system.alert.entity.AlertSeverity;
+import YNprojects.logistics_system.productionorder.entity.ProductionOrderStatus;
+import YNprojects.logistics_system.shipment.dto.ShipmentSummaryDto;
+import YNprojects.logistics_system.shipment.entity.ShipmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class DashboardSummaryDto {
+
+    private StockCountsDto products;
+    private StockCountsDto rawMaterials;
+
+    private GroupCountsDto<ShipmentStatus> shipmentsInbound;
+    private GroupCountsDto<ShipmentStatus> shipmentsOutbound;
+    private GroupCountsDto<ProductionOrderStatus> productionOrders;
+    private GroupCountsDto<AlertSeverity> alerts;
+
+    private long suppliers;
+
+    private List<Alert> recentAlerts;                      // latest first
+    private List<ShipmentSummaryDto> upcomingShipments;    // PLANNED, by departure date
+
+    private LocalDateTime generatedAt;
+}
@@ -0,0 +1,19 @@
+package YNprojects.logistics_system.dashboard.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+/** Total and per-key counts (status, severity...); every key of the enum is present, zero included. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class GroupCountsDto<K extends Enum<K>> {
+
+    private long total;
+    private Map<K, Long> counts;
+}
@@ -0,0 +1,16 @@
+package YNprojects.logistics_system.dashboard.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockCountsDto {
+
+    private long total;
+    private long lowStock;     // quantity at or below a positive reorder threshold
+}
@@ -0,0 +1,155 @@
+package YNprojects.logistics_system.dashboard.service;
+
+import YNprojects.logistics_system.alert.dto.AlertSeverityCount;
+import YNprojects.logistics_system.alert.entity.AlertSeverity;
+import YNprojects.logistics_system.alert.repository.AlertRepo;
+import YNprojects.logistics_system.dashboard.dto.DashboardSummaryDto;
+import YNprojects.logistics_system.dashboard.dto.GroupCountsDto;
+import YNprojects.logistics_system.dashboard.dto.StockCountsDto;
+import YNprojects.logistics_system.events.LogisticsEvent;
+import YNprojects.logistics_system.product.repository.ProductRepo;
+import YNprojects.logistics_system.productinventory.repository.ProductInventoryRepo;
+import YNprojects.logistics_system.productionorder.dto.ProductionOrderStatusCount;
+import YNprojects.logistics_system.productionorder.entity.ProductionOrderStatus;
+import YNprojects.logistics_system.productionorder.repository.ProductionOrderRepo;
+import YNprojects.logistics_system.rawmaterial.repository.RawMaterialRepo;
+import YNprojects.logistics_system.rawmaterialinventory.repository.RawMaterialInventoryRepo;
+import YNprojects.logistics_system.shipment.dto.ShipmentStatusCount;
+import YNprojects.logistics_system.shipment.entity.ShipmentDirection;
+import YNprojects.logistics_system.shipment.entity.ShipmentStatus;
+import YNprojects.logistics_system.shipment.repo.ShipmentRepo;
+import YNprojects.logistics_system.supplier.repository.SupplierRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serves the dashboard rollups from memory.
+ *
+ * Every committed write published by the services (inventory, shipment, order and alert events)
+ * bumps a version; the next read recomputes the summary with a handful of grouped count queries
+ * and caches it until the following write. {@code dashboard.summary.max-age-seconds} bounds the
+ * staleness left by writes that publish no event, such as the nightly alert purges.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardService {
+
+    private final ProductRepo productRepo;
+    private final RawMaterialRepo rawMaterialRepo;
+    private final SupplierRepo supplierRepo;
+    private final ProductInventoryRepo productInventoryRepo;
+    private final RawMaterialInventoryRepo rawMaterialInventoryRepo;
+    private final ShipmentRepo shipmentRepo;
+    private final ProductionOrderRepo productionOrderRepo;
+    private final AlertRepo alertRepo;
+
+    @Value("${dashboard.summary.max-age-seconds:60}")
+    private long maxAgeSeconds;
+
+    @Value("${dashboard.upcoming-shipments:8}")
+    private int upcomingShipments;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    public DashboardSummaryDto getSummary() {
+        Snapshot current = snapshot;
+        if (isFresh(current)) return current.summary;
+        return refresh();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(LogisticsEvent event) {
+        version.incrementAndGet();
+    }
+
+    // a lock rather than synchronized: a virtual thread blocked on JDBC inside synchronized pins its carrier
+    private DashboardSummaryDto refresh() {
+        refreshLock.lock();
+        try {
+            Snapshot current = snapshot;
+            if (isFresh(current)) return current.summary;   // another thread refreshed it meanwhile
+
+            // read the version first: a write committed during the computation forces the next refresh
+            long computedVersion = version.get();
+            long started = System.currentTimeMillis();
+            DashboardSummaryDto summary = compute();
+            snapshot = new Snapshot(computedVersion, summary);
+            log.debug("Dashboard summary recomputed in {} ms", System.currentTimeMillis() - started);
+            return summary;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private boolean isFresh(Snapshot current) {
+        return current != null
+                && current.version == version.get()
+                && current.summary.getGeneratedAt().isAfter(LocalDateTime.now().minusSeconds(maxAgeSeconds));
+    }
+
+    private DashboardSummaryDto compute() {
+        Map<ShipmentStatus, Long> inbound = zeroCounts(ShipmentStatus.class);
+        Map<ShipmentStatus, Long> outbound = zeroCounts(ShipmentStatus.class);
+        for (ShipmentStatusCount row : shipmentRepo.countByDirectionAndStatus()) {
+            (row.getDirection() == ShipmentDirection.INBOUND ? inbound : outbound).merge(row.getStatus(), row.getTotal(), Long::sum);
+        }
+
+        Map<ProductionOrderStatus, Long> orders = zeroCounts(ProductionOrderStatus.class);
+        for (ProductionOrderStatusCount row : productionOrderRepo.countByStatus()) {
+            orders.put(row.getStatus(), row.getTotal());
+        }
+
+        Map<AlertSeverity, Long> alerts = zeroCounts(AlertSeverity.class);
+        for (AlertSeverityCount row : alertRepo.countBySeverity()) {
+            alerts.put(row.getSeverity(), row.getTotal());
+        }
+
+        return new DashboardSummaryDto(
+                new StockCountsDto(productRepo.count(), productInventoryRepo.countLowStock()),
+                new StockCountsDto(rawMaterialRepo.count(), rawMaterialInventoryRepo.countLowStock()),
+                totals(inbound),
+                totals(outbound),
+                totals(orders),
+                totals(alerts),
+                supplierRepo.count(),
+                alertRepo.findTop5ByOrderByCreatedAtDesc(),
+                shipmentRepo.findSummariesByStatusOrderByDepartureDate(ShipmentStatus.PLANNED, PageRequest.of(0, upcomingShipments)),
+                LocalDateTime.now()
+        );
+    }
+
+    private static <K extends Enum<K>> Map<K, Long> zeroCounts(Class<K> type) {
+        Map<K, Long> counts = new EnumMap<>(type);
+        for (K key : type.getEnumConstants()) counts.put(key, 0L);
+        return counts;
+    }
+
+    private static <K extends Enum<K>> GroupCountsDto<K> totals(Map<K, Long> counts) {
+        long total = counts.values().stream().mapToLong(Long::longValue).sum();
+        return new GroupCountsDto<>(total, counts);
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final DashboardSummaryDto summary;
+
+        private Snapshot(long version, DashboardSummaryDto summary) {
+            this.version = version;
+            this.summary = summary;
+        }
+    }
+}
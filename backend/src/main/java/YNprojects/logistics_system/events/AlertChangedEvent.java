@@ -0,0 +1,39 @@
+package YNprojects.logistics_system.events;
+
+import YNprojects.logistics_system.alert.entity.Alert;
+import YNprojects.logistics_system.alert.entity.AlertSeverity;
+import YNprojects.logistics_system.alert.entity.AlertType;
+import YNprojects.logistics_system.alert.entity.EntityType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/** An alert was raised or resolved (resolved alerts are deleted). */
+@Getter
+@AllArgsConstructor
+@ToString
+public class AlertChangedEvent extends LogisticsEvent {
+
+    public enum Change { CREATED, RESOLVED }
+
+    private final Change change;
+    private final Long alertId;
+    private final AlertType alertType;
+    private final AlertSeverity severity;
+    private final EntityType entityType;
+    private final Long entityId;
+    private final String message;
+    private final LocalDateTime createdAt;
+
+    @Override
+    public String getType() {
+        return change == Change.CREATED ? "alert.created" : "alert.resolved";
+    }
+
+    public static AlertChangedEvent of(Change change, Alert alert) {
+        return new AlertChangedEvent(change, alert.getId(), alert.getAlertType(), alert.getSeverity(),
+                alert.getEntityType(), alert.getEntityId(), alert.getMessage(), alert.getCreatedAt());
+    }
+}
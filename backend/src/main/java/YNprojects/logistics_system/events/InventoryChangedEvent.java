@@ -0,0 +1,32 @@
+package YNprojects.logistics_system.events;
+
+import YNprojects.logistics_system.alert.entity.EntityType;
+import YNprojects.logistics_system.inventory.dto.StockLevel;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/** New quantity of a product or raw material inventory row. */
+@Getter
+@AllArgsConstructor
+@ToString
+public class InventoryChangedEvent extends LogisticsEvent {
+
+    private final EntityType inventoryType;   // PRODUCT_INVENTORY or RAW_MATERIAL_INVENTORY
+    private final Long inventoryId;
+    private final Long itemId;                // product or raw material id
+    private final Double quantity;
+    private final Double reorderThreshold;
+
+    @Override
+    public String getType() {
+        return "inventory.changed";
+    }
+
+    public static InventoryChangedEvent of(StockLevel level) {
+        return new InventoryChangedEvent(
+                level.getItemType() == StockItemType.PRODUCT ? EntityType.PRODUCT_INVENTORY : EntityType.RAW_MATERIAL_INVENTORY,
+                level.getInventoryId(), level.getItemId(), level.getQuantity(), level.getReorderThreshold());
+    }
+}
@@ -0,0 +1,19 @@
+package YNprojects.logistics_system.events;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Base of the domain events published by the services after a write.
+ * Listeners use {@code @TransactionalEventListener}, so they only see changes that were committed;
+ * the same events are pushed to clients over {@code GET /events}.
+ */
+@Getter
+public abstract class LogisticsEvent {
+
+    private final LocalDateTime occurredAt = LocalDateTime.now();
+
+    /** Event name on the {@code /events} stream, e.g. {@code alert.created}. */
+    public abstract String getType();
+}
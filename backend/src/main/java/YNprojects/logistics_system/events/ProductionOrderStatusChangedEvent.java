@@ -0,0 +1,22 @@
+package YNprojects.logistics_system.events;
+
+import YNprojects.logistics_system.productionorder.entity.ProductionOrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/** A production order was created ({@code previousStatus} null) or changed status. */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ProductionOrderStatusChangedEvent extends LogisticsEvent {
+
+    private final Long orderId;
+    private final ProductionOrderStatus previousStatus;
+    private final ProductionOrderStatus status;
+
+    @Override
+    public String getType() {
+        return "production-order.status-changed";
+    }
+}
@@ -0,0 +1,22 @@
+package YNprojects.logistics_system.events;
+
+import YNprojects.logistics_system.shipment.entity.ShipmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/** A shipment was created ({@code previousStatus} null) or changed status. */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ShipmentStatusChangedEvent extends LogisticsEvent {
+
+    private final Long shipmentId;
+    private final ShipmentStatus previousStatus;
+    private final ShipmentStatus status;
+
+    @Override
+    public String getType() {
+        return "shipment.status-changed";
+    }
+}
@@ -0,0 +1,22 @@
+package YNprojects.logistics_system.events.controller;
+
+import YNprojects.logistics_system.events.service.EventStreamService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/events")
+@CrossOrigin(origins = "*")
+public class EventStreamController {
+
+    private final EventStreamService eventStreamService;
+
+    /** Server-sent events: alert.created, alert.resolved, inventory.changed, shipment.status-changed, production-order.status-changed. */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return eventStreamService.subscribe();
+    }
+}
@@ -0,0 +1,133 @@
+package YNprojects.logistics_system.events.service;
+
+import YNprojects.logistics_system.events.LogisticsEvent;
+import YNprojects.logistics_system.exceptions.ServiceBusyException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pushes committed {@link LogisticsEvent}s to the clients connected to {@code GET /events}.
+ *
+ * Each client has a queue of {@code events.sse.queue-size} frames and a virtual thread of its own
+ * that writes them, so the transaction that produced an event only enqueues it and a slow client
+ * only holds up itself. A client whose queue is full, or whose connection fails, is dropped and is
+ * expected to reconnect (EventSource does this on its own) and re-read what it displays. Beyond
+ * {@code events.sse.max-clients} new clients are answered with 503 and {@code Retry-After}.
+ */
+@Slf4j
+@Service
+public class EventStreamService {
+
+    // wakes up the sender of a dropped client
+    private static final Set<DataWithMediaType> STOP = Set.of();
+
+    @Value("${events.sse.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${events.sse.max-clients:200}")
+    private int maxClients;
+
+    @Value("${events.sse.queue-size:256}")
+    private int queueSize;
+
+    @Value("${events.sse.retry-after-seconds:5}")
+    private int retryAfterSeconds;
+
+    private final List<Client> clients = new CopyOnWriteArrayList<>();
+
+    public SseEmitter subscribe() {
+        if (clients.size() >= maxClients) {
+            throw new ServiceBusyException("Too many event stream clients, try again later", retryAfterSeconds);
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Client client = new Client(emitter, new ArrayBlockingQueue<>(queueSize));
+        emitter.onCompletion(() -> drop(client));
+        emitter.onTimeout(() -> drop(client));
+        emitter.onError(e -> drop(client));
+        clients.add(client);
+        // first frame commits the response, so the client knows it is connected
+        client.queue.offer(SseEmitter.event().comment("connected").build());
+        client.sender = Thread.ofVirtual().name("event-stream-", clients.size()).start(() -> pump(client));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEvent(LogisticsEvent event) {
+        if (clients.isEmpty()) return;
+        publish(SseEmitter.event().name(event.getType()).data(event, MediaType.APPLICATION_JSON).build());
+    }
+
+    /** Keeps idle connections open through proxies and notices clients that went away. */
+    @Scheduled(fixedDelayString = "${events.sse.heartbeat-ms:25000}")
+    public void heartbeat() {
+        if (clients.isEmpty()) return;
+        publish(SseEmitter.event().comment("ping").build());
+    }
+
+    @PreDestroy
+    public void close() {
+        clients.forEach(this::drop);
+    }
+
+    /** Enqueues one frame, built once, for every client; never blocks. */
+    private void publish(Set<DataWithMediaType> frame) {
+        for (Client client : clients) {
+            if (!client.queue.offer(frame)) {
+                log.debug("Dropping event stream client that fell {} frames behind", queueSize);
+                drop(client);
+            }
+        }
+    }
+
+    /** Writes the client's frames until it is dropped; the emitter is completed on this thread. */
+    private void pump(Client client) {
+        try {
+            while (true) {
+                Set<DataWithMediaType> frame = client.queue.take();
+                if (client.dropped) break;
+                client.emitter.send(frame);
+            }
+            client.emitter.complete();
+        } catch (InterruptedException e) {
+            client.emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping event stream client: {}", e.getMessage());
+            drop(client);
+            client.emitter.completeWithError(e);
+        }
+    }
+
+    private void drop(Client client) {
+        client.dropped = true;
+        clients.remove(client);
+        client.queue.clear();
+        client.queue.offer(STOP);
+        if (client.sender != null) client.sender.interrupt();
+    }
+
+    private static final class Client {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> queue;
+        private volatile Thread sender;
+        private volatile boolean dropped;
+
+        private Client(SseEmitter emitter, BlockingQueue<Set<DataWithMediaType>> queue) {
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+    }
+}
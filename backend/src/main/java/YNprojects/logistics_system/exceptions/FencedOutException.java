@@ -0,0 +1,8 @@
+package YNprojects.logistics_system.exceptions;
+
+/** A scheduler write of a run whose fencing token is no longer the lease's: another node leads now. */
+public class FencedOutException extends IllegalStateException {
+    public FencedOutException(String message) {
+        super(message);
+    }
+}
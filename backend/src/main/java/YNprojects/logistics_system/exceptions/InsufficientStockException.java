@@ -0,0 +1,7 @@
+package YNprojects.logistics_system.exceptions;
+
+public class InsufficientStockException extends IllegalStateException {
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package YNprojects.logistics_system.exceptions;
+
+import lombok.Getter;
+
+/** The server cannot take the request now; answered with 503 and a {@code Retry-After} header. */
+@Getter
+public class ServiceBusyException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public ServiceBusyException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
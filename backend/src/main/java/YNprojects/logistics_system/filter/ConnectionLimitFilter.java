@@ -0,0 +1,68 @@
+package YNprojects.logistics_system.filter;
+
+import YNprojects.logistics_system.concurrency.service.ConnectionLimiter;
+import YNprojects.logistics_system.exceptionhandler.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Holds a {@link ConnectionLimiter} permit for the whole request: with open-in-view a request
+ * keeps its connection until the response is written. Registered after the security filters,
+ * so unauthenticated requests never wait for a permit. Requests that get none in time are
+ * answered with 503 and a {@code Retry-After} header. The event stream holds no connection
+ * and is not limited.
+ */
+@AllArgsConstructor
+@Component
+public class ConnectionLimitFilter extends OncePerRequestFilter {
+
+    private static final String EVENT_STREAM_PATH = "/events";
+
+    private final ConnectionLimiter connectionLimiter;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !connectionLimiter.isEnabled() || EVENT_STREAM_PATH.equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        boolean acquired;
+        try {
+            acquired = connectionLimiter.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                    new ErrorResponse("The server is busy, try again shortly.", Instant.now()));
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            connectionLimiter.release();
+        }
+    }
+}
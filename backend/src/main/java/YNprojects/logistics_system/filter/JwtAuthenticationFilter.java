@@ -1,8 +1,11 @@
 package YNprojects.logistics_system.filter;
 
+import YNprojects.logistics_system.user.entity.Role;
 import YNprojects.logistics_system.user.entity.User;
 import YNprojects.logistics_system.user.service.JwtService;
 import YNprojects.logistics_system.user.service.UserDetailsServiceImp;
+import YNprojects.logistics_system.user.service.UserStatusCache;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,6 +27,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsServiceImp userDetailsService;
+    private final UserStatusCache userStatusCache;
+
+    private static final String EVENT_STREAM_PATH = "/events";
 
     @Override
     protected void doFilterInternal(
@@ -33,22 +39,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
 
         String authHeader = request.getHeader("Authorization");
-
-        if(authHeader == null || !authHeader.startsWith("Bearer ")) {
+        String token;
+
+        if(authHeader != null && authHeader.startsWith("Bearer ")) {
+            token = authHeader.substring(7);
+        } else if (EVENT_STREAM_PATH.equals(request.getServletPath()) && request.getParameter("access_token") != null) {
+            // EventSource cannot set headers, so the event stream also accepts the token as a query parameter
+            token = request.getParameter("access_token");
+        } else {
             filterChain.doFilter(request,response);
             return;
         }
 
-        String token = authHeader.substring(7);
-        String username = jwtService.extractUsername(token);
+        // verified once; later requests with the same token are served from the service's cache
+        Claims claims = jwtService.extractAllClaims(token);
+        String username = claims.getSubject();
 
         if(username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            User currentUser = (User) userDetails;
-            System.out.println("current user : " + currentUser.toString());
+            UserDetails userDetails = principal(claims);
 
-            if(jwtService.isValid(token, userDetails)) {
+            if(userDetails != null && jwtService.isValid(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities()
                 );
@@ -65,4 +76,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
 
     }
+
+    /**
+     * The user the token was issued to, built from its claims. Null when the user was deleted
+     * or its role changed since, so the token no longer authenticates.
+     * Tokens issued before the claims existed fall back to loading the user.
+     */
+    private UserDetails principal(Claims claims) {
+        Long userId = claims.get(JwtService.USER_ID_CLAIM, Long.class);
+        String role = claims.get(JwtService.ROLE_CLAIM, String.class);
+        if (userId == null || role == null) {
+            return userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+        Role tokenRole = Role.valueOf(role);
+        if (userStatusCache.currentRole(userId).filter(tokenRole::equals).isEmpty()) {
+            return null;
+        }
+        User user = new User();
+        user.setId(userId);
+        user.setUsername(claims.getSubject());
+        user.setRole(tokenRole);
+        return user;
+    }
 }
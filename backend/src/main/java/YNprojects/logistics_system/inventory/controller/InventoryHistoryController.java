@@ -0,0 +1,43 @@
+package YNprojects.logistics_system.inventory.controller;
+
+import YNprojects.logistics_system.inventory.dto.InventoryMovementPageDto;
+import YNprojects.logistics_system.inventory.dto.ReconciliationLineDto;
+import YNprojects.logistics_system.inventory.dto.StockAtDto;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import YNprojects.logistics_system.inventory.service.InventoryHistoryService;
+import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/inventory")
+@CrossOrigin(origins = "*")
+public class InventoryHistoryController {
+
+    private final InventoryHistoryService inventoryHistoryService;
+
+    @GetMapping("/movements")
+    public ResponseEntity<InventoryMovementPageDto> getMovements(@RequestParam StockItemType itemType,
+                                                                 @RequestParam Long itemId,
+                                                                 @RequestParam(required = false) Long cursor,
+                                                                 @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(inventoryHistoryService.getMovements(itemType, itemId, cursor, size));
+    }
+
+    @GetMapping("/stock-at")
+    public ResponseEntity<StockAtDto> getStockAt(@RequestParam StockItemType itemType,
+                                                 @RequestParam Long itemId,
+                                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(inventoryHistoryService.getStockAt(itemType, itemId, at));
+    }
+
+    @GetMapping("/reconciliation")
+    public ResponseEntity<List<ReconciliationLineDto>> getReconciliation() {
+        return ResponseEntity.ok(inventoryHistoryService.reconcile());
+    }
+}
@@ -0,0 +1,21 @@
+package YNprojects.logistics_system.inventory.controller;
+
+import YNprojects.logistics_system.inventory.dto.InventoryLockStatsDto;
+import YNprojects.logistics_system.inventory.service.InventoryLockManager;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/inventory/locks")
+@CrossOrigin(origins = "*")
+public class InventoryLockController {
+
+    private final InventoryLockManager inventoryLockManager;
+
+    @GetMapping("/stats")
+    public ResponseEntity<InventoryLockStatsDto> getStats() {
+        return ResponseEntity.ok(inventoryLockManager.stats());
+    }
+}
@@ -0,0 +1,9 @@
+package YNprojects.logistics_system.inventory.dto;
+
+/** Stored quantity of one inventory row, keyed by the product or raw material it holds. */
+public interface InventoryBalance {
+    Long getItemId();
+    Long getInventoryId();
+    double getQuantity();
+    Double getReorderThreshold();
+}
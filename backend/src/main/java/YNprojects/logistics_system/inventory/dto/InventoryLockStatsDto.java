@@ -0,0 +1,23 @@
+package YNprojects.logistics_system.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/** Inventory row lock counters since startup. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class InventoryLockStatsDto {
+
+    private long acquisitions;      // bulk lock calls
+    private long rowsLocked;
+    private long totalWaitMillis;
+    private long maxWaitMillis;
+    private long timeouts;          // lock wait timeouts (MySQL 1205)
+    private long deadlocks;         // deadlock victims (MySQL 1213)
+    private long retries;           // transactions retried after a timeout or deadlock
+    private long retriesExhausted;  // transactions that still failed after the last retry
+}
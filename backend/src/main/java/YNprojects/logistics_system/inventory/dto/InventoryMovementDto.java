@@ -0,0 +1,26 @@
+package YNprojects.logistics_system.inventory.dto;
+
+import YNprojects.logistics_system.inventory.entity.MovementCause;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class InventoryMovementDto {
+
+    private Long sequence;
+    private StockItemType itemType;
+    private Long itemId;
+    private double delta;
+    private double balanceAfter;
+    private MovementCause cause;
+    private Long causeId;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,19 @@
+package YNprojects.logistics_system.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/** One page of movements, newest first. Pass {@code nextCursor} back as {@code cursor}; it is null on the last page. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class InventoryMovementPageDto {
+
+    private List<InventoryMovementDto> items;
+    private Long nextCursor;
+}
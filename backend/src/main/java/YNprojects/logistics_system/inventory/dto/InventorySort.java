@@ -0,0 +1,27 @@
+package YNprojects.logistics_system.inventory.dto;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
+
+/**
+ * Orders of the inventory pages. {@code i} is the inventory row and {@code item} its product or raw material.
+ * COVERAGE (quantity minus reorder threshold) ascending puts the rows furthest below their threshold first;
+ * a row without a threshold counts as a threshold of 0 rather than sorting as null.
+ */
+public enum InventorySort {
+    COVERAGE("(i.quantity - coalesce(i.reorderThreshold, 0))"),
+    QUANTITY("quantity"),
+    THRESHOLD("reorderThreshold"),
+    NAME("item.name");
+
+    private final String expression;
+
+    InventorySort(String expression) {
+        this.expression = expression;
+    }
+
+    /** The order, then the inventory id so that rows with equal values keep their page across requests. */
+    public Sort toSort(Sort.Direction direction) {
+        return JpaSort.unsafe(direction, expression).and(Sort.by(direction, "id"));
+    }
+}
@@ -0,0 +1,10 @@
+package YNprojects.logistics_system.inventory.dto;
+
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+
+/** Row of movement deltas summed per item. */
+public interface MovementTotal {
+    StockItemType getItemType();
+    Long getItemId();
+    double getTotal();
+}
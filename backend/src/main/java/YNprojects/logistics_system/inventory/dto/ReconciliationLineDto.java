@@ -0,0 +1,21 @@
+package YNprojects.logistics_system.inventory.dto;
+
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/** An item whose ledger balance and inventory quantity disagree. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReconciliationLineDto {
+
+    private StockItemType itemType;
+    private Long itemId;
+    private Long inventoryId;
+    private double ledgerQuantity;
+    private double inventoryQuantity;
+}
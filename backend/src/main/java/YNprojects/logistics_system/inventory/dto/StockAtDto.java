@@ -0,0 +1,21 @@
+package YNprojects.logistics_system.inventory.dto;
+
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockAtDto {
+
+    private StockItemType itemType;
+    private Long itemId;
+    private LocalDateTime at;
+    private double quantity;
+}
@@ -0,0 +1,31 @@
+package YNprojects.logistics_system.inventory.dto;
+
+import YNprojects.logistics_system.inventory.entity.MovementCause;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Quantity to add (positive) or remove (negative) for one product or raw material,
+ * with the shipment, production order or manual update it comes from.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class StockChange {
+
+    private final StockItemType itemType;
+    private final Long itemId;
+    private final double delta;
+    private final MovementCause cause;
+    private final Long causeId;
+
+    public static StockChange product(Long productId, double delta, MovementCause cause, Long causeId) {
+        return new StockChange(StockItemType.PRODUCT, productId, delta, cause, causeId);
+    }
+
+    public static StockChange rawMaterial(Long rawMaterialId, double delta, MovementCause cause, Long causeId) {
+        return new StockChange(StockItemType.RAW_MATERIAL, rawMaterialId, delta, cause, causeId);
+    }
+}
@@ -0,0 +1,19 @@
+package YNprojects.logistics_system.inventory.dto;
+
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/** Balance of one inventory row right after a change. */
+@Getter
+@AllArgsConstructor
+@ToString
+public class StockLevel {
+
+    private final StockItemType itemType;
+    private final Long itemId;
+    private final Long inventoryId;
+    private final double quantity;
+    private final double reorderThreshold;
+}
@@ -0,0 +1,44 @@
+package YNprojects.logistics_system.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stock delta, append only. The id is the ledger sequence number: movements of the same item
+ * get increasing ids in the order they were applied, since the engine holds the item's lock while
+ * recording them. {@code balanceAfter} is the item's quantity right after this movement.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_movement_item", columnList = "itemType, itemId, id"),
+        @Index(name = "idx_movement_occurred", columnList = "occurredAt"),
+        @Index(name = "idx_movement_cause", columnList = "cause, causeId")
+})
+public class InventoryMovement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private StockItemType itemType;
+    private Long itemId;
+    private Long inventoryId;
+
+    private double delta;
+    private double balanceAfter;
+
+    @Enumerated(EnumType.STRING)
+    private MovementCause cause;
+    private Long causeId;
+
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,34 @@
+package YNprojects.logistics_system.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Balance of one item after every movement up to {@code lastSequence}, all of which occurred
+ * at or before {@code asOf}. Replays start from the nearest snapshot instead of the first movement.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "idx_snapshot_item_as_of", columnList = "itemType, itemId, asOf"))
+public class InventorySnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private StockItemType itemType;
+    private Long itemId;
+
+    private double quantity;
+    private Long lastSequence;
+    private LocalDateTime asOf;
+    private LocalDateTime takenAt;
+}
@@ -0,0 +1,8 @@
+package YNprojects.logistics_system.inventory.entity;
+
+/** What a stock movement was caused by; the cause id points to a row of that kind. */
+public enum MovementCause {
+    SHIPMENT,
+    PRODUCTION_ORDER,
+    MANUAL
+}
@@ -0,0 +1,6 @@
+package YNprojects.logistics_system.inventory.entity;
+
+public enum StockItemType {
+    PRODUCT,
+    RAW_MATERIAL
+}
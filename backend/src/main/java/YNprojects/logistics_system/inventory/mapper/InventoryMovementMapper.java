@@ -0,0 +1,19 @@
+package YNprojects.logistics_system.inventory.mapper;
+
+import YNprojects.logistics_system.inventory.dto.InventoryMovementDto;
+import YNprojects.logistics_system.inventory.entity.InventoryMovement;
+
+public class InventoryMovementMapper {
+    public static InventoryMovementDto toDto(InventoryMovement movement) {
+        InventoryMovementDto dto = new InventoryMovementDto();
+        dto.setSequence(movement.getId());
+        dto.setItemType(movement.getItemType());
+        dto.setItemId(movement.getItemId());
+        dto.setDelta(movement.getDelta());
+        dto.setBalanceAfter(movement.getBalanceAfter());
+        dto.setCause(movement.getCause());
+        dto.setCauseId(movement.getCauseId());
+        dto.setOccurredAt(movement.getOccurredAt());
+        return dto;
+    }
+}
@@ -0,0 +1,49 @@
+package YNprojects.logistics_system.inventory.repository;
+
+import YNprojects.logistics_system.inventory.dto.MovementTotal;
+import YNprojects.logistics_system.inventory.entity.InventoryMovement;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface InventoryMovementRepo extends JpaRepository<InventoryMovement, Long> {
+
+    /** Keyset page of an item's movements, newest first: ids below {@code cursor} (all when null). */
+    @Query("select m from InventoryMovement m where m.itemType = :itemType and m.itemId = :itemId " +
+            "and (:cursor is null or m.id < :cursor) order by m.id desc")
+    List<InventoryMovement> findPage(@Param("itemType") StockItemType itemType,
+                                     @Param("itemId") Long itemId,
+                                     @Param("cursor") Long cursor,
+                                     Pageable pageable);
+
+    Optional<InventoryMovement> findFirstByItemTypeAndItemIdOrderByIdAsc(StockItemType itemType, Long itemId);
+
+    /** First movement of each of {@code itemIds} that has moved. */
+    @Query("select m from InventoryMovement m where m.itemType = :itemType and m.itemId in :itemIds and m.id = " +
+            "(select min(m2.id) from InventoryMovement m2 where m2.itemType = m.itemType and m2.itemId = m.itemId)")
+    List<InventoryMovement> findFirstMovements(@Param("itemType") StockItemType itemType,
+                                               @Param("itemIds") Collection<Long> itemIds);
+
+    /** Sum of an item's deltas after sequence {@code afterId} that occurred at or before {@code at}. */
+    @Query("select coalesce(sum(m.delta), 0) from InventoryMovement m where m.itemType = :itemType " +
+            "and m.itemId = :itemId and m.id > :afterId and m.occurredAt <= :at")
+    double sumDelta(@Param("itemType") StockItemType itemType,
+                    @Param("itemId") Long itemId,
+                    @Param("afterId") long afterId,
+                    @Param("at") LocalDateTime at);
+
+    @Query("select coalesce(max(m.id), 0) from InventoryMovement m where m.occurredAt <= :at")
+    long findLastSequenceAt(@Param("at") LocalDateTime at);
+
+    /** Deltas per item for the sequence range {@code (afterId, upToId]}. */
+    @Query("select m.itemType as itemType, m.itemId as itemId, sum(m.delta) as total from InventoryMovement m " +
+            "where m.id > :afterId and m.id <= :upToId group by m.itemType, m.itemId")
+    List<MovementTotal> sumDeltaByItem(@Param("afterId") long afterId, @Param("upToId") long upToId);
+}
@@ -0,0 +1,35 @@
+package YNprojects.logistics_system.inventory.repository;
+
+import YNprojects.logistics_system.inventory.entity.InventorySnapshot;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface InventorySnapshotRepo extends JpaRepository<InventorySnapshot, Long> {
+
+    /** Nearest snapshot of an item at or before {@code at}. */
+    Optional<InventorySnapshot> findFirstByItemTypeAndItemIdAndAsOfLessThanEqualOrderByAsOfDesc(
+            StockItemType itemType, Long itemId, LocalDateTime at);
+
+    Optional<InventorySnapshot> findFirstByItemTypeAndItemIdOrderByLastSequenceDesc(StockItemType itemType, Long itemId);
+
+    /** Latest snapshot of every item of a type that has one. */
+    @Query("select s from InventorySnapshot s where s.itemType = :itemType and s.asOf = " +
+            "(select max(s2.asOf) from InventorySnapshot s2 where s2.itemType = s.itemType and s2.itemId = s.itemId)")
+    List<InventorySnapshot> findLatest(@Param("itemType") StockItemType itemType);
+
+    /** Latest snapshot of each of {@code itemIds} that has one. */
+    @Query("select s from InventorySnapshot s where s.itemType = :itemType and s.itemId in :itemIds and s.asOf = " +
+            "(select max(s2.asOf) from InventorySnapshot s2 where s2.itemType = s.itemType and s2.itemId = s.itemId)")
+    List<InventorySnapshot> findLatest(@Param("itemType") StockItemType itemType,
+                                       @Param("itemIds") Collection<Long> itemIds);
+
+    @Query("select coalesce(max(s.lastSequence), 0) from InventorySnapshot s")
+    long findLastSequence();
+}
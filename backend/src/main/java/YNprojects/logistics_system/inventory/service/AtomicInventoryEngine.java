@@ -0,0 +1,175 @@
+package YNprojects.logistics_system.inventory.service;
+
+import YNprojects.logistics_system.exceptions.InsufficientStockException;
+import YNprojects.logistics_system.inventory.dto.InventoryBalance;
+import YNprojects.logistics_system.inventory.dto.StockChange;
+import YNprojects.logistics_system.inventory.dto.StockLevel;
+import YNprojects.logistics_system.inventory.entity.MovementCause;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import YNprojects.logistics_system.productinventory.entities.ProductInventory;
+import YNprojects.logistics_system.productinventory.repository.ProductInventoryRepo;
+import YNprojects.logistics_system.rawmaterialinventory.entity.RawMaterialInventory;
+import YNprojects.logistics_system.rawmaterialinventory.repository.RawMaterialInventoryRepo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Engine with no locking read ({@code inventory.engine=atomic}): each item's delta is a single
+ * conditional {@code UPDATE ... SET quantity = quantity + ? WHERE ... AND quantity + ? >= 0}, so
+ * the row is only locked from that statement to the commit. Items are updated in id order, products
+ * first; when one is refused, the ones already updated are put back before the exception is thrown.
+ * Manual overwrites are optimistic: they fail on a concurrent change through the {@code @Version}
+ * column, which every delta also increments. The updates bypass the persistence context, so inventory
+ * entities it already holds for the updated rows are refreshed; everything else in it stays managed.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.engine", havingValue = "atomic")
+@RequiredArgsConstructor
+public class AtomicInventoryEngine implements InventoryEngine {
+
+    private final ProductInventoryRepo productInventoryRepo;
+    private final RawMaterialInventoryRepo rawMaterialInventoryRepo;
+    private final StockLevelNotifier notifier;
+    private final InventoryLedger ledger;
+    private final EntityManager entityManager;
+
+    @Override
+    @Transactional(noRollbackFor = InsufficientStockException.class)
+    public List<StockLevel> apply(List<StockChange> changes) {
+        Map<Long, Double> productDeltas = JpaInventoryEngine.sum(changes, StockItemType.PRODUCT);
+        Map<Long, Double> rawDeltas = JpaInventoryEngine.sum(changes, StockItemType.RAW_MATERIAL);
+
+        LocalDateTime now = LocalDateTime.now();
+        Deque<Runnable> undo = new ArrayDeque<>();
+        try {
+            productDeltas.forEach((productId, delta) -> {
+                if (productInventoryRepo.addQuantity(productId, delta, now) == 0) {
+                    throw refused(StockItemType.PRODUCT, productId, delta);
+                }
+                undo.push(() -> productInventoryRepo.addQuantity(productId, -delta, now));
+            });
+            rawDeltas.forEach((rawId, delta) -> {
+                if (rawMaterialInventoryRepo.addQuantity(rawId, delta, now) == 0) {
+                    throw refused(StockItemType.RAW_MATERIAL, rawId, delta);
+                }
+                undo.push(() -> rawMaterialInventoryRepo.addQuantity(rawId, -delta, now));
+            });
+        } catch (InsufficientStockException e) {
+            // the transaction is kept for the caller, so this call's updates are reverted by hand
+            undo.forEach(Runnable::run);
+            if (!undo.isEmpty()) {
+                // put back, but with the version moved on
+                if (!productDeltas.isEmpty()) {
+                    refreshManaged(ProductInventory.class, productInventoryRepo.findBalancesByProductIdIn(productDeltas.keySet()));
+                }
+                if (!rawDeltas.isEmpty()) {
+                    refreshManaged(RawMaterialInventory.class, rawMaterialInventoryRepo.findBalancesByRawMaterialIdIn(rawDeltas.keySet()));
+                }
+            }
+            throw e;
+        }
+
+        // The updated rows stay locked until commit, so these are this call's balances.
+        List<StockLevel> levels = new ArrayList<>();
+        if (!productDeltas.isEmpty()) {
+            List<InventoryBalance> balances = productInventoryRepo.findBalancesByProductIdIn(productDeltas.keySet());
+            refreshManaged(ProductInventory.class, balances);
+            balances.forEach(b -> levels.add(toLevel(StockItemType.PRODUCT, b)));
+        }
+        if (!rawDeltas.isEmpty()) {
+            List<InventoryBalance> balances = rawMaterialInventoryRepo.findBalancesByRawMaterialIdIn(rawDeltas.keySet());
+            refreshManaged(RawMaterialInventory.class, balances);
+            balances.forEach(b -> levels.add(toLevel(StockItemType.RAW_MATERIAL, b)));
+        }
+
+        ledger.record(changes, levels);
+        notifier.changed(levels);
+        return levels;
+    }
+
+    @Override
+    @Transactional
+    public StockLevel set(StockItemType itemType, Long itemId, double quantity, double reorderThreshold) {
+        StockLevel level;
+        double previous;
+        if (itemType == StockItemType.PRODUCT) {
+            ProductInventory inv = productInventoryRepo.findByProductId(itemId)
+                    .orElseThrow(() -> new IllegalStateException("No product inventory record for product: " + itemId));
+            previous = inv.getQuantity();
+            inv.setQuantity(quantity);
+            inv.setReorderThreshold(reorderThreshold);
+            inv.setLastUpdated(LocalDateTime.now());
+            productInventoryRepo.saveAndFlush(inv);
+            level = new StockLevel(itemType, itemId, inv.getId(), quantity, reorderThreshold);
+        } else {
+            RawMaterialInventory inv = rawMaterialInventoryRepo.findByRawMaterialId(itemId)
+                    .orElseThrow(() -> new IllegalStateException("No raw material inventory for id: " + itemId));
+            previous = inv.getQuantity();
+            inv.setQuantity(quantity);
+            inv.setReorderThreshold(reorderThreshold);
+            inv.setLastUpdated(LocalDateTime.now());
+            rawMaterialInventoryRepo.saveAndFlush(inv);
+            level = new StockLevel(itemType, itemId, inv.getId(), quantity, reorderThreshold);
+        }
+        if (quantity != previous) {
+            ledger.record(List.of(new StockChange(itemType, itemId, quantity - previous, MovementCause.MANUAL, level.getInventoryId())),
+                    List.of(level));
+        }
+        notifier.changed(level);
+        return level;
+    }
+
+    @Override
+    public double quantity(StockItemType itemType, Long itemId, double stored) {
+        return stored;
+    }
+
+    /** Tells a missing row from a short one for an update that matched nothing. */
+    private RuntimeException refused(StockItemType itemType, Long itemId, double delta) {
+        List<InventoryBalance> rows = itemType == StockItemType.PRODUCT
+                ? productInventoryRepo.findBalancesByProductIdIn(List.of(itemId))
+                : rawMaterialInventoryRepo.findBalancesByRawMaterialIdIn(List.of(itemId));
+        if (rows.isEmpty()) {
+            return new IllegalStateException(itemType == StockItemType.PRODUCT
+                    ? "No product inventory record for product: " + itemId
+                    : "No raw material inventory for id: " + itemId);
+        }
+        double available = rows.get(0).getQuantity();
+        try {
+            JpaInventoryEngine.checkAvailable(itemType, itemId, available, delta);
+        } catch (InsufficientStockException e) {
+            return e;
+        }
+        // enough again by now: another transaction put stock back after our update was refused
+        return new InsufficientStockException("Insufficient stock for id " + itemId + " at the time of the update, required: " + (-delta));
+    }
+
+    /**
+     * Reloads the inventory entities of these rows that the persistence context already holds, so a later
+     * read or save in the transaction sees the new quantity and version. Rows it does not hold are not loaded.
+     */
+    private void refreshManaged(Class<?> type, List<InventoryBalance> balances) {
+        PersistenceUnitUtil util = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        for (InventoryBalance balance : balances) {
+            Object entity = entityManager.getReference(type, balance.getInventoryId());
+            if (util.isLoaded(entity)) {
+                entityManager.refresh(entity);
+            } else {
+                // only the proxy made just now; drop it again
+                entityManager.detach(entity);
+            }
+        }
+    }
+
+    private static StockLevel toLevel(StockItemType itemType, InventoryBalance balance) {
+        double threshold = balance.getReorderThreshold() == null ? 0 : balance.getReorderThreshold();
+        return new StockLevel(itemType, balance.getItemId(), balance.getInventoryId(), balance.getQuantity(), threshold);
+    }
+}
@@ -0,0 +1,328 @@
+package YNprojects.logistics_system.inventory.service;
+
+import YNprojects.logistics_system.exceptions.InsufficientStockException;
+import YNprojects.logistics_system.inventory.dto.StockChange;
+import YNprojects.logistics_system.inventory.dto.StockLevel;
+import YNprojects.logistics_system.inventory.entity.MovementCause;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import YNprojects.logistics_system.productinventory.repository.ProductInventoryRepo;
+import YNprojects.logistics_system.rawmaterialinventory.repository.RawMaterialInventoryRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory engine ({@code inventory.engine=memory}) for a single application node.
+ *
+ * Balances are loaded from the database on first use and then owned by this node. A change locks
+ * the lock stripes of its items (in stripe order), checks availability and updates the live counter
+ * right away, so concurrent changes cannot take the same stock and no database row lock is taken on
+ * the hot path. Once the caller's transaction commits, the movements are appended to the local
+ * {@link InventoryJournal} and added to the committed counter; if it rolls back, the live counter is
+ * put back and nothing is journaled. Only committed balances are written back to the inventory tables,
+ * in batches every {@code inventory.engine.flush-interval-ms}, and replayed from the journal on startup.
+ * Ledger rows are inserted in the caller's transaction under the stripe locks, so they roll back with it.
+ *
+ * A crash between the commit and the journal append loses the balance change but not its ledger row;
+ * {@link InventoryHistoryService#reconcile()} reports the difference.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inventory.engine", havingValue = "memory")
+public class InMemoryInventoryEngine implements InventoryEngine {
+
+    private final ProductInventoryRepo productInventoryRepo;
+    private final RawMaterialInventoryRepo rawMaterialInventoryRepo;
+    private final StockLevelNotifier notifier;
+    private final InventoryLedger ledger;
+    private final TransactionTemplate flushTransaction;
+    private final TransactionTemplate thresholdTransaction;
+    private final InventoryJournal journal;
+    private final ReentrantLock[] stripes;
+    private final int flushBatchSize;
+    private final long journalRotateBytes;
+
+    private final Map<Key, Balance> balances = new ConcurrentHashMap<>();
+    private final Set<Key> dirty = ConcurrentHashMap.newKeySet();
+    // appliers share it; journal rotation takes it exclusively
+    private final ReadWriteLock rotation = new ReentrantReadWriteLock();
+
+    public InMemoryInventoryEngine(ProductInventoryRepo productInventoryRepo,
+                                   RawMaterialInventoryRepo rawMaterialInventoryRepo,
+                                   StockLevelNotifier notifier,
+                                   InventoryLedger ledger,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${inventory.engine.journal-path:data/inventory-journal.log}") String journalPath,
+                                   @Value("${inventory.engine.journal-fsync:true}") boolean fsync,
+                                   @Value("${inventory.engine.stripes:64}") int stripeCount,
+                                   @Value("${inventory.engine.flush-batch-size:200}") int flushBatchSize,
+                                   @Value("${inventory.engine.journal-rotate-bytes:8388608}") long journalRotateBytes) {
+        this.productInventoryRepo = productInventoryRepo;
+        this.rawMaterialInventoryRepo = rawMaterialInventoryRepo;
+        this.notifier = notifier;
+        this.ledger = ledger;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // joins the caller's transaction, so the threshold rolls back with it
+        this.thresholdTransaction = new TransactionTemplate(transactionManager);
+        this.journal = new InventoryJournal(Path.of(journalPath), fsync);
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) stripes[i] = new ReentrantLock();
+        this.flushBatchSize = flushBatchSize;
+        this.journalRotateBytes = journalRotateBytes;
+    }
+
+    /** Writes the balances left in the journal by the previous run before serving anything. */
+    @PostConstruct
+    public void recover() {
+        Map<Key, InventoryJournal.Entry> last = new LinkedHashMap<>();
+        for (InventoryJournal.Entry entry : journal.readAll()) {
+            last.put(new Key(entry.getItemType(), entry.getItemId()), entry);
+        }
+        if (last.isEmpty()) return;
+        log.info("Replaying {} inventory balances from the journal", last.size());
+        flushTransaction.executeWithoutResult(status -> last.values().forEach(entry ->
+                write(entry.getItemType(), entry.getInventoryId(), entry.getQuantity(), LocalDateTime.now())));
+        journal.truncate();
+    }
+
+    @Override
+    public List<StockLevel> apply(List<StockChange> changes) {
+        Map<Key, Double> deltas = new LinkedHashMap<>();
+        for (StockChange change : changes) {
+            deltas.merge(new Key(change.getItemType(), change.getItemId()), change.getDelta(), Double::sum);
+        }
+
+        List<StockLevel> levels = withLocks(deltas.keySet(), () -> {
+            Map<Key, Balance> loaded = new LinkedHashMap<>();
+            deltas.forEach((key, delta) -> {
+                Balance balance = load(key);
+                JpaInventoryEngine.checkAvailable(key.itemType, key.itemId, balance.quantity, delta);
+                loaded.put(key, balance);
+            });
+            List<StockLevel> recorded = reserve(deltas, loaded, null);
+            ledger.record(changes, recorded);
+            return recorded;
+        });
+
+        settle(deltas, null);
+        notifier.changed(levels);
+        return levels;
+    }
+
+    @Override
+    public StockLevel set(StockItemType itemType, Long itemId, double quantity, double reorderThreshold) {
+        Key key = new Key(itemType, itemId);
+        double[] previous = new double[2];
+        StockLevel level = withLocks(Set.of(key), () -> {
+            Balance balance = load(key);
+            previous[0] = balance.quantity;
+            previous[1] = balance.reorderThreshold;
+            StockLevel recorded = reserve(Map.of(key, quantity - balance.quantity), Map.of(key, balance), reorderThreshold).get(0);
+            if (quantity != previous[0]) {
+                ledger.record(List.of(new StockChange(itemType, itemId, quantity - previous[0], MovementCause.MANUAL,
+                        recorded.getInventoryId())), List.of(recorded));
+            }
+            if (reorderThreshold != previous[1]) {
+                thresholdTransaction.executeWithoutResult(status ->
+                        writeThreshold(itemType, recorded.getInventoryId(), reorderThreshold));
+            }
+            return recorded;
+        });
+
+        settle(Map.of(key, quantity - previous[0]), previous[1]);
+        notifier.changed(level);
+        return level;
+    }
+
+    @Override
+    public double quantity(StockItemType itemType, Long itemId, double stored) {
+        Balance balance = balances.get(new Key(itemType, itemId));
+        return balance != null ? balance.committed : stored;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.engine.flush-interval-ms:1000}")
+    public void flush() {
+        flushDirty();
+        if (journal.size() < journalRotateBytes) return;
+
+        // Every balance in the journal must be in the database before the file is emptied.
+        rotation.writeLock().lock();
+        try {
+            flushDirty();
+            if (dirty.isEmpty()) journal.truncate();
+        } finally {
+            rotation.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        flushDirty();
+        journal.close();
+    }
+
+    private void flushDirty() {
+        List<Key> keys = new ArrayList<>(dirty);
+        for (int from = 0; from < keys.size(); from += flushBatchSize) {
+            List<Key> batch = keys.subList(from, Math.min(from + flushBatchSize, keys.size()));
+            batch.forEach(dirty::remove);
+            try {
+                LocalDateTime now = LocalDateTime.now();
+                flushTransaction.executeWithoutResult(status -> batch.forEach(key -> {
+                    Balance balance = balances.get(key);
+                    double quantity = withLocks(Set.of(key), () -> balance.committed);
+                    write(key.itemType, balance.inventoryId, quantity, now);
+                }));
+            } catch (RuntimeException e) {
+                dirty.addAll(batch);
+                log.error("Inventory write-behind of {} balances failed, will retry", batch.size(), e);
+                return;
+            }
+        }
+    }
+
+    private void write(StockItemType itemType, Long inventoryId, double quantity, LocalDateTime now) {
+        if (itemType == StockItemType.PRODUCT) {
+            productInventoryRepo.updateQuantity(inventoryId, quantity, now);
+        } else {
+            rawMaterialInventoryRepo.updateQuantity(inventoryId, quantity, now);
+        }
+    }
+
+    /** The threshold is not kept in the journal, so it is written at once; the quantity is left to the write-behind. */
+    private void writeThreshold(StockItemType itemType, Long inventoryId, double reorderThreshold) {
+        if (itemType == StockItemType.PRODUCT) {
+            productInventoryRepo.updateReorderThreshold(inventoryId, reorderThreshold);
+        } else {
+            rawMaterialInventoryRepo.updateReorderThreshold(inventoryId, reorderThreshold);
+        }
+    }
+
+    /** Applies the deltas to the live counters; the caller holds the stripe locks of every key. */
+    private List<StockLevel> reserve(Map<Key, Double> deltas, Map<Key, Balance> loaded, Double threshold) {
+        List<StockLevel> levels = new ArrayList<>();
+        deltas.forEach((key, delta) -> {
+            Balance balance = loaded.get(key);
+            balance.quantity += delta;
+            if (threshold != null) balance.reorderThreshold = threshold;
+            levels.add(new StockLevel(key.itemType, key.itemId, balance.inventoryId, balance.quantity, balance.reorderThreshold));
+        });
+        return levels;
+    }
+
+    /**
+     * Journals the deltas and makes them durable once the surrounding transaction commits, or puts the
+     * live counters back if it does not. Without a transaction the deltas are committed right away.
+     */
+    private void settle(Map<Key, Double> deltas, Double previousThreshold) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            commit(deltas);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) commit(deltas);
+                else rollBack(deltas, previousThreshold);
+            }
+        });
+    }
+
+    private void commit(Map<Key, Double> deltas) {
+        withLocks(deltas.keySet(), () -> {
+            List<InventoryJournal.Entry> entries = new ArrayList<>();
+            deltas.forEach((key, delta) -> {
+                Balance balance = balances.get(key);
+                entries.add(new InventoryJournal.Entry(journal.nextSequence(), key.itemType, key.itemId,
+                        balance.inventoryId, delta, balance.committed + delta));
+            });
+            journal.append(entries);
+            deltas.forEach((key, delta) -> {
+                balances.get(key).committed += delta;
+                dirty.add(key);
+            });
+            return null;
+        });
+    }
+
+    private void rollBack(Map<Key, Double> deltas, Double previousThreshold) {
+        withLocks(deltas.keySet(), () -> {
+            deltas.forEach((key, delta) -> {
+                Balance balance = balances.get(key);
+                balance.quantity -= delta;
+                if (previousThreshold != null) balance.reorderThreshold = previousThreshold;
+            });
+            return null;
+        });
+    }
+
+    /** The caller holds the key's stripe lock, so the row is read at most once; no I/O runs inside the map. */
+    private Balance load(Key key) {
+        Balance balance = balances.get(key);
+        if (balance != null) return balance;
+        balance = key.itemType == StockItemType.PRODUCT
+                ? productInventoryRepo.findByProductId(key.itemId)
+                        .map(inv -> new Balance(inv.getId(), inv.getQuantity(), inv.getQuantity(), inv.getReorderThreshold()))
+                        .orElseThrow(() -> new IllegalStateException("No product inventory record for product: " + key.itemId))
+                : rawMaterialInventoryRepo.findByRawMaterialId(key.itemId)
+                        .map(inv -> new Balance(inv.getId(), inv.getQuantity(), inv.getQuantity(), inv.getReorderThreshold()))
+                        .orElseThrow(() -> new IllegalStateException("No raw material inventory for id: " + key.itemId));
+        Balance existing = balances.putIfAbsent(key, balance);
+        return existing != null ? existing : balance;
+    }
+
+    private <T> T withLocks(Collection<Key> keys, java.util.function.Supplier<T> work) {
+        int[] order = keys.stream().mapToInt(this::stripe).distinct().sorted().toArray();
+        rotation.readLock().lock();
+        try {
+            for (int i : order) stripes[i].lock();
+            try {
+                return work.get();
+            } finally {
+                for (int i = order.length - 1; i >= 0; i--) stripes[order[i]].unlock();
+            }
+        } finally {
+            rotation.readLock().unlock();
+        }
+    }
+
+    private int stripe(Key key) {
+        return Math.floorMod(key.hashCode(), stripes.length);
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class Key {
+        private final StockItemType itemType;
+        private final Long itemId;
+    }
+
+    @AllArgsConstructor
+    private static final class Balance {
+        private final Long inventoryId;
+        private double quantity;             // including uncommitted changes; guarded by the key's stripe lock
+        private double committed;            // what is journaled and written back
+        private double reorderThreshold;
+    }
+}
@@ -0,0 +1,33 @@
+package YNprojects.logistics_system.inventory.service;
+
+import YNprojects.logistics_system.exceptions.InsufficientStockException;
+import YNprojects.logistics_system.inventory.dto.StockChange;
+import YNprojects.logistics_system.inventory.dto.StockLevel;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+
+import java.util.List;
+
+/**
+ * Single entry point for every stock quantity change.
+ *
+ * Selected with {@code inventory.engine}: {@code jpa} (default) locks the inventory rows in the
+ * caller's transaction, {@code atomic} applies each delta as one conditional update,
+ * {@code memory} keeps the balances in memory (single node only).
+ * Both raise or resolve the stock alerts and publish an inventory event for each changed row.
+ */
+public interface InventoryEngine {
+
+    /**
+     * Applies all changes or none. Changes of the same item are summed first.
+     *
+     * @throws InsufficientStockException if an item would go below zero; nothing is changed
+     * @throws IllegalStateException if an item has no inventory row
+     */
+    List<StockLevel> apply(List<StockChange> changes);
+
+    /** Manual overwrite of the quantity and reorder threshold of one item. */
+    StockLevel set(StockItemType itemType, Long itemId, double quantity, double reorderThreshold);
+
+    /** Current quantity of an item, or {@code stored} when the database value is authoritative. */
+    double quantity(StockItemType itemType, Long itemId, double stored);
+}
@@ -0,0 +1,221 @@
+package YNprojects.logistics_system.inventory.service;
+
+import YNprojects.logistics_system.exceptions.ResourceNotFoundException;
+import YNprojects.logistics_system.inventory.dto.*;
+import YNprojects.logistics_system.inventory.entity.InventorySnapshot;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import YNprojects.logistics_system.inventory.mapper.InventoryMovementMapper;
+import YNprojects.logistics_system.inventory.repository.InventoryMovementRepo;
+import YNprojects.logistics_system.inventory.repository.InventorySnapshotRepo;
+import YNprojects.logistics_system.productinventory.entities.ProductInventory;
+import YNprojects.logistics_system.productinventory.repository.ProductInventoryRepo;
+import YNprojects.logistics_system.rawmaterialinventory.entity.RawMaterialInventory;
+import YNprojects.logistics_system.rawmaterialinventory.repository.RawMaterialInventoryRepo;
+import YNprojects.logistics_system.scheduler.service.ChunkedStepRunner;
+import YNprojects.logistics_system.scheduler.service.LeaderElection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Reads over the movement ledger: an item's movements, its quantity at a point in time and a
+ * reconciliation of the ledger against the inventory tables.
+ *
+ * Point-in-time reads replay from the item's nearest snapshot, taken nightly on the scheduler leader
+ * by {@link #takeSnapshots()}. An item's history starts at its first recorded movement: before that,
+ * its quantity is the balance the first movement started from.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InventoryHistoryService {
+
+    // Upper bound for "every movement so far", within the range of a MySQL DATETIME.
+    private static final LocalDateTime END_OF_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final double TOLERANCE = 1e-6;
+    // items per IN list of the batched lookups
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    private final InventoryMovementRepo movementRepo;
+    private final InventorySnapshotRepo snapshotRepo;
+    private final ProductInventoryRepo productInventoryRepo;
+    private final RawMaterialInventoryRepo rawMaterialInventoryRepo;
+    private final InventoryEngine inventoryEngine;
+    private final ChunkedStepRunner stepRunner;
+    private final LeaderElection leaderElection;
+    private final Clock clock;
+
+    @Value("${inventory.movements.page.max-size:200}")
+    private int maxPageSize;
+
+    // Snapshots only cover movements older than this, so a transaction still open while the
+    // snapshot is taken cannot commit a movement below its sequence number afterwards.
+    @Value("${inventory.snapshot.lag-seconds:300}")
+    private long snapshotLagSeconds;
+
+    @Transactional(readOnly = true)
+    public InventoryMovementPageDto getMovements(StockItemType itemType, Long itemId, Long cursor, int size) {
+        if (itemType == null || itemId == null) {
+            throw new IllegalArgumentException("itemType and itemId are required");
+        }
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+        }
+        List<InventoryMovementDto> rows = movementRepo.findPage(itemType, itemId, cursor, PageRequest.of(0, size + 1))
+                .stream().map(InventoryMovementMapper::toDto).toList();
+        if (rows.size() <= size) {
+            return new InventoryMovementPageDto(rows, null);
+        }
+        List<InventoryMovementDto> items = rows.subList(0, size);
+        return new InventoryMovementPageDto(new ArrayList<>(items), items.get(size - 1).getSequence());
+    }
+
+    @Transactional(readOnly = true)
+    public StockAtDto getStockAt(StockItemType itemType, Long itemId, LocalDateTime at) {
+        if (itemType == null || itemId == null || at == null) {
+            throw new IllegalArgumentException("itemType, itemId and at are required");
+        }
+        return new StockAtDto(itemType, itemId, at, quantityAt(itemType, itemId, at));
+    }
+
+    /**
+     * Items whose ledger balance differs from their inventory quantity. The balance of an item is its
+     * latest snapshot, or its opening balance if it has none, plus its movements after the last
+     * snapshot run: five queries in all, whatever the number of items. A movement committed while
+     * this runs can show up as a false mismatch, so re-check before acting.
+     */
+    @Transactional(readOnly = true)
+    public List<ReconciliationLineDto> reconcile() {
+        // each run snapshots every item that moved in its range, so an item's latest snapshot
+        // covers all its movements up to the last run's sequence
+        Map<StockItemType, Map<Long, Double>> later = byItem(movementRepo.sumDeltaByItem(snapshotRepo.findLastSequence(), Long.MAX_VALUE));
+        List<ReconciliationLineDto> mismatches = new ArrayList<>();
+        reconcile(StockItemType.PRODUCT, productInventoryRepo.findAllBalances(), later, mismatches);
+        reconcile(StockItemType.RAW_MATERIAL, rawMaterialInventoryRepo.findAllBalances(), later, mismatches);
+        return mismatches;
+    }
+
+    /** Snapshots, on the scheduler leader only, every item that moved since the last run. */
+    @Scheduled(cron = "${inventory.snapshot.cron:0 30 0 * * *}")
+    public void takeSnapshots() {
+        OptionalLong token = leaderElection.tryLead();
+        if (token.isEmpty()) {
+            log.info("Node {} does not hold the scheduler lease, skipping the inventory snapshots", leaderElection.getNodeId());
+            return;
+        }
+        leaderElection.fenced(token.getAsLong(),
+                () -> stepRunner.runTasklet("inventory.snapshot", LocalDate.now(clock), this::writeSnapshots));
+    }
+
+    /**
+     * Snapshots every item that moved since the last snapshot run: its previous snapshot plus the
+     * deltas of the new sequence range. Every run covers the range right after the previous one,
+     * so each item that ever moved has a snapshot at or after its first movement.
+     */
+    private int writeSnapshots() {
+        LocalDateTime asOf = LocalDateTime.now(clock).minusSeconds(snapshotLagSeconds);
+        long from = snapshotRepo.findLastSequence();
+        long upTo = movementRepo.findLastSequenceAt(asOf);
+        if (upTo <= from) return 0;
+
+        LocalDateTime now = LocalDateTime.now();
+        List<InventorySnapshot> snapshots = new ArrayList<>();
+        byItem(movementRepo.sumDeltaByItem(from, upTo)).forEach((itemType, totals) -> {
+            Map<Long, Double> base = latestSnapshots(itemType, totals.keySet());
+            // an item without a snapshot moved for the first time in this range
+            base.putAll(openings(itemType, totals.keySet().stream().filter(id -> !base.containsKey(id)).toList()));
+            totals.forEach((itemId, total) -> snapshots.add(new InventorySnapshot(null, itemType, itemId,
+                    base.getOrDefault(itemId, 0.0) + total, upTo, asOf, now)));
+        });
+        snapshotRepo.saveAll(snapshots);
+        return snapshots.size();
+    }
+
+    private void reconcile(StockItemType itemType, List<InventoryBalance> balances,
+                           Map<StockItemType, Map<Long, Double>> later, List<ReconciliationLineDto> mismatches) {
+        Map<Long, Double> laterDeltas = later.getOrDefault(itemType, Map.of());
+        Map<Long, Double> base = new HashMap<>();
+        snapshotRepo.findLatest(itemType).forEach(snapshot -> base.put(snapshot.getItemId(), snapshot.getQuantity()));
+        // an item without a snapshot first moved after the last snapshot run
+        base.putAll(openings(itemType, laterDeltas.keySet().stream().filter(id -> !base.containsKey(id)).toList()));
+
+        for (InventoryBalance balance : balances) {
+            Double start = base.get(balance.getItemId());
+            // never moved since the ledger exists: the current quantity has always been the quantity
+            if (start == null) continue;
+            double ledger = start + laterDeltas.getOrDefault(balance.getItemId(), 0.0);
+            double stored = inventoryEngine.quantity(itemType, balance.getItemId(), balance.getQuantity());
+            if (Math.abs(ledger - stored) > TOLERANCE) {
+                mismatches.add(new ReconciliationLineDto(itemType, balance.getItemId(), balance.getInventoryId(), ledger, stored));
+            }
+        }
+    }
+
+    private double quantityAt(StockItemType itemType, Long itemId, LocalDateTime at) {
+        Optional<InventorySnapshot> snapshot =
+                snapshotRepo.findFirstByItemTypeAndItemIdAndAsOfLessThanEqualOrderByAsOfDesc(itemType, itemId, at);
+        if (snapshot.isPresent()) {
+            return snapshot.get().getQuantity() + movementRepo.sumDelta(itemType, itemId, snapshot.get().getLastSequence(), at);
+        }
+        Optional<Double> opening = opening(itemType, itemId);
+        if (opening.isPresent()) {
+            return opening.get() + movementRepo.sumDelta(itemType, itemId, 0, at);
+        }
+        // never moved since the ledger exists: the current quantity has always been the quantity
+        return currentQuantity(itemType, itemId);
+    }
+
+    /** Quantity the item had before its first recorded movement, if it has one. */
+    private Optional<Double> opening(StockItemType itemType, Long itemId) {
+        return movementRepo.findFirstByItemTypeAndItemIdOrderByIdAsc(itemType, itemId)
+                .map(first -> first.getBalanceAfter() - first.getDelta());
+    }
+
+    /** Opening balance of each of {@code itemIds} that has moved. */
+    private Map<Long, Double> openings(StockItemType itemType, List<Long> itemIds) {
+        Map<Long, Double> openings = new HashMap<>();
+        for (int from = 0; from < itemIds.size(); from += LOOKUP_CHUNK_SIZE) {
+            movementRepo.findFirstMovements(itemType, itemIds.subList(from, Math.min(itemIds.size(), from + LOOKUP_CHUNK_SIZE)))
+                    .forEach(first -> openings.put(first.getItemId(), first.getBalanceAfter() - first.getDelta()));
+        }
+        return openings;
+    }
+
+    /** Quantity of the latest snapshot of each of {@code itemIds} that has one. */
+    private Map<Long, Double> latestSnapshots(StockItemType itemType, Collection<Long> itemIds) {
+        List<Long> ids = new ArrayList<>(itemIds);
+        Map<Long, Double> latest = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE) {
+            snapshotRepo.findLatest(itemType, ids.subList(from, Math.min(ids.size(), from + LOOKUP_CHUNK_SIZE)))
+                    .forEach(snapshot -> latest.put(snapshot.getItemId(), snapshot.getQuantity()));
+        }
+        return latest;
+    }
+
+    private static Map<StockItemType, Map<Long, Double>> byItem(List<MovementTotal> totals) {
+        Map<StockItemType, Map<Long, Double>> byItem = new EnumMap<>(StockItemType.class);
+        totals.forEach(total -> byItem.computeIfAbsent(total.getItemType(), type -> new HashMap<>())
+                .put(total.getItemId(), total.getTotal()));
+        return byItem;
+    }
+
+    private double currentQuantity(StockItemType itemType, Long itemId) {
+        if (itemType == StockItemType.PRODUCT) {
+            ProductInventory inv = productInventoryRepo.findByProductId(itemId)
+                    .orElseThrow(() -> new ResourceNotFoundException("No product inventory record for product: " + itemId));
+            return inventoryEngine.quantity(itemType, itemId, inv.getQuantity());
+        }
+        RawMaterialInventory inv = rawMaterialInventoryRepo.findByRawMaterialId(itemId)
+                .orElseThrow(() -> new ResourceNotFoundException("No raw material inventory for id: " + itemId));
+        return inventoryEngine.quantity(itemType, itemId, inv.getQuantity());
+    }
+}
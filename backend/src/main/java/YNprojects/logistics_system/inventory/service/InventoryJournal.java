@@ -0,0 +1,124 @@
+package YNprojects.logistics_system.inventory.service;
+
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only file of the committed movements of {@link InMemoryInventoryEngine}, one line per movement.
+ * Each line carries the resulting balance, so replaying it is idempotent: the last line of an item wins.
+ * Appends are forced to disk before they return.
+ */
+class InventoryJournal implements AutoCloseable {
+
+    @Getter
+    @AllArgsConstructor
+    static class Entry {
+        private final long sequence;
+        private final StockItemType itemType;
+        private final Long itemId;
+        private final Long inventoryId;
+        private final double delta;
+        private final double quantity;
+
+        String toLine() {
+            return sequence + "|" + itemType + "|" + itemId + "|" + inventoryId + "|" + delta + "|" + quantity + "\n";
+        }
+
+        static Entry parse(String line) {
+            String[] f = line.split("\\|");
+            return new Entry(Long.parseLong(f[0]), StockItemType.valueOf(f[1]), Long.valueOf(f[2]),
+                    Long.valueOf(f[3]), Double.parseDouble(f[4]), Double.parseDouble(f[5]));
+        }
+    }
+
+    private final Path path;
+    private final boolean fsync;
+    private FileChannel channel;
+    private long sequence;
+
+    InventoryJournal(Path path, boolean fsync) {
+        this.path = path;
+        this.fsync = fsync;
+        try {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            this.channel = open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open inventory journal " + path, e);
+        }
+    }
+
+    /** Entries of the file in order; a torn last line from a crash is ignored. */
+    synchronized List<Entry> readAll() {
+        List<Entry> entries = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) continue;
+                try {
+                    entries.add(Entry.parse(line));
+                } catch (RuntimeException e) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read inventory journal " + path, e);
+        }
+        if (!entries.isEmpty()) sequence = entries.get(entries.size() - 1).getSequence();
+        return entries;
+    }
+
+    synchronized long nextSequence() {
+        return ++sequence;
+    }
+
+    synchronized void append(List<Entry> entries) {
+        StringBuilder lines = new StringBuilder();
+        entries.forEach(e -> lines.append(e.toLine()));
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) channel.write(buffer);
+            if (fsync) channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to inventory journal " + path, e);
+        }
+    }
+
+    synchronized long size() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Empties the file once every balance it holds has been written to the database. */
+    synchronized void truncate() {
+        try {
+            channel.truncate(0);
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot truncate inventory journal " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private FileChannel open() throws IOException {
+        // reads go through readAll; a channel cannot be opened for both READ and APPEND
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,62 @@
+package YNprojects.logistics_system.inventory.service;
+
+import YNprojects.logistics_system.inventory.dto.StockChange;
+import YNprojects.logistics_system.inventory.dto.StockLevel;
+import YNprojects.logistics_system.inventory.entity.InventoryMovement;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import YNprojects.logistics_system.inventory.repository.InventoryMovementRepo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Appends the movements of an engine call to the {@link InventoryMovement} ledger, one row per
+ * change (not per item), in the caller's transaction. Called by the engines while they still hold
+ * the items' locks, so the ledger order of an item is the order its changes were applied in.
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryLedger {
+
+    private final InventoryMovementRepo movementRepo;
+
+    /**
+     * @param changes the changes as requested, in order
+     * @param levels  the balance of every changed item once all {@code changes} are applied
+     */
+    public void record(List<StockChange> changes, List<StockLevel> levels) {
+        Map<String, StockLevel> levelByItem = new HashMap<>();
+        Map<String, Double> balance = new HashMap<>();
+        levels.forEach(level -> levelByItem.put(key(level.getItemType(), level.getItemId()), level));
+        for (StockChange change : changes) {
+            // walk back from the final balance to the one before this call
+            balance.merge(key(change.getItemType(), change.getItemId()), -change.getDelta(), Double::sum);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<InventoryMovement> movements = new ArrayList<>();
+        for (StockChange change : changes) {
+            String key = key(change.getItemType(), change.getItemId());
+            StockLevel level = levelByItem.get(key);
+            double after = level.getQuantity() + balance.merge(key, change.getDelta(), Double::sum);
+
+            InventoryMovement movement = new InventoryMovement();
+            movement.setItemType(change.getItemType());
+            movement.setItemId(change.getItemId());
+            movement.setInventoryId(level.getInventoryId());
+            movement.setDelta(change.getDelta());
+            movement.setBalanceAfter(after);
+            movement.setCause(change.getCause());
+            movement.setCauseId(change.getCauseId());
+            movement.setOccurredAt(now);
+            movements.add(movement);
+        }
+        movementRepo.saveAll(movements);
+    }
+
+    private static String key(StockItemType itemType, Long itemId) {
+        return itemType + ":" + itemId;
+    }
+}
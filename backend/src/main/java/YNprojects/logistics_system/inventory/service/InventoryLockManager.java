@@ -0,0 +1,232 @@
+package YNprojects.logistics_system.inventory.service;
+
+import YNprojects.logistics_system.inventory.dto.InventoryLockStatsDto;
+import YNprojects.logistics_system.productinventory.entities.ProductInventory;
+import YNprojects.logistics_system.productinventory.repository.ProductInventoryRepo;
+import YNprojects.logistics_system.rawmaterialinventory.entity.RawMaterialInventory;
+import YNprojects.logistics_system.rawmaterialinventory.repository.RawMaterialInventoryRepo;
+import jakarta.persistence.EntityManager;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Takes the inventory row locks of every multi-row stock change.
+ *
+ * All rows of a change are locked by {@link #lock} with one ordered query per table, products
+ * before raw materials and each in id order, so two transactions always request shared rows in the
+ * same order. Waits are bounded by {@code inventory.lock.timeout-seconds} (0 keeps the database
+ * default, e.g. on an embedded database), set on the connection once per transaction and put back
+ * before it completes, so the pooled connection goes back with the server default. A transaction
+ * that still loses a deadlock or times out is rolled back by MySQL; {@link #inTransaction} runs the
+ * whole unit of work again, up to {@code inventory.lock.max-retries} times with exponential backoff.
+ */
+@Slf4j
+@Component
+public class InventoryLockManager {
+
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+    private static final int MYSQL_DEADLOCK = 1213;
+
+    private final ProductInventoryRepo productInventoryRepo;
+    private final RawMaterialInventoryRepo rawMaterialInventoryRepo;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaction;
+    private final int timeoutSeconds;
+    private final int maxRetries;
+    private final long backoffMillis;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder rowsLocked = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    // timeouts and deadlocks are counted on the lock query itself
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder deadlocks = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder retriesExhausted = new LongAdder();
+
+    public InventoryLockManager(ProductInventoryRepo productInventoryRepo,
+                                RawMaterialInventoryRepo rawMaterialInventoryRepo,
+                                EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${inventory.lock.timeout-seconds:5}") int timeoutSeconds,
+                                @Value("${inventory.lock.max-retries:3}") int maxRetries,
+                                @Value("${inventory.lock.backoff-ms:50}") long backoffMillis) {
+        this.productInventoryRepo = productInventoryRepo;
+        this.rawMaterialInventoryRepo = rawMaterialInventoryRepo;
+        this.entityManager = entityManager;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.timeoutSeconds = timeoutSeconds;
+        this.maxRetries = maxRetries;
+        this.backoffMillis = backoffMillis;
+    }
+
+    /**
+     * Locks ({@code PESSIMISTIC_WRITE}) the inventory rows of the given products and raw materials
+     * until the current transaction ends. Items without an inventory row are simply absent.
+     */
+    public Locked lock(Collection<Long> productIds, Collection<Long> rawMaterialIds) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Inventory rows can only be locked inside a transaction");
+        }
+        if (timeoutSeconds > 0) {
+            setLockWaitTimeout();
+        }
+
+        long started = System.nanoTime();
+        try {
+            Map<Long, ProductInventory> products = productIds.isEmpty() ? Map.of()
+                    : productInventoryRepo.findAllByProductIdInForUpdate(new TreeSet<>(productIds)).stream()
+                            .collect(Collectors.toMap(inv -> inv.getProduct().getId(), inv -> inv));
+            Map<Long, RawMaterialInventory> rawMaterials = rawMaterialIds.isEmpty() ? Map.of()
+                    : rawMaterialInventoryRepo.findAllByRawMaterialIdInForUpdate(new TreeSet<>(rawMaterialIds)).stream()
+                            .collect(Collectors.toMap(inv -> inv.getRawMaterial().getId(), inv -> inv));
+            rowsLocked.add(products.size() + rawMaterials.size());
+            return new Locked(products, rawMaterials);
+        } catch (RuntimeException e) {
+            count(e);
+            throw e;
+        } finally {
+            long waited = System.nanoTime() - started;
+            acquisitions.increment();
+            waitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+        }
+    }
+
+    /**
+     * Runs {@code work} in a transaction and runs it again when it fails on a lock timeout or
+     * deadlock. Inside an existing transaction it only joins it: the rolled back work can only be
+     * retried by whoever started that transaction.
+     */
+    public <T> T inTransaction(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return transaction.execute(status -> work.get());
+            } catch (RuntimeException e) {
+                if (!isLockConflict(e)) throw e;
+                if (attempt >= maxRetries) {
+                    retriesExhausted.increment();
+                    throw e;
+                }
+                retries.increment();
+                long delay = (backoffMillis << attempt) + ThreadLocalRandom.current().nextLong(backoffMillis + 1);
+                log.warn("Inventory transaction hit a lock conflict ({}), retry {} of {} in {} ms",
+                        e.getMessage(), attempt + 1, maxRetries, delay);
+                sleep(delay);
+            }
+        }
+    }
+
+    public InventoryLockStatsDto stats() {
+        return new InventoryLockStatsDto(
+                acquisitions.sum(),
+                rowsLocked.sum(),
+                waitNanos.sum() / 1_000_000,
+                maxWaitNanos.get() / 1_000_000,
+                timeouts.sum(),
+                deadlocks.sum(),
+                retries.sum(),
+                retriesExhausted.sum());
+    }
+
+    // Hibernate ignores lock timeout hints on MySQL, so the session variable is set instead.
+    private void setLockWaitTimeout() {
+        if (TransactionSynchronizationManager.hasResource(this)) return;    // already set in this transaction
+        execute("SET SESSION innodb_lock_wait_timeout = " + timeoutSeconds);
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // the pending writes still wait under the short timeout
+                if (!readOnly) entityManager.flush();
+            }
+
+            @Override
+            public void beforeCompletion() {
+                try {
+                    execute("SET SESSION innodb_lock_wait_timeout = DEFAULT");
+                } catch (RuntimeException e) {
+                    log.warn("Could not restore innodb_lock_wait_timeout: {}", e.getMessage());
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(InventoryLockManager.this);
+            }
+        });
+    }
+
+    private void execute(String sql) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(sql);
+            }
+        });
+    }
+
+    private void count(RuntimeException e) {
+        Integer code = mysqlErrorCode(e);
+        if (code != null && code == MYSQL_DEADLOCK) deadlocks.increment();
+        else if (code != null && code == MYSQL_LOCK_WAIT_TIMEOUT) timeouts.increment();
+    }
+
+    private static boolean isLockConflict(Throwable e) {
+        Integer code = mysqlErrorCode(e);
+        if (code != null) return code == MYSQL_DEADLOCK || code == MYSQL_LOCK_WAIT_TIMEOUT;
+        return find(e, t -> t instanceof PessimisticLockingFailureException) != null;
+    }
+
+    private static Integer mysqlErrorCode(Throwable e) {
+        Throwable sql = find(e, t -> t instanceof SQLException s
+                && (s.getErrorCode() == MYSQL_DEADLOCK || s.getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT));
+        return sql == null ? null : ((SQLException) sql).getErrorCode();
+    }
+
+    private static Throwable find(Throwable e, Predicate<Throwable> match) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (match.test(t)) return t;
+        }
+        return null;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", ie);
+        }
+    }
+
+    /** Locked inventory rows, keyed by product or raw material id. */
+    @Getter
+    @AllArgsConstructor
+    public static final class Locked {
+        private final Map<Long, ProductInventory> products;
+        private final Map<Long, RawMaterialInventory> rawMaterials;
+    }
+}
@@ -0,0 +1,135 @@
+package YNprojects.logistics_system.inventory.service;
+
+import YNprojects.logistics_system.exceptions.InsufficientStockException;
+import YNprojects.logistics_system.inventory.dto.StockChange;
+import YNprojects.logistics_system.inventory.dto.StockLevel;
+import YNprojects.logistics_system.inventory.entity.MovementCause;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import YNprojects.logistics_system.productinventory.entities.ProductInventory;
+import YNprojects.logistics_system.productinventory.repository.ProductInventoryRepo;
+import YNprojects.logistics_system.rawmaterialinventory.entity.RawMaterialInventory;
+import YNprojects.logistics_system.rawmaterialinventory.repository.RawMaterialInventoryRepo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Database-backed engine: the inventory rows are locked through the {@link InventoryLockManager}
+ * in the caller's transaction, products before raw materials and each in id order, so concurrent
+ * callers touching several items cannot deadlock.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.engine", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaInventoryEngine implements InventoryEngine {
+
+    private final ProductInventoryRepo productInventoryRepo;
+    private final RawMaterialInventoryRepo rawMaterialInventoryRepo;
+    private final InventoryLockManager lockManager;
+    private final StockLevelNotifier notifier;
+    private final InventoryLedger ledger;
+
+    @Override
+    @Transactional(noRollbackFor = InsufficientStockException.class)
+    public List<StockLevel> apply(List<StockChange> changes) {
+        Map<Long, Double> productDeltas = sum(changes, StockItemType.PRODUCT);
+        Map<Long, Double> rawDeltas = sum(changes, StockItemType.RAW_MATERIAL);
+
+        // 1) Lock every row once, in a global order
+        InventoryLockManager.Locked locked = lockManager.lock(productDeltas.keySet(), rawDeltas.keySet());
+        Map<Long, ProductInventory> products = locked.getProducts();
+        Map<Long, RawMaterialInventory> raws = locked.getRawMaterials();
+
+        // 2) Check everything before changing anything
+        productDeltas.forEach((productId, delta) -> {
+            ProductInventory inv = products.get(productId);
+            if (inv == null) throw new IllegalStateException("No product inventory record for product: " + productId);
+            checkAvailable(StockItemType.PRODUCT, productId, inv.getQuantity(), delta);
+        });
+        rawDeltas.forEach((rawId, delta) -> {
+            RawMaterialInventory inv = raws.get(rawId);
+            if (inv == null) throw new IllegalStateException("No raw material inventory for id: " + rawId);
+            checkAvailable(StockItemType.RAW_MATERIAL, rawId, inv.getQuantity(), delta);
+        });
+
+        // 3) Apply
+        LocalDateTime now = LocalDateTime.now();
+        List<StockLevel> levels = new ArrayList<>();
+        productDeltas.forEach((productId, delta) -> {
+            ProductInventory inv = products.get(productId);
+            inv.setQuantity(inv.getQuantity() + delta);
+            inv.setLastUpdated(now);
+            productInventoryRepo.save(inv);
+            levels.add(new StockLevel(StockItemType.PRODUCT, productId, inv.getId(), inv.getQuantity(), inv.getReorderThreshold()));
+        });
+        rawDeltas.forEach((rawId, delta) -> {
+            RawMaterialInventory inv = raws.get(rawId);
+            inv.setQuantity(inv.getQuantity() + delta);
+            inv.setLastUpdated(now);
+            rawMaterialInventoryRepo.save(inv);
+            levels.add(new StockLevel(StockItemType.RAW_MATERIAL, rawId, inv.getId(), inv.getQuantity(), inv.getReorderThreshold()));
+        });
+
+        ledger.record(changes, levels);
+        notifier.changed(levels);
+        return levels;
+    }
+
+    @Override
+    @Transactional
+    public StockLevel set(StockItemType itemType, Long itemId, double quantity, double reorderThreshold) {
+        StockLevel level;
+        double previous;
+        if (itemType == StockItemType.PRODUCT) {
+            ProductInventory inv = Optional.ofNullable(lockManager.lock(List.of(itemId), List.of()).getProducts().get(itemId))
+                    .orElseThrow(() -> new IllegalStateException("No product inventory record for product: " + itemId));
+            previous = inv.getQuantity();
+            inv.setQuantity(quantity);
+            inv.setReorderThreshold(reorderThreshold);
+            inv.setLastUpdated(LocalDateTime.now());
+            productInventoryRepo.save(inv);
+            level = new StockLevel(itemType, itemId, inv.getId(), quantity, reorderThreshold);
+        } else {
+            RawMaterialInventory inv = Optional.ofNullable(lockManager.lock(List.of(), List.of(itemId)).getRawMaterials().get(itemId))
+                    .orElseThrow(() -> new IllegalStateException("No raw material inventory for id: " + itemId));
+            previous = inv.getQuantity();
+            inv.setQuantity(quantity);
+            inv.setReorderThreshold(reorderThreshold);
+            inv.setLastUpdated(LocalDateTime.now());
+            rawMaterialInventoryRepo.save(inv);
+            level = new StockLevel(itemType, itemId, inv.getId(), quantity, reorderThreshold);
+        }
+        if (quantity != previous) {
+            ledger.record(List.of(new StockChange(itemType, itemId, quantity - previous, MovementCause.MANUAL, level.getInventoryId())),
+                    List.of(level));
+        }
+        notifier.changed(level);
+        return level;
+    }
+
+    @Override
+    public double quantity(StockItemType itemType, Long itemId, double stored) {
+        return stored;
+    }
+
+    static Map<Long, Double> sum(List<StockChange> changes, StockItemType itemType) {
+        Map<Long, Double> deltas = new TreeMap<>();
+        for (StockChange change : changes) {
+            if (change.getItemType() == itemType) {
+                deltas.merge(change.getItemId(), change.getDelta(), Double::sum);
+            }
+        }
+        return deltas;
+    }
+
+    static void checkAvailable(StockItemType itemType, Long itemId, double available, double delta) {
+        if (delta < 0 && available + delta < 0) {
+            throw new InsufficientStockException("Insufficient " + (itemType == StockItemType.PRODUCT ? "product" : "raw material")
+                    + " stock for id " + itemId + ". Available: " + available + ", required: " + (-delta));
+        }
+    }
+}
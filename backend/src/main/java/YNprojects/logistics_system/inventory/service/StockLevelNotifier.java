@@ -0,0 +1,50 @@
+package YNprojects.logistics_system.inventory.service;
+
+import YNprojects.logistics_system.alert.entity.AlertSeverity;
+import YNprojects.logistics_system.alert.entity.AlertType;
+import YNprojects.logistics_system.alert.entity.EntityType;
+import YNprojects.logistics_system.alert.service.AlertService;
+import YNprojects.logistics_system.events.InventoryChangedEvent;
+import YNprojects.logistics_system.inventory.dto.StockLevel;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reacts to new stock levels: low stock / raw material shortage alerts are raised at or below
+ * the reorder threshold and resolved above it, and an {@link InventoryChangedEvent} is published.
+ */
+@Component
+@RequiredArgsConstructor
+public class StockLevelNotifier {
+
+    private final AlertService alertService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /** Alerts of all levels are synced with one lookup per item type. */
+    public void changed(List<StockLevel> levels) {
+        for (StockItemType itemType : StockItemType.values()) {
+            List<Long> low = new ArrayList<>();
+            List<Long> ok = new ArrayList<>();
+            for (StockLevel level : levels) {
+                if (level.getItemType() != itemType) continue;
+                (level.getQuantity() <= level.getReorderThreshold() ? low : ok).add(level.getInventoryId());
+            }
+            boolean product = itemType == StockItemType.PRODUCT;
+            alertService.sync(
+                    product ? AlertType.LOW_STOCK : AlertType.RAW_MATERIAL_SHORTAGE,
+                    product ? AlertSeverity.WARNING : AlertSeverity.CRITICAL,
+                    product ? EntityType.PRODUCT_INVENTORY : EntityType.RAW_MATERIAL_INVENTORY,
+                    low, ok);
+        }
+        levels.forEach(level -> eventPublisher.publishEvent(InventoryChangedEvent.of(level)));
+    }
+
+    public void changed(StockLevel level) {
+        changed(List.of(level));
+    }
+}
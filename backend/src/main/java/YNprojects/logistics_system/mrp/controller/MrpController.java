@@ -0,0 +1,30 @@
+package YNprojects.logistics_system.mrp.controller;
+
+import YNprojects.logistics_system.mrp.dto.MaterialProjectionDto;
+import YNprojects.logistics_system.mrp.dto.ShortageDto;
+import YNprojects.logistics_system.mrp.service.MrpService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@AllArgsConstructor
+@RestController
+@RequestMapping("/mrp")
+@CrossOrigin(origins = "*")
+public class MrpController {
+
+    private final MrpService mrpService;
+
+    @GetMapping("/shortages")
+    public ResponseEntity<List<ShortageDto>> getShortages(@RequestParam(required = false) Integer days) {
+        return ResponseEntity.ok(mrpService.getShortages(days));
+    }
+
+    @GetMapping("/raw-materials/{rawMaterialId}")
+    public ResponseEntity<MaterialProjectionDto> getProjection(@PathVariable Long rawMaterialId,
+                                                               @RequestParam(required = false) Integer days) {
+        return ResponseEntity.ok(mrpService.getProjection(rawMaterialId, days));
+    }
+}
@@ -0,0 +1,11 @@
+package YNprojects.logistics_system.mrp.dto;
+
+import java.time.LocalDate;
+
+/** Quantity of a raw material a production order needs or a shipment brings, on the day it is due. */
+public interface MaterialFlow {
+    Long getSourceId();         // production order or shipment id
+    Long getRawMaterialId();
+    double getQuantity();
+    LocalDate getDate();
+}
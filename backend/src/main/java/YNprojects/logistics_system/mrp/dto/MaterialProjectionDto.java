@@ -0,0 +1,21 @@
+package YNprojects.logistics_system.mrp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class MaterialProjectionDto {
+
+    private Long rawMaterialId;
+    private double onHand;
+    private LocalDate shortageDate;         // first day the balance goes below zero, null if never
+    private List<ProjectedBucketDto> buckets;
+}
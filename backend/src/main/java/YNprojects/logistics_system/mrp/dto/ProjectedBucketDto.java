@@ -0,0 +1,21 @@
+package YNprojects.logistics_system.mrp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/** One day of a raw material projection; only days with supply or demand are listed. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProjectedBucketDto {
+
+    private LocalDate date;
+    private double supply;      // inbound shipments due that day
+    private double demand;      // planned production orders starting that day
+    private double balance;     // projected quantity at the end of the day
+}
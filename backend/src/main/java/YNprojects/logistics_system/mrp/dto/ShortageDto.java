@@ -0,0 +1,21 @@
+package YNprojects.logistics_system.mrp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/** A raw material whose projected balance goes below zero within the horizon. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ShortageDto {
+
+    private Long rawMaterialId;
+    private double onHand;
+    private LocalDate shortageDate;
+    private double shortfall;       // quantity missing at the lowest point of the horizon
+}
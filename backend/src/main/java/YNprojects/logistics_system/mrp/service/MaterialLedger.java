@@ -0,0 +1,97 @@
+package YNprojects.logistics_system.mrp.service;
+
+import YNprojects.logistics_system.mrp.dto.ProjectedBucketDto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Projected stock of one raw material: the quantity on hand and the supply and demand still to come,
+ * summed per day. Days before today count as today, so an overdue order or shipment weighs on today.
+ * The first shortage is cached until the ledger changes or the day does. Not thread safe; {@link MrpService} guards it.
+ */
+final class MaterialLedger {
+
+    private static final double EPSILON = 1e-9;
+
+    private double onHand;
+    private final TreeMap<LocalDate, Bucket> buckets = new TreeMap<>();
+
+    private LocalDate shortageComputedFor;
+    private LocalDate shortageDate;
+
+    double getOnHand() {
+        return onHand;
+    }
+
+    void setOnHand(double onHand) {
+        this.onHand = onHand;
+        shortageComputedFor = null;
+    }
+
+    /** Adds a flow: supply when {@code quantity} is positive, demand when negative. */
+    void add(LocalDate date, double quantity) {
+        Bucket bucket = buckets.computeIfAbsent(date, d -> new Bucket());
+        if (quantity >= 0) bucket.supply += quantity;
+        else bucket.demand -= quantity;
+        bucket.flows++;
+        shortageComputedFor = null;
+    }
+
+    /** Takes back a flow added with the same date and quantity. */
+    void remove(LocalDate date, double quantity) {
+        Bucket bucket = buckets.get(date);
+        if (bucket == null) return;
+        if (quantity >= 0) bucket.supply -= quantity;
+        else bucket.demand += quantity;
+        // summing and subtracting doubles leaves dust: the last flow out drops the day
+        if (--bucket.flows == 0) buckets.remove(date);
+        shortageComputedFor = null;
+    }
+
+    /** First day the projected balance goes below zero, or null. */
+    LocalDate shortageDate(LocalDate today) {
+        if (!today.equals(shortageComputedFor)) {
+            shortageDate = project(today, LocalDate.MAX).stream()
+                    .filter(bucket -> bucket.getBalance() < -EPSILON)
+                    .map(ProjectedBucketDto::getDate)
+                    .findFirst().orElse(null);
+            shortageComputedFor = today;
+        }
+        return shortageDate;
+    }
+
+    /** The days with supply or demand from {@code today} to {@code until}, with the balance at the end of each. */
+    List<ProjectedBucketDto> project(LocalDate today, LocalDate until) {
+        List<ProjectedBucketDto> projection = new ArrayList<>();
+        double balance = onHand;
+        double overdueSupply = 0;
+        double overdueDemand = 0;
+        boolean overdue = false;
+        for (Map.Entry<LocalDate, Bucket> entry : buckets.headMap(today, true).entrySet()) {
+            overdueSupply += entry.getValue().supply;
+            overdueDemand += entry.getValue().demand;
+            overdue = true;
+        }
+        if (overdue) {
+            balance += overdueSupply - overdueDemand;
+            projection.add(new ProjectedBucketDto(today, overdueSupply, overdueDemand, balance));
+        }
+        if (!until.isAfter(today)) return projection;
+        for (Map.Entry<LocalDate, Bucket> entry : buckets.subMap(today, false, until, true).entrySet()) {
+            Bucket bucket = entry.getValue();
+            balance += bucket.supply - bucket.demand;
+            projection.add(new ProjectedBucketDto(entry.getKey(), bucket.supply, bucket.demand, balance));
+        }
+        return projection;
+    }
+
+    private static final class Bucket {
+        private double supply;
+        private double demand;
+        private int flows;
+    }
+}
@@ -0,0 +1,219 @@
+package YNprojects.logistics_system.mrp.service;
+
+import YNprojects.logistics_system.alert.entity.EntityType;
+import YNprojects.logistics_system.events.InventoryChangedEvent;
+import YNprojects.logistics_system.events.ProductionOrderStatusChangedEvent;
+import YNprojects.logistics_system.events.ShipmentStatusChangedEvent;
+import YNprojects.logistics_system.exceptions.ResourceNotFoundException;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import YNprojects.logistics_system.inventory.service.InventoryEngine;
+import YNprojects.logistics_system.mrp.dto.MaterialFlow;
+import YNprojects.logistics_system.mrp.dto.MaterialProjectionDto;
+import YNprojects.logistics_system.mrp.dto.ProjectedBucketDto;
+import YNprojects.logistics_system.mrp.dto.ShortageDto;
+import YNprojects.logistics_system.productionorder.entity.ProductionOrderStatus;
+import YNprojects.logistics_system.productionorder.repository.ProductionOrderRepo;
+import YNprojects.logistics_system.projection.service.IncrementalProjection;
+import YNprojects.logistics_system.rawmaterialinventory.repository.RawMaterialInventoryRepo;
+import YNprojects.logistics_system.shipment.entity.ShipmentDirection;
+import YNprojects.logistics_system.shipment.entity.ShipmentStatus;
+import YNprojects.logistics_system.shipment.repo.ShipmentRepo;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Material requirements planning: day by day projected balance of every raw material, served from memory.
+ *
+ * Each raw material has a {@link MaterialLedger}: the quantity on hand, minus what the PLANNED production
+ * orders need on their start date, plus what the open inbound shipments bring on their estimated arrival.
+ * IN_PROGRESS orders are not counted, their materials left the inventory when they started.
+ *
+ * The ledgers are an {@link IncrementalProjection}, built once at startup and rebuilt every
+ * {@code mrp.rebuild-interval-ms}. In between, committed order, shipment and inventory events mark their
+ * row dirty; dirty rows are reloaded in batches every {@code mrp.flush-ms} and before a read, and their
+ * old flows are swapped for the new ones. Changes made on other nodes show within the rebuild interval.
+ */
+@Service
+@RequiredArgsConstructor
+public class MrpService extends IncrementalProjection {
+
+    /** Inbound shipments whose quantity is still to come. */
+    private static final Set<ShipmentStatus> OPEN_SHIPMENTS =
+            EnumSet.of(ShipmentStatus.PLANNED, ShipmentStatus.IN_TRANSIT, ShipmentStatus.DELAYED);
+
+    private final RawMaterialInventoryRepo rawMaterialInventoryRepo;
+    private final ProductionOrderRepo productionOrderRepo;
+    private final ShipmentRepo shipmentRepo;
+    private final InventoryEngine inventoryEngine;
+    private final Clock clock;
+
+    @Value("${mrp.horizon-days:90}")
+    private int defaultHorizonDays;
+
+    @Value("${mrp.max-horizon-days:730}")
+    private int maxHorizonDays;
+
+    @Value("${mrp.load-chunk-size:1000}")
+    private int loadChunkSize;
+
+    @Value("${mrp.flush-ms:1000}")
+    private long flushMillis;
+
+    @Value("${mrp.rebuild-interval-ms:3600000}")
+    private long rebuildMillis;
+
+    private final Map<Long, MaterialLedger> ledgers = new HashMap<>();
+    private final Map<Long, List<Flow>> orderFlows = new HashMap<>();
+    private final Map<Long, List<Flow>> shipmentFlows = new HashMap<>();
+
+    private final Dirty dirtyOrders = dirtySet();
+    private final Dirty dirtyShipments = dirtySet();
+    private final Dirty dirtyMaterials = dirtySet();
+
+    /** Raw materials short within {@code days} (default {@code mrp.horizon-days}), earliest shortage first. */
+    public List<ShortageDto> getShortages(Integer days) {
+        LocalDate today = LocalDate.now(clock);
+        LocalDate until = today.plusDays(horizon(days));
+        return read(() -> {
+            List<ShortageDto> shortages = new ArrayList<>();
+            ledgers.forEach((rawMaterialId, ledger) -> {
+                LocalDate shortageDate = ledger.shortageDate(today);
+                if (shortageDate == null || shortageDate.isAfter(until)) return;
+                double lowest = ledger.project(today, until).stream().mapToDouble(ProjectedBucketDto::getBalance).min().orElse(0);
+                shortages.add(new ShortageDto(rawMaterialId, ledger.getOnHand(), shortageDate, -lowest));
+            });
+            shortages.sort(Comparator.comparing(ShortageDto::getShortageDate).thenComparing(ShortageDto::getRawMaterialId));
+            return shortages;
+        });
+    }
+
+    /** Projected balance of one raw material over {@code days} (default {@code mrp.horizon-days}). */
+    public MaterialProjectionDto getProjection(Long rawMaterialId, Integer days) {
+        LocalDate today = LocalDate.now(clock);
+        LocalDate until = today.plusDays(horizon(days));
+        return read(() -> {
+            MaterialLedger ledger = ledgers.get(rawMaterialId);
+            if (ledger == null) {
+                throw new ResourceNotFoundException("No inventory, order or shipment for raw material: " + rawMaterialId);
+            }
+            return new MaterialProjectionDto(rawMaterialId, ledger.getOnHand(), ledger.shortageDate(today),
+                    ledger.project(today, until));
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductionOrderChanged(ProductionOrderStatusChangedEvent event) {
+        dirtyOrders.mark(event.getOrderId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShipmentChanged(ShipmentStatusChangedEvent event) {
+        dirtyShipments.mark(event.getShipmentId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (event.getInventoryType() == EntityType.RAW_MATERIAL_INVENTORY) {
+            dirtyMaterials.mark(event.getItemId());
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        schedule("mrp-projection", flushMillis, rebuildMillis);
+    }
+
+    @Override
+    protected String name() {
+        return "MRP ledgers";
+    }
+
+    @Override
+    protected String summary() {
+        return ledgers.size() + " raw materials, " + orderFlows.size() + " planned orders, "
+                + shipmentFlows.size() + " inbound shipments";
+    }
+
+    @Override
+    protected Runnable loadChanges() {
+        List<Long> orders = dirtyOrders.drain();
+        List<Long> shipments = dirtyShipments.drain();
+        List<Long> materials = dirtyMaterials.drain();
+        Map<Long, List<Flow>> loadedOrders = groupBySource(inChunks(orders, loadChunkSize, ids ->
+                productionOrderRepo.findMaterialFlowsByStatusAndIdIn(ProductionOrderStatus.PLANNED, ids)), true);
+        Map<Long, List<Flow>> loadedShipments = groupBySource(inChunks(shipments, loadChunkSize, ids ->
+                shipmentRepo.findMaterialFlowsByIdIn(ShipmentDirection.INBOUND, OPEN_SHIPMENTS, ids)), false);
+        Map<Long, Double> onHand = onHand(inChunks(materials, loadChunkSize,
+                rawMaterialInventoryRepo::findBalancesByRawMaterialIdIn), inventoryEngine, StockItemType.RAW_MATERIAL);
+        return () -> {
+            orders.forEach(id -> replace(orderFlows, id, loadedOrders.get(id)));
+            shipments.forEach(id -> replace(shipmentFlows, id, loadedShipments.get(id)));
+            // an inventory row that is gone leaves nothing on hand
+            materials.forEach(id -> ledger(id).setOnHand(onHand.getOrDefault(id, 0.0)));
+        };
+    }
+
+    @Override
+    protected Runnable loadAll() {
+        Map<Long, Double> onHand = onHand(rawMaterialInventoryRepo.findAllBalances(), inventoryEngine, StockItemType.RAW_MATERIAL);
+        Map<Long, List<Flow>> orders = groupBySource(
+                productionOrderRepo.findMaterialFlowsByStatus(ProductionOrderStatus.PLANNED), true);
+        Map<Long, List<Flow>> shipments = groupBySource(
+                shipmentRepo.findMaterialFlows(ShipmentDirection.INBOUND, OPEN_SHIPMENTS), false);
+        return () -> {
+            ledgers.clear();
+            orderFlows.clear();
+            shipmentFlows.clear();
+            onHand.forEach((id, quantity) -> ledger(id).setOnHand(quantity));
+            orders.forEach((id, flows) -> replace(orderFlows, id, flows));
+            shipments.forEach((id, flows) -> replace(shipmentFlows, id, flows));
+        };
+    }
+
+    private int horizon(Integer days) {
+        int horizon = days == null ? defaultHorizonDays : days;
+        if (horizon < 0 || horizon > maxHorizonDays) {
+            throw new IllegalArgumentException("Horizon must be between 0 and " + maxHorizonDays + " days");
+        }
+        return horizon;
+    }
+
+    /** Swaps the flows of one order or shipment; null or empty removes them. Holds the state lock. */
+    private void replace(Map<Long, List<Flow>> flowsBySource, Long sourceId, List<Flow> flows) {
+        List<Flow> previous = flows == null || flows.isEmpty() ? flowsBySource.remove(sourceId) : flowsBySource.put(sourceId, flows);
+        if (previous != null) {
+            previous.forEach(flow -> ledger(flow.rawMaterialId()).remove(flow.date(), flow.quantity()));
+        }
+        if (flows != null) {
+            flows.forEach(flow -> ledger(flow.rawMaterialId()).add(flow.date(), flow.quantity()));
+        }
+    }
+
+    private MaterialLedger ledger(Long rawMaterialId) {
+        return ledgers.computeIfAbsent(rawMaterialId, id -> new MaterialLedger());
+    }
+
+    /**
+     * Demand is negative. An order without a start date is needed now; a shipment without an
+     * estimated arrival is not counted, as nothing says when it comes.
+     */
+    private static Map<Long, List<Flow>> groupBySource(List<MaterialFlow> rows, boolean demand) {
+        Map<Long, List<Flow>> flows = new HashMap<>();
+        for (MaterialFlow row : rows) {
+            if (row.getDate() == null && !demand) continue;
+            LocalDate date = row.getDate() == null ? LocalDate.MIN : row.getDate();
+            flows.computeIfAbsent(row.getSourceId(), id -> new ArrayList<>())
+                    .add(new Flow(row.getRawMaterialId(), date, demand ? -row.getQuantity() : row.getQuantity()));
+        }
+        return flows;
+    }
+
+    private record Flow(Long rawMaterialId, LocalDate date, double quantity) {}
+}
@@ -1,13 +1,17 @@
 package YNprojects.logistics_system.product.controller;
 
+import YNprojects.logistics_system.atp.dto.AtpDto;
+import YNprojects.logistics_system.atp.service.AtpService;
 import YNprojects.logistics_system.product.dto.CreateProductDto;
 import YNprojects.logistics_system.product.dto.ProductDto;
 import YNprojects.logistics_system.product.service.ProductService;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -17,6 +21,7 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final AtpService atpService;
 
     @GetMapping
     public ResponseEntity<List<ProductDto>> getAllProducts() {
@@ -28,6 +33,13 @@ public class ProductController {
         return ResponseEntity.ok(productService.getProductById(id));
     }
 
+    @GetMapping("/{id}/atp")
+    public ResponseEntity<AtpDto> getAtp(@PathVariable Long id,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(atpService.getAtp(id, from, to));
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping
     public ResponseEntity<ProductDto> createProduct(@RequestBody CreateProductDto createProductDto) {
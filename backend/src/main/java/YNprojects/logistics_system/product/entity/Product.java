@@ -1,12 +1,13 @@
 package YNprojects.logistics_system.product.entity;
 
-import YNprojects.logistics_system.productinventory.entities.ProductInventory;
 import YNprojects.logistics_system.shipment.entity.Shipment;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -16,6 +17,8 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product")
 public class Product {
 
     @Id
@@ -32,8 +35,5 @@ public class Product {
     @OneToMany(mappedBy = "product")
     private List<Shipment> shipments;
 
-    @OneToOne(mappedBy = "product")
-    private ProductInventory productInventory;
-
     private Long productionDurationMinutes;
 }
@@ -1,8 +1,11 @@
 package YNprojects.logistics_system.productinventory.controller;
 
+import YNprojects.logistics_system.inventory.dto.InventorySort;
 import YNprojects.logistics_system.productinventory.dto.ProductInventoryDto;
+import YNprojects.logistics_system.productinventory.dto.ProductInventoryPageDto;
 import YNprojects.logistics_system.productinventory.service.ProductInventoryService;
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -21,6 +24,14 @@ public class ProductInventoryController {
         return ResponseEntity.ok(productInventoryService.getAllProductInventory());
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<ProductInventoryPageDto> pageProductInventory(@RequestParam(defaultValue = "0") int page,
+                                                                        @RequestParam(defaultValue = "50") int size,
+                                                                        @RequestParam(defaultValue = "COVERAGE") InventorySort sort,
+                                                                        @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
+        return ResponseEntity.ok(productInventoryService.getProductInventoryPage(page, size, sort, direction));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductInventoryDto> getProductInventoryById(@PathVariable Long id) {
         return ResponseEntity.ok(productInventoryService.getProductInventoryById(id));
@@ -0,0 +1,20 @@
+package YNprojects.logistics_system.productinventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/** One page of product inventory rows. No total is counted; {@code hasNext} tells whether another page follows. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductInventoryPageDto {
+
+    private List<ProductInventorySummaryDto> items;
+    private int page;
+    private boolean hasNext;
+}
@@ -0,0 +1,26 @@
+package YNprojects.logistics_system.productinventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/** Flat row of the product inventory page, read with its product in one statement. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductInventorySummaryDto {
+
+    private Long id;
+    private Double quantity;
+    private Double reorderThreshold;
+    private LocalDateTime lastUpdated;
+
+    private Long productId;
+    private String productName;
+    private String productSku;
+    private String productUnit;
+}
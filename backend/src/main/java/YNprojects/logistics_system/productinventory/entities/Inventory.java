@@ -1,10 +1,13 @@
 package YNprojects.logistics_system.productinventory.entities;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
@@ -17,4 +20,10 @@ public abstract class Inventory {
     protected Double quantity;
     protected Double reorderThreshold;
     protected LocalDateTime lastUpdated;
+
+    // Checked on entity updates; the atomic engine's single-statement deltas bump it too.
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    protected long version;
 }
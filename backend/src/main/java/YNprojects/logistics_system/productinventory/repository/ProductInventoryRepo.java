@@ -1,14 +1,79 @@
 package YNprojects.logistics_system.productinventory.repository;
 
+import YNprojects.logistics_system.inventory.dto.InventoryBalance;
 import YNprojects.logistics_system.product.entity.Product;
+import YNprojects.logistics_system.productinventory.dto.ProductInventorySummaryDto;
 import YNprojects.logistics_system.productinventory.entities.ProductInventory;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ProductInventoryRepo extends JpaRepository<ProductInventory, Long> {
+
+    // The full list reads every row with its product in one statement instead of one select per row.
+    @Override
+    @Query("select i from ProductInventory i join fetch i.product")
+    List<ProductInventory> findAll();
+
+    /**
+     * Page of flat rows, sorted by {@link YNprojects.logistics_system.inventory.dto.InventorySort}
+     * ({@code i} is the inventory row, {@code item} the product). A slice reads one extra row instead of counting.
+     */
+    @Query("select new YNprojects.logistics_system.productinventory.dto.ProductInventorySummaryDto(" +
+            "i.id, i.quantity, i.reorderThreshold, i.lastUpdated, item.id, item.name, item.sku, item.unit) " +
+            "from ProductInventory i join i.product item")
+    Slice<ProductInventorySummaryDto> findSummaries(Pageable pageable);
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<ProductInventory> findByProduct(Product product);
+
+    /** Unlocked read, for the in-memory inventory engine. */
+    Optional<ProductInventory> findByProductId(Long productId);
+
+    @Query("select i.product.id from ProductInventory i where i.product.id in :productIds")
+    List<Long> findProductIdsWithInventory(@Param("productIds") Collection<Long> productIds);
+
+    /** Write-behind of a balance kept in memory; leaves the reorder threshold alone. */
+    @Modifying
+    @Query("update ProductInventory i set i.quantity = :quantity, i.lastUpdated = :now, i.version = i.version + 1 where i.id = :id")
+    int updateQuantity(@Param("id") Long id, @Param("quantity") double quantity, @Param("now") LocalDateTime now);
+
+    /** Threshold of a balance kept in memory; leaves the quantity to the write-behind. */
+    @Modifying
+    @Query("update ProductInventory i set i.reorderThreshold = :threshold, i.version = i.version + 1 where i.id = :id")
+    int updateReorderThreshold(@Param("id") Long id, @Param("threshold") double threshold);
+
+    /** Rows at or below a positive reorder threshold, the same rule the dashboard applies. */
+    @Query("select count(i) from ProductInventory i where i.reorderThreshold > 0 and i.quantity <= i.reorderThreshold")
+    long countLowStock();
+
+    /** Locks the inventory rows of several products in id order, so concurrent batches cannot deadlock. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from ProductInventory i where i.product.id in :productIds order by i.id")
+    List<ProductInventory> findAllByProductIdInForUpdate(@Param("productIds") Collection<Long> productIds);
+
+    @Query("select i.product.id as itemId, i.id as inventoryId, i.quantity as quantity, i.reorderThreshold as reorderThreshold from ProductInventory i")
+    List<InventoryBalance> findAllBalances();
+
+    /**
+     * Adds {@code delta} in a single statement, only if the quantity does not go below zero.
+     * Returns 0 when it would, or when the product has no inventory row.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update ProductInventory i set i.quantity = i.quantity + :delta, i.lastUpdated = :now, i.version = i.version + 1 " +
+            "where i.product.id = :productId and i.quantity + :delta >= 0")
+    int addQuantity(@Param("productId") Long productId, @Param("delta") double delta, @Param("now") LocalDateTime now);
+
+    @Query("select i.product.id as itemId, i.id as inventoryId, i.quantity as quantity, i.reorderThreshold as reorderThreshold " +
+            "from ProductInventory i where i.product.id in :productIds")
+    List<InventoryBalance> findBalancesByProductIdIn(@Param("productIds") Collection<Long> productIds);
 }
@@ -1,16 +1,22 @@
 package YNprojects.logistics_system.productinventory.service;
 
-import YNprojects.logistics_system.alert.entity.AlertSeverity;
-import YNprojects.logistics_system.alert.entity.AlertType;
-import YNprojects.logistics_system.alert.entity.EntityType;
-import YNprojects.logistics_system.alert.service.AlertService;
 import YNprojects.logistics_system.exceptions.ResourceNotFoundException;
+import YNprojects.logistics_system.inventory.dto.InventorySort;
+import YNprojects.logistics_system.inventory.dto.StockLevel;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import YNprojects.logistics_system.inventory.service.InventoryEngine;
 import YNprojects.logistics_system.productinventory.mapper.ProductInventoryMapper;
 import YNprojects.logistics_system.product.entity.Product;
 import YNprojects.logistics_system.productinventory.dto.ProductInventoryDto;
+import YNprojects.logistics_system.productinventory.dto.ProductInventoryPageDto;
+import YNprojects.logistics_system.productinventory.dto.ProductInventorySummaryDto;
 import YNprojects.logistics_system.productinventory.entities.ProductInventory;
 import YNprojects.logistics_system.productinventory.repository.ProductInventoryRepo;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,21 +25,41 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class ProductInventoryService {
 
     private final ProductInventoryRepo productInventoryRepo;
-    private final AlertService alertService;
+    private final InventoryEngine inventoryEngine;
+
+    @Value("${inventory.page.max-size:200}")
+    private int maxPageSize;
 
     public List<ProductInventoryDto> getAllProductInventory() {
-        return productInventoryRepo.findAll().stream().map(ProductInventoryMapper::toProductInventoryDto).collect(Collectors.toList());
+        return productInventoryRepo.findAll().stream().map(this::toDto).collect(Collectors.toList());
+    }
+
+    /**
+     * One page of flat rows, read in a single statement. Quantities kept in memory by the inventory engine
+     * are applied to the rows, but the order is the one of the stored quantities.
+     */
+    @Transactional(readOnly = true)
+    public ProductInventoryPageDto getProductInventoryPage(int page, int size, InventorySort sort, Sort.Direction direction) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must be >= 0");
+        }
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+        }
+        Slice<ProductInventorySummaryDto> rows = productInventoryRepo.findSummaries(PageRequest.of(page, size, sort.toSort(direction)));
+        rows.forEach(row -> row.setQuantity(inventoryEngine.quantity(StockItemType.PRODUCT, row.getProductId(), row.getQuantity())));
+        return new ProductInventoryPageDto(rows.getContent(), page, rows.hasNext());
     }
 
     public ProductInventoryDto getProductInventoryById(Long id) {
         ProductInventory productInventory = productInventoryRepo.findById(id).orElseThrow(
                 ()->new ResourceNotFoundException("This inventory item doesn't exist.")
         );
-        return ProductInventoryMapper.toProductInventoryDto(productInventory);
+        return toDto(productInventory);
     }
 
     public ProductInventory createProductInventory(Product product) {
@@ -50,22 +76,21 @@ public class ProductInventoryService {
         ProductInventory productInventory = productInventoryRepo.findById(productInventoryDto.getId()).orElseThrow(
                 ()->new ResourceNotFoundException("This product inventory item doesn't exist.")
         );
-        productInventory.setLastUpdated(LocalDateTime.now());
-        productInventory.setQuantity(productInventoryDto.getQuantity());
-        productInventory.setReorderThreshold(productInventoryDto.getReorderThreshold());
+        // quantity, threshold alerts and the change event all go through the inventory engine, which also
+        // writes the row; the entity is left alone so it does not overwrite what the engine keeps in memory
+        StockLevel level = inventoryEngine.set(StockItemType.PRODUCT, productInventory.getProduct().getId(),
+                productInventoryDto.getQuantity(), productInventoryDto.getReorderThreshold());
+        ProductInventoryDto dto = ProductInventoryMapper.toProductInventoryDto(productInventory);
+        dto.setQuantity(level.getQuantity());
+        dto.setReorderThreshold(level.getReorderThreshold());
+        return dto;
+    }
 
-        if(productInventory.getQuantity() <= productInventory.getReorderThreshold()){
-            alertService.createIfNotExists(AlertType.LOW_STOCK,
-                    AlertSeverity.WARNING,
-                    EntityType.PRODUCT_INVENTORY,
-                    productInventory.getId());
-        } else {
-            alertService.resolveByTypeAndEntity(AlertType.LOW_STOCK,
-                    EntityType.PRODUCT_INVENTORY,
-                    productInventory.getId());
-        }
-        ProductInventory saved = productInventoryRepo.save(productInventory);
-        return ProductInventoryMapper.toProductInventoryDto(saved);
+    /** The engine may hold a newer quantity than the row (write-behind). */
+    private ProductInventoryDto toDto(ProductInventory productInventory) {
+        ProductInventoryDto dto = ProductInventoryMapper.toProductInventoryDto(productInventory);
+        dto.setQuantity(inventoryEngine.quantity(StockItemType.PRODUCT, productInventory.getProduct().getId(), productInventory.getQuantity()));
+        return dto;
     }
 
 
@@ -0,0 +1,9 @@
+package YNprojects.logistics_system.productionorder.dto;
+
+import YNprojects.logistics_system.productionorder.entity.ProductionOrderStatus;
+
+/** Row of a production order count grouped by status. */
+public interface ProductionOrderStatusCount {
+    ProductionOrderStatus getStatus();
+    long getTotal();
+}
@@ -14,6 +14,10 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_production_order_status_start", columnList = "status, startDate"),
+        @Index(name = "idx_production_order_status_completion", columnList = "status, plannedCompletionDate")
+})
 public class ProductionOrder {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -1,17 +1,82 @@
 package YNprojects.logistics_system.productionorder.repository;
 
+import YNprojects.logistics_system.atp.dto.ProductFlow;
+import YNprojects.logistics_system.mrp.dto.MaterialFlow;
+import YNprojects.logistics_system.productionorder.dto.ProductionOrderStatusCount;
 import YNprojects.logistics_system.productionorder.entity.ProductionOrder;
 import YNprojects.logistics_system.productionorder.entity.ProductionOrderStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.stereotype.Service;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ProductionOrderRepo extends JpaRepository<ProductionOrder, Long> {
+    /** The order with its material lines, their raw materials and the produced product, in one query. */
+    @EntityGraph(attributePaths = {"rawMaterials", "rawMaterials.rawMaterial", "product", "product.product"})
+    Optional<ProductionOrder> findWithLinesById(Long id);
+
     List<ProductionOrder> findByStatusAndStartDateBefore(ProductionOrderStatus status, LocalDate startDateBefore);
 
     List<ProductionOrder> findByStatusAndStartDate(ProductionOrderStatus status, LocalDate startDate);
 
     List<ProductionOrder> findByStatusAndPlannedCompletionDate(ProductionOrderStatus status, LocalDate plannedCompletionDate);
+
+    @Query("select o.status as status, count(o) as total from ProductionOrder o group by o.status")
+    List<ProductionOrderStatusCount> countByStatus();
+
+    // ---- keyset readers for the scheduler ----
+
+    @Query("select o.id from ProductionOrder o where o.status = :status and o.startDate = :date " +
+            "and o.id > :afterId order by o.id")
+    List<Long> findIdsByStatusAndStartDate(@Param("status") ProductionOrderStatus status,
+                                           @Param("date") LocalDate date,
+                                           @Param("afterId") long afterId,
+                                           Pageable pageable);
+
+    @Query("select o.id from ProductionOrder o where o.status = :status and o.plannedCompletionDate = :date " +
+            "and o.id > :afterId order by o.id")
+    List<Long> findIdsByStatusAndPlannedCompletionDate(@Param("status") ProductionOrderStatus status,
+                                                       @Param("date") LocalDate date,
+                                                       @Param("afterId") long afterId,
+                                                       Pageable pageable);
+
+    /** Next due date after {@code after} (exclusive) and up to {@code upTo}, served by the (status, startDate) index. */
+    @Query("select min(o.startDate) from ProductionOrder o where o.status = :status " +
+            "and o.startDate > :after and o.startDate <= :upTo")
+    LocalDate findNextStartDate(@Param("status") ProductionOrderStatus status,
+                                @Param("after") LocalDate after,
+                                @Param("upTo") LocalDate upTo);
+
+    /** Next due date after {@code after} (exclusive) and up to {@code upTo}, served by the (status, plannedCompletionDate) index. */
+    @Query("select min(o.plannedCompletionDate) from ProductionOrder o where o.status = :status " +
+            "and o.plannedCompletionDate > :after and o.plannedCompletionDate <= :upTo")
+    LocalDate findNextPlannedCompletionDate(@Param("status") ProductionOrderStatus status,
+                                            @Param("after") LocalDate after,
+                                            @Param("upTo") LocalDate upTo);
+
+    /** Raw material requirements of the orders in {@code status}, due on their start date. */
+    @Query("select o.id as sourceId, m.rawMaterial.id as rawMaterialId, m.quantity as quantity, o.startDate as date " +
+            "from ProductionOrderMaterial m join m.productionOrder o where o.status = :status")
+    List<MaterialFlow> findMaterialFlowsByStatus(@Param("status") ProductionOrderStatus status);
+
+    @Query("select o.id as sourceId, m.rawMaterial.id as rawMaterialId, m.quantity as quantity, o.startDate as date " +
+            "from ProductionOrderMaterial m join m.productionOrder o where o.status = :status and o.id in :ids")
+    List<MaterialFlow> findMaterialFlowsByStatusAndIdIn(@Param("status") ProductionOrderStatus status,
+                                                        @Param("ids") Collection<Long> ids);
+
+    /** Expected output of the orders in {@code statuses}, due on their planned completion date. */
+    @Query("select o.id as sourceId, p.product.id as productId, p.quantity as quantity, o.plannedCompletionDate as date " +
+            "from ProductionOrderProduct p join p.productionOrder o where o.status in :statuses")
+    List<ProductFlow> findProductFlowsByStatusIn(@Param("statuses") Collection<ProductionOrderStatus> statuses);
+
+    @Query("select o.id as sourceId, p.product.id as productId, p.quantity as quantity, o.plannedCompletionDate as date " +
+            "from ProductionOrderProduct p join p.productionOrder o where o.status in :statuses and o.id in :ids")
+    List<ProductFlow> findProductFlowsByStatusInAndIdIn(@Param("statuses") Collection<ProductionOrderStatus> statuses,
+                                                        @Param("ids") Collection<Long> ids);
 }
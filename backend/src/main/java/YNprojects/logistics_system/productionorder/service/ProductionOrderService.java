@@ -4,11 +4,15 @@ import YNprojects.logistics_system.alert.entity.AlertSeverity;
 import YNprojects.logistics_system.alert.entity.AlertType;
 import YNprojects.logistics_system.alert.entity.EntityType;
 import YNprojects.logistics_system.alert.service.AlertService;
+import YNprojects.logistics_system.events.ProductionOrderStatusChangedEvent;
+import YNprojects.logistics_system.exceptions.InsufficientStockException;
 import YNprojects.logistics_system.exceptions.ResourceNotFoundException;
+import YNprojects.logistics_system.inventory.dto.StockChange;
+import YNprojects.logistics_system.inventory.entity.MovementCause;
+import YNprojects.logistics_system.inventory.service.InventoryEngine;
+import YNprojects.logistics_system.inventory.service.InventoryLockManager;
 import YNprojects.logistics_system.product.entity.Product;
 import YNprojects.logistics_system.product.repository.ProductRepo;
-import YNprojects.logistics_system.productinventory.entities.ProductInventory;
-import YNprojects.logistics_system.productinventory.repository.ProductInventoryRepo;
 import YNprojects.logistics_system.productionorder.dto.ProductionOrderDto;
 import YNprojects.logistics_system.productionorder.entity.ProductionOrder;
 import YNprojects.logistics_system.productionorder.entity.ProductionOrderMaterial;
@@ -18,18 +22,15 @@ import YNprojects.logistics_system.productionorder.mapper.ProductionOrderMapper;
 import YNprojects.logistics_system.productionorder.repository.ProductionOrderRepo;
 import YNprojects.logistics_system.rawmaterial.entity.RawMaterial;
 import YNprojects.logistics_system.rawmaterial.repository.RawMaterialRepo;
-import YNprojects.logistics_system.rawmaterialinventory.entity.RawMaterialInventory;
-import YNprojects.logistics_system.rawmaterialinventory.repository.RawMaterialInventoryRepo;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,15 +38,19 @@ import java.util.stream.Collectors;
 public class ProductionOrderService {
 
     private final ProductionOrderRepo productionOrderRepo;
-    private final RawMaterialInventoryRepo rawMaterialInventoryRepo;
-    private final ProductInventoryRepo productInventoryRepo;
     private final ProductRepo productRepo;
     private final RawMaterialRepo rawMaterialRepo;
     private final AlertService alertService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InventoryEngine inventoryEngine;
+    private final InventoryLockManager inventoryLockManager;
 
 
-    @Transactional
     public ProductionOrder createProductionOrder(ProductionOrderDto dto) {
+        return inventoryLockManager.inTransaction(() -> doCreateProductionOrder(dto));
+    }
+
+    private ProductionOrder doCreateProductionOrder(ProductionOrderDto dto) {
         if (dto == null) {
             throw new IllegalArgumentException("ProductionOrderDto cannot be null");
         }
@@ -59,15 +64,21 @@ public class ProductionOrderService {
         // Map DTO -> entity (shallow mapping; items currently contain placeholder RawMaterial/Product with only IDs)
         ProductionOrder order = ProductionOrderMapper.toEntity(dto);
 
-        // Resolve and set full RawMaterial entities for each ProductionOrderMaterial
+        // Resolve and set full RawMaterial entities for each ProductionOrderMaterial, all in one query
         if (order.getRawMaterials() != null) {
+            Set<Long> rawIds = new HashSet<>();
             for (ProductionOrderMaterial item : order.getRawMaterials()) {
                 if (item.getRawMaterial() == null || item.getRawMaterial().getId() == null) {
                     throw new IllegalArgumentException("Each production order material must include rawMaterialId");
                 }
+                rawIds.add(item.getRawMaterial().getId());
+            }
+            Map<Long, RawMaterial> raws = rawMaterialRepo.findAllById(rawIds).stream()
+                    .collect(Collectors.toMap(RawMaterial::getId, rm -> rm));
+            for (ProductionOrderMaterial item : order.getRawMaterials()) {
                 Long rawId = item.getRawMaterial().getId();
-                RawMaterial rm = rawMaterialRepo.findById(rawId)
-                        .orElseThrow(() -> new RuntimeException("RawMaterial not found with id: " + rawId));
+                RawMaterial rm = raws.get(rawId);
+                if (rm == null) throw new RuntimeException("RawMaterial not found with id: " + rawId);
                 item.setRawMaterial(rm);
 
                 // ensure back-reference is set (mapper should already do this but make sure)
@@ -104,15 +115,15 @@ public class ProductionOrderService {
 
         order.setStatus(ProductionOrderStatus.PLANNED);
         ProductionOrder saved = productionOrderRepo.save(order);
-        Long orderId = saved.getId();
-        if(!order.getStartDate().isAfter(LocalDate.now())) {
-            changeStatus(orderId, ProductionOrderStatus.IN_PROGRESS);
-            if( order.getPlannedCompletionDate()!=null && !order.getPlannedCompletionDate().isAfter(LocalDate.now())) {
-                changeStatus(orderId,ProductionOrderStatus.COMPLETED);
+        eventPublisher.publishEvent(new ProductionOrderStatusChangedEvent(saved.getId(), null, ProductionOrderStatus.PLANNED));
+        // The saved entity is already managed with all its lines: transition it directly instead of reloading it
+        if(!saved.getStartDate().isAfter(LocalDate.now())) {
+            transition(saved, ProductionOrderStatus.IN_PROGRESS);
+            if( saved.getPlannedCompletionDate()!=null && !saved.getPlannedCompletionDate().isAfter(LocalDate.now())) {
+                transition(saved, ProductionOrderStatus.COMPLETED);
             }
         }
-        ProductionOrder created = productionOrderRepo.findById(orderId).orElseThrow();
-        return created;
+        return saved;
     }
 
 
@@ -125,11 +136,15 @@ public class ProductionOrderService {
      * Changes the status of a production order while enforcing allowed transitions
      * and updating inventories in a safe transactional way.
      */
-    @Transactional
     public ProductionOrder changeStatus(Long orderId, ProductionOrderStatus targetStatus) {
-        ProductionOrder order = productionOrderRepo.findById(orderId)
-                .orElseThrow(() -> new IllegalArgumentException("Production order not found: " + orderId));
+        return inventoryLockManager.inTransaction(() -> {
+            ProductionOrder order = productionOrderRepo.findWithLinesById(orderId)
+                    .orElseThrow(() -> new IllegalArgumentException("Production order not found: " + orderId));
+            return transition(order, targetStatus);
+        });
+    }
 
+    private ProductionOrder transition(ProductionOrder order, ProductionOrderStatus targetStatus) {
         ProductionOrderStatus current = order.getStatus();
         if (current == targetStatus) return order; // no-op
 
@@ -160,7 +175,9 @@ public class ProductionOrderService {
         }
 
         // Persist changes
-        return productionOrderRepo.save(order);
+        ProductionOrder saved = productionOrderRepo.save(order);
+        eventPublisher.publishEvent(new ProductionOrderStatusChangedEvent(saved.getId(), current, saved.getStatus()));
+        return saved;
     }
 
     private boolean isAllowedTransition(ProductionOrderStatus from, ProductionOrderStatus to) {
@@ -186,6 +203,7 @@ public class ProductionOrderService {
             throw new IllegalStateException("Production order has no raw materials defined.");
         }
 
+        List<StockChange> consumed = new ArrayList<>();
         for (ProductionOrderMaterial item : order.getRawMaterials()) {
             RawMaterial raw = item.getRawMaterial();
             if (raw == null || raw.getId() == null) {
@@ -193,43 +211,22 @@ public class ProductionOrderService {
             }
             double required = item.getQuantity();
             if (required <= 0) throw new IllegalArgumentException("Invalid required quantity: " + required);
-
-            // IMPORTANT: repository method must lock the row (PESSIMISTIC_WRITE)
-            RawMaterialInventory inventory = rawMaterialInventoryRepo
-                    .findByRawMaterial(raw)
-                    .orElseThrow(() -> new IllegalStateException("No inventory for raw material: " + raw.getName()));
-
-            if (inventory.getQuantity() < required) {
-                cancelPlanned(order);
-                alertService.createIfNotExistsWithMessage(
-                        AlertType.RAW_MATERIAL_SHORTAGE,
-                        AlertSeverity.CRITICAL,
-                        EntityType.PRODUCTION_ORDER,
-                        order.getId(),
-                        "There aren't enough raw materials for this order!"
-                );
-                return;
-            }
+            consumed.add(StockChange.rawMaterial(raw.getId(), -required, MovementCause.PRODUCTION_ORDER, order.getId()));
         }
 
-        // Reserve/deduct each raw material (with locking at repo level)
-        for (ProductionOrderMaterial item : order.getRawMaterials()) {
-            RawMaterial raw = item.getRawMaterial();
-            double required = item.getQuantity();
-
-            // IMPORTANT: repository method must lock the row (PESSIMISTIC_WRITE)
-            RawMaterialInventory inventory = rawMaterialInventoryRepo
-                    .findByRawMaterial(raw)
-                    .orElseThrow();
-
-            inventory.setQuantity(inventory.getQuantity() - required);
-            rawMaterialInventoryRepo.save(inventory);
-            if (inventory.getQuantity() <= inventory.getReorderThreshold()) {
-                alertService.createIfNotExists(AlertType.RAW_MATERIAL_SHORTAGE,
-                        AlertSeverity.CRITICAL,
-                        EntityType.RAW_MATERIAL_INVENTORY,
-                        inventory.getId());
-            }
+        // Reserve/deduct every raw material at once, or none if one of them is short
+        try {
+            inventoryEngine.apply(consumed);
+        } catch (InsufficientStockException e) {
+            cancelPlanned(order);
+            alertService.createIfNotExistsWithMessage(
+                    AlertType.RAW_MATERIAL_SHORTAGE,
+                    AlertSeverity.CRITICAL,
+                    EntityType.PRODUCTION_ORDER,
+                    order.getId(),
+                    "There aren't enough raw materials for this order!"
+            );
+            return;
         }
 
         order.setStatus(ProductionOrderStatus.IN_PROGRESS);
@@ -280,19 +277,7 @@ public class ProductionOrderService {
         double producedQty = produced.getQuantity();
         if (producedQty <= 0) throw new IllegalArgumentException("Invalid produced quantity: " + producedQty);
 
-        // Lock finished product inventory row and update
-        ProductInventory prodInv = productInventoryRepo
-                .findByProduct(product)
-                .orElseThrow(() -> new IllegalStateException("No finished product inventory for product: " + product.getName()));
-
-        prodInv.setQuantity(prodInv.getQuantity() + producedQty);
-        productInventoryRepo.save(prodInv);
-        if(prodInv.getQuantity() > prodInv.getReorderThreshold()) {
-            alertService.resolveByTypeAndEntity(AlertType.LOW_STOCK,
-                    EntityType.PRODUCT_INVENTORY,
-                    prodInv.getId());
-        }
-
+        inventoryEngine.apply(List.of(StockChange.product(product.getId(), producedQty, MovementCause.PRODUCTION_ORDER, order.getId())));
 
         order.setStatus(ProductionOrderStatus.COMPLETED);
         if(order.getStartDate().isAfter(LocalDate.now())){
@@ -311,22 +296,11 @@ public class ProductionOrderService {
         }
 
         // Return raw materials
+        List<StockChange> returned = new ArrayList<>();
         for (ProductionOrderMaterial item : order.getRawMaterials()) {
-            RawMaterial raw = item.getRawMaterial();
-            double quantity = item.getQuantity();
-
-            RawMaterialInventory inventory = rawMaterialInventoryRepo
-                    .findByRawMaterial(raw)
-                    .orElseThrow(() -> new IllegalStateException("No inventory for raw material: " + raw.getName()));
-
-            inventory.setQuantity(inventory.getQuantity() + quantity);
-            rawMaterialInventoryRepo.save(inventory);
-            if (inventory.getQuantity() > inventory.getReorderThreshold()) {
-                alertService.resolveByTypeAndEntity(AlertType.RAW_MATERIAL_SHORTAGE,
-                        EntityType.RAW_MATERIAL_INVENTORY,
-                        inventory.getId());
-            }
+            returned.add(StockChange.rawMaterial(item.getRawMaterial().getId(), item.getQuantity(), MovementCause.PRODUCTION_ORDER, order.getId()));
         }
+        inventoryEngine.apply(returned);
 
         order.setStatus(ProductionOrderStatus.CANCELLED);
         order.setPlannedCompletionDate(null);
@@ -349,10 +323,13 @@ public class ProductionOrderService {
         return productionOrderRepo.findAll().stream().map(ProductionOrderMapper::toDto).collect(Collectors.toList());
     }
 
-    @Transactional
     public ProductionOrder reverseCompletedOrder(Long orderId) {
-        // 1) Load & lock the production order
-        ProductionOrder order = productionOrderRepo.findById(orderId)
+        return inventoryLockManager.inTransaction(() -> doReverseCompletedOrder(orderId));
+    }
+
+    private ProductionOrder doReverseCompletedOrder(Long orderId) {
+        // 1) Load the production order with its lines
+        ProductionOrder order = productionOrderRepo.findWithLinesById(orderId)
                 .orElseThrow(() -> new IllegalArgumentException("Production order not found: " + orderId));
 
         // 2) Only COMPLETED orders can be reversed
@@ -371,67 +348,25 @@ public class ProductionOrderService {
             throw new IllegalStateException("Invalid produced quantity: " + producedQty);
         }
 
-        // 4) Lock finished product inventory and ensure sufficient qty exists to remove
-        ProductInventory finInv = productInventoryRepo
-                .findByProduct(produced.getProduct())
-                .orElseThrow(() -> new IllegalStateException("No finished product inventory for product id: " + productId));
-
-        if (finInv.getQuantity() < producedQty) {
-            throw new IllegalStateException(String.format(
-                    "Cannot reverse: finished product (id=%d) has insufficient stock. Required to remove: %s, Available: %s",
-                    productId, producedQty, finInv.getQuantity()));
-        }
-
-        // 5) Aggregate raw-material quantities to return and build deterministic lock order
-        // Use TreeMap to lock raw materials in ascending id order (reduce deadlock risk)
-        java.util.Map<Long, Double> rawTotals = new java.util.TreeMap<>();
+        // 4) Remove the finished goods and return the raw materials in one engine call:
+        // every row is checked (the finished product must still be in stock) before any is changed
+        List<StockChange> changes = new ArrayList<>();
+        changes.add(StockChange.product(productId, -producedQty, MovementCause.PRODUCTION_ORDER, order.getId()));
         if (order.getRawMaterials() != null) {
             for (ProductionOrderMaterial m : order.getRawMaterials()) {
                 if (m.getRawMaterial() == null || m.getRawMaterial().getId() == null) {
                     throw new IllegalStateException("Production order contains an invalid raw material entry.");
                 }
-                rawTotals.merge(m.getRawMaterial().getId(), m.getQuantity(), Double::sum);
+                changes.add(StockChange.rawMaterial(m.getRawMaterial().getId(), m.getQuantity(), MovementCause.PRODUCTION_ORDER, order.getId()));
             }
         }
-
-        // 6) Lock raw material inventory rows (in sorted order)
-        java.util.Map<Long, RawMaterialInventory> lockedRawInvs = new java.util.HashMap<>();
-        for (java.util.Map.Entry<Long, Double> e : rawTotals.entrySet()) {
-            Long rawId = e.getKey();
-            RawMaterialInventory rawInv = rawMaterialInventoryRepo
-                    .findByRawMaterial(rawMaterialRepo.findById(rawId).orElseThrow())
-                    .orElseThrow(() -> new IllegalStateException("No raw material inventory for id: " + rawId));
-            lockedRawInvs.put(rawId, rawInv);
-        }
-
-        // 7) All checks passed. Perform inventory changes:
-        // 7.a Subtract produced finished goods
-        finInv.setQuantity(finInv.getQuantity() - producedQty);
-        productInventoryRepo.save(finInv);
-        if(finInv.getQuantity() <= finInv.getReorderThreshold()) {
-            alertService.createIfNotExists(AlertType.LOW_STOCK,
-                    AlertSeverity.WARNING,
-                    EntityType.PRODUCT_INVENTORY,
-                    finInv.getId());
-        }
-
-        // 7.b Return raw materials back to inventory
-        for (java.util.Map.Entry<Long, Double> e : rawTotals.entrySet()) {
-            Long rawId = e.getKey();
-            Double qtyToReturn = e.getValue();
-            RawMaterialInventory rawInv = lockedRawInvs.get(rawId);
-
-            rawInv.setQuantity(rawInv.getQuantity() + qtyToReturn);
-            rawMaterialInventoryRepo.save(rawInv);
-            if (rawInv.getQuantity() > rawInv.getReorderThreshold()) {
-                alertService.resolveByTypeAndEntity(AlertType.RAW_MATERIAL_SHORTAGE,
-                        EntityType.RAW_MATERIAL_INVENTORY,
-                        rawInv.getId());
-            }
-
+        try {
+            inventoryEngine.apply(changes);
+        } catch (InsufficientStockException e) {
+            throw new IllegalStateException("Cannot reverse: " + e.getMessage());
         }
 
-        // 8) Mark order as REVERSED and record audit info (ensure fields exist on entity)
+        // 5) Mark order as REVERSED and record audit info (ensure fields exist on entity)
         order.setStatus(ProductionOrderStatus.REVERSED);
         alertService.createIfNotExists(
                 AlertType.PRODUCTION_REVERSED,
@@ -442,7 +377,9 @@ public class ProductionOrderService {
 
 
         // Persist and return
-        return productionOrderRepo.save(order);
+        ProductionOrder saved = productionOrderRepo.save(order);
+        eventPublisher.publishEvent(new ProductionOrderStatusChangedEvent(saved.getId(), ProductionOrderStatus.COMPLETED, saved.getStatus()));
+        return saved;
     }
 
 
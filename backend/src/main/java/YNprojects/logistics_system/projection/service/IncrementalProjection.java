@@ -0,0 +1,181 @@
+package YNprojects.logistics_system.projection.service;
+
+import YNprojects.logistics_system.inventory.dto.InventoryBalance;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import YNprojects.logistics_system.inventory.service.InventoryEngine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * State served from memory, built from the database and then kept up to date from committed events.
+ *
+ * A subclass declares one {@link Dirty} set per kind of row it projects and marks the rows named by
+ * events. {@link #flush} drains the sets and reloads those rows, {@link #rebuild} reloads everything;
+ * both load outside the state lock and then swap the result in under it. The flush lock serializes
+ * the loads, so an older load never lands after a newer one; the state lock guards the state and is
+ * only held for in-memory work, so {@link #read}s do not wait for the database.
+ *
+ * Each projection flushes and rebuilds on a thread of its own ({@link #schedule}), so a slow rebuild
+ * never holds up the jobs on Spring's scheduling thread, nor they the flush.
+ */
+@Slf4j
+public abstract class IncrementalProjection {
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ReentrantLock stateLock = new ReentrantLock();
+    private final List<Dirty> dirtySets = new ArrayList<>();
+    private volatile boolean built;
+    private ScheduledExecutorService timer;
+
+    /** Name for the logs, such as "MRP ledgers". */
+    protected abstract String name();
+
+    /** Size of the state for the logs. Holds the state lock. */
+    protected abstract String summary();
+
+    /**
+     * Drains the dirty sets and loads their rows. Returns what swaps them into the state,
+     * run under the state lock.
+     */
+    protected abstract Runnable loadChanges();
+
+    /** Loads every row. Returns what replaces the whole state with them, run under the state lock. */
+    protected abstract Runnable loadAll();
+
+    /** A set of rows to reload, registered with the projection; call from a field initializer. */
+    protected final Dirty dirtySet() {
+        Dirty dirty = new Dirty();
+        dirtySets.add(dirty);
+        return dirty;
+    }
+
+    /**
+     * Rebuilds now and every {@code rebuildMillis}, and flushes every {@code flushMillis}, on a thread
+     * named {@code threadName}. Call once the projection is constructed.
+     */
+    protected final void schedule(String threadName, long flushMillis, long rebuildMillis) {
+        timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name(threadName).daemon().factory());
+        timer.scheduleWithFixedDelay(() -> guarded("rebuild", this::rebuild), 0, rebuildMillis, TimeUnit.MILLISECONDS);
+        timer.scheduleWithFixedDelay(() -> guarded("flush", this::flush), flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (timer != null) timer.shutdownNow();
+    }
+
+    /** Reloads the rows changed since the last flush. */
+    public void flush() {
+        if (!built) return;
+        flushLock.lock();
+        try {
+            if (!isDirty()) return;
+            apply(loadChanges());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /** Builds the state from scratch; also corrects what events missed, such as writes on other nodes. */
+    public void rebuild() {
+        flushLock.lock();
+        try {
+            long started = System.currentTimeMillis();
+            // the load below covers every change marked so far
+            dirtySets.forEach(Dirty::clear);
+            Runnable replace = loadAll();
+            apply(() -> {
+                replace.run();
+                built = true;
+                log.info("{} rebuilt in {} ms: {}", name(), System.currentTimeMillis() - started, summary());
+            });
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /** Brings the state up to date and reads it under the state lock. */
+    protected <T> T read(Supplier<T> reader) {
+        if (!built) rebuild();
+        else if (isDirty()) flush();
+        stateLock.lock();
+        try {
+            return reader.get();
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /** Runs {@code load} on {@code ids} in chunks of at most {@code chunkSize}. */
+    protected static <T> List<T> inChunks(List<Long> ids, int chunkSize, Function<List<Long>, List<T>> load) {
+        List<T> rows = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            rows.addAll(load.apply(ids.subList(from, Math.min(ids.size(), from + chunkSize))));
+        }
+        return rows;
+    }
+
+    /** Quantity on hand per item, as the inventory engine sees it. */
+    protected static Map<Long, Double> onHand(List<InventoryBalance> balances, InventoryEngine inventoryEngine,
+                                              StockItemType itemType) {
+        Map<Long, Double> onHand = new HashMap<>();
+        balances.forEach(balance -> onHand.put(balance.getItemId(),
+                inventoryEngine.quantity(itemType, balance.getItemId(), balance.getQuantity())));
+        return onHand;
+    }
+
+    /** A failed run is logged; throwing would cancel the periodic task. */
+    private void guarded(String task, Runnable run) {
+        try {
+            run.run();
+        } catch (RuntimeException e) {
+            log.error("{} {} failed", name(), task, e);
+        }
+    }
+
+    private void apply(Runnable change) {
+        stateLock.lock();
+        try {
+            change.run();
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    private boolean isDirty() {
+        return dirtySets.stream().anyMatch(dirty -> !dirty.ids.isEmpty());
+    }
+
+    /** Ids of the rows of one kind changed since the last flush. */
+    protected static final class Dirty {
+
+        private final Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        public void mark(Long id) {
+            ids.add(id);
+        }
+
+        /** Takes the marked ids; ids marked meanwhile are left for the next flush. */
+        public List<Long> drain() {
+            List<Long> drained = new ArrayList<>();
+            for (Iterator<Long> it = ids.iterator(); it.hasNext(); ) {
+                drained.add(it.next());
+                it.remove();
+            }
+            return drained;
+        }
+
+        private void clear() {
+            ids.clear();
+        }
+    }
+}
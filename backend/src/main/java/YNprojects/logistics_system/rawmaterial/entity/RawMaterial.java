@@ -1,11 +1,12 @@
 package YNprojects.logistics_system.rawmaterial.entity;
 
-import YNprojects.logistics_system.rawmaterialinventory.entity.RawMaterialInventory;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 
@@ -14,6 +15,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "raw-material")
 public class  RawMaterial {
 
     @Id
@@ -26,7 +29,4 @@ public class  RawMaterial {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
-    @OneToOne(mappedBy = "rawMaterial")
-    private RawMaterialInventory rawMaterialInventory;
-
 }
@@ -1,8 +1,11 @@
 package YNprojects.logistics_system.rawmaterialinventory.controller;
 
+import YNprojects.logistics_system.inventory.dto.InventorySort;
 import YNprojects.logistics_system.rawmaterialinventory.dto.RawMaterialInventoryDto;
+import YNprojects.logistics_system.rawmaterialinventory.dto.RawMaterialInventoryPageDto;
 import YNprojects.logistics_system.rawmaterialinventory.service.RawMaterialInventoryService;
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -21,6 +24,14 @@ public class RawMaterialInventoryController {
         return ResponseEntity.ok(rawMaterialInventoryService.getAllRawMaterialInventory());
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<RawMaterialInventoryPageDto> pageRawMaterialInventory(@RequestParam(defaultValue = "0") int page,
+                                                                                @RequestParam(defaultValue = "50") int size,
+                                                                                @RequestParam(defaultValue = "COVERAGE") InventorySort sort,
+                                                                                @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
+        return ResponseEntity.ok(rawMaterialInventoryService.getRawMaterialInventoryPage(page, size, sort, direction));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<RawMaterialInventoryDto> getRawMaterialInventoryById(@PathVariable Long id) {
         return ResponseEntity.ok(rawMaterialInventoryService.getRawMaterialInventoryById(id));
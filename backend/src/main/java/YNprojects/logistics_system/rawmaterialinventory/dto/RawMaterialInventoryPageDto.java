@@ -0,0 +1,20 @@
+package YNprojects.logistics_system.rawmaterialinventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/** One page of raw material inventory rows. No total is counted; {@code hasNext} tells whether another page follows. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class RawMaterialInventoryPageDto {
+
+    private List<RawMaterialInventorySummaryDto> items;
+    private int page;
+    private boolean hasNext;
+}
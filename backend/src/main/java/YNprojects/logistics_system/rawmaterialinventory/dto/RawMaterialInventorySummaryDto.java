@@ -0,0 +1,26 @@
+package YNprojects.logistics_system.rawmaterialinventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/** Flat row of the raw material inventory page, read with its raw material in one statement. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class RawMaterialInventorySummaryDto {
+
+    private Long id;
+    private Double quantity;
+    private Double reorderThreshold;
+    private LocalDateTime lastUpdated;
+
+    private Long rawMaterialId;
+    private String rawMaterialName;
+    private String rawMaterialSku;
+    private String rawMaterialUnit;
+}
@@ -1,18 +1,80 @@
 package YNprojects.logistics_system.rawmaterialinventory.repository;
 
+import YNprojects.logistics_system.inventory.dto.InventoryBalance;
 import YNprojects.logistics_system.rawmaterial.entity.RawMaterial;
+import YNprojects.logistics_system.rawmaterialinventory.dto.RawMaterialInventorySummaryDto;
 import YNprojects.logistics_system.rawmaterialinventory.entity.RawMaterialInventory;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface RawMaterialInventoryRepo extends JpaRepository<RawMaterialInventory, Long> {
 
+    // The full list reads every row with its raw material in one statement instead of one select per row.
+    @Override
+    @Query("select i from RawMaterialInventory i join fetch i.rawMaterial")
+    List<RawMaterialInventory> findAll();
+
+    /**
+     * Page of flat rows, sorted by {@link YNprojects.logistics_system.inventory.dto.InventorySort}
+     * ({@code i} is the inventory row, {@code item} the raw material). A slice reads one extra row instead of counting.
+     */
+    @Query("select new YNprojects.logistics_system.rawmaterialinventory.dto.RawMaterialInventorySummaryDto(" +
+            "i.id, i.quantity, i.reorderThreshold, i.lastUpdated, item.id, item.name, item.sku, item.unit) " +
+            "from RawMaterialInventory i join i.rawMaterial item")
+    Slice<RawMaterialInventorySummaryDto> findSummaries(Pageable pageable);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<RawMaterialInventory> findByRawMaterial(RawMaterial rawMaterial);
 
+    /** Unlocked read, for the in-memory inventory engine. */
+    Optional<RawMaterialInventory> findByRawMaterialId(Long rawMaterialId);
+
+    @Query("select i.rawMaterial.id from RawMaterialInventory i where i.rawMaterial.id in :rawMaterialIds")
+    List<Long> findRawMaterialIdsWithInventory(@Param("rawMaterialIds") Collection<Long> rawMaterialIds);
+
+    /** Write-behind of a balance kept in memory; leaves the reorder threshold alone. */
+    @Modifying
+    @Query("update RawMaterialInventory i set i.quantity = :quantity, i.lastUpdated = :now, i.version = i.version + 1 where i.id = :id")
+    int updateQuantity(@Param("id") Long id, @Param("quantity") double quantity, @Param("now") LocalDateTime now);
+
+    /** Threshold of a balance kept in memory; leaves the quantity to the write-behind. */
+    @Modifying
+    @Query("update RawMaterialInventory i set i.reorderThreshold = :threshold, i.version = i.version + 1 where i.id = :id")
+    int updateReorderThreshold(@Param("id") Long id, @Param("threshold") double threshold);
+
+    /** Rows at or below a positive reorder threshold, the same rule the dashboard applies. */
+    @Query("select count(i) from RawMaterialInventory i where i.reorderThreshold > 0 and i.quantity <= i.reorderThreshold")
+    long countLowStock();
+
+    /** Locks the inventory rows of several raw materials in id order, so concurrent batches cannot deadlock. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from RawMaterialInventory i where i.rawMaterial.id in :rawMaterialIds order by i.id")
+    List<RawMaterialInventory> findAllByRawMaterialIdInForUpdate(@Param("rawMaterialIds") Collection<Long> rawMaterialIds);
+
+    @Query("select i.rawMaterial.id as itemId, i.id as inventoryId, i.quantity as quantity, i.reorderThreshold as reorderThreshold from RawMaterialInventory i")
+    List<InventoryBalance> findAllBalances();
+
+    /**
+     * Adds {@code delta} in a single statement, only if the quantity does not go below zero.
+     * Returns 0 when it would, or when the raw material has no inventory row.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update RawMaterialInventory i set i.quantity = i.quantity + :delta, i.lastUpdated = :now, i.version = i.version + 1 " +
+            "where i.rawMaterial.id = :rawMaterialId and i.quantity + :delta >= 0")
+    int addQuantity(@Param("rawMaterialId") Long rawMaterialId, @Param("delta") double delta, @Param("now") LocalDateTime now);
+
+    @Query("select i.rawMaterial.id as itemId, i.id as inventoryId, i.quantity as quantity, i.reorderThreshold as reorderThreshold " +
+            "from RawMaterialInventory i where i.rawMaterial.id in :rawMaterialIds")
+    List<InventoryBalance> findBalancesByRawMaterialIdIn(@Param("rawMaterialIds") Collection<Long> rawMaterialIds);
 }
@@ -1,16 +1,22 @@
 package YNprojects.logistics_system.rawmaterialinventory.service;
 
-import YNprojects.logistics_system.alert.entity.AlertSeverity;
-import YNprojects.logistics_system.alert.entity.AlertType;
-import YNprojects.logistics_system.alert.entity.EntityType;
-import YNprojects.logistics_system.alert.service.AlertService;
 import YNprojects.logistics_system.exceptions.ResourceNotFoundException;
+import YNprojects.logistics_system.inventory.dto.InventorySort;
+import YNprojects.logistics_system.inventory.dto.StockLevel;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import YNprojects.logistics_system.inventory.service.InventoryEngine;
 import YNprojects.logistics_system.rawmaterialinventory.mapper.RawMaterialInventoryMapper;
 import YNprojects.logistics_system.rawmaterial.entity.RawMaterial;
 import YNprojects.logistics_system.rawmaterialinventory.dto.RawMaterialInventoryDto;
+import YNprojects.logistics_system.rawmaterialinventory.dto.RawMaterialInventoryPageDto;
+import YNprojects.logistics_system.rawmaterialinventory.dto.RawMaterialInventorySummaryDto;
 import YNprojects.logistics_system.rawmaterialinventory.entity.RawMaterialInventory;
 import YNprojects.logistics_system.rawmaterialinventory.repository.RawMaterialInventoryRepo;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,23 +25,43 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class RawMaterialInventoryService {
 
     private final RawMaterialInventoryRepo rawMaterialInventoryRepo;
-    private final AlertService alertService;
+    private final InventoryEngine inventoryEngine;
+
+    @Value("${inventory.page.max-size:200}")
+    private int maxPageSize;
 
     public List<RawMaterialInventoryDto> getAllRawMaterialInventory() {
         return rawMaterialInventoryRepo.findAll()
                 .stream()
-                .map(RawMaterialInventoryMapper::toRawMaterialInventoryDto)
+                .map(this::toDto)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * One page of flat rows, read in a single statement. Quantities kept in memory by the inventory engine
+     * are applied to the rows, but the order is the one of the stored quantities.
+     */
+    @Transactional(readOnly = true)
+    public RawMaterialInventoryPageDto getRawMaterialInventoryPage(int page, int size, InventorySort sort, Sort.Direction direction) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must be >= 0");
+        }
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+        }
+        Slice<RawMaterialInventorySummaryDto> rows = rawMaterialInventoryRepo.findSummaries(PageRequest.of(page, size, sort.toSort(direction)));
+        rows.forEach(row -> row.setQuantity(inventoryEngine.quantity(StockItemType.RAW_MATERIAL, row.getRawMaterialId(), row.getQuantity())));
+        return new RawMaterialInventoryPageDto(rows.getContent(), page, rows.hasNext());
+    }
+
     public RawMaterialInventoryDto getRawMaterialInventoryById(Long id) {
         RawMaterialInventory rawMaterialInventory = rawMaterialInventoryRepo.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("This raw material inventory item doesn't exist."));
-        return RawMaterialInventoryMapper.toRawMaterialInventoryDto(rawMaterialInventory);
+        return toDto(rawMaterialInventory);
     }
 
     public RawMaterialInventory createRawMaterialInventory(RawMaterial rawMaterial) {
@@ -49,24 +75,23 @@ public class RawMaterialInventoryService {
 
     @Transactional
     public RawMaterialInventoryDto updateRawMaterialInventory(RawMaterialInventoryDto rawMaterialInventoryDto) {
-        RawMaterialInventory rawMaterialInventory = rawMaterialInventoryRepo.findById(rawMaterialInventoryDto.getId())
-                .orElseThrow(() -> new ResourceNotFoundException("This raw material inventory item doesn't exist."));
-        rawMaterialInventory.setLastUpdated(LocalDateTime.now());
-        rawMaterialInventory.setQuantity(rawMaterialInventoryDto.getQuantity());
-        rawMaterialInventory.setReorderThreshold(rawMaterialInventoryDto.getReorderThreshold());
-
-        if (rawMaterialInventory.getQuantity() <= rawMaterialInventory.getReorderThreshold()) {
-            alertService.createIfNotExists(AlertType.RAW_MATERIAL_SHORTAGE,
-                    AlertSeverity.CRITICAL,
-                    EntityType.RAW_MATERIAL_INVENTORY,
-                    rawMaterialInventory.getId());
-        } else {
-            alertService.resolveByTypeAndEntity(AlertType.RAW_MATERIAL_SHORTAGE,
-                    EntityType.RAW_MATERIAL_INVENTORY,
-                    rawMaterialInventory.getId());
-        }
+        RawMaterialInventory rawMaterialInventory = rawMaterialInventoryRepo.findById(rawMaterialInventoryDto.getId()).orElseThrow(
+                ()->new ResourceNotFoundException("This raw material inventory item doesn't exist.")
+        );
+        // quantity, threshold alerts and the change event all go through the inventory engine, which also
+        // writes the row; the entity is left alone so it does not overwrite what the engine keeps in memory
+        StockLevel level = inventoryEngine.set(StockItemType.RAW_MATERIAL, rawMaterialInventory.getRawMaterial().getId(),
+                rawMaterialInventoryDto.getQuantity(), rawMaterialInventoryDto.getReorderThreshold());
+        RawMaterialInventoryDto dto = RawMaterialInventoryMapper.toRawMaterialInventoryDto(rawMaterialInventory);
+        dto.setQuantity(level.getQuantity());
+        dto.setReorderThreshold(level.getReorderThreshold());
+        return dto;
+    }
 
-        RawMaterialInventory saved = rawMaterialInventoryRepo.save(rawMaterialInventory);
-        return RawMaterialInventoryMapper.toRawMaterialInventoryDto(saved);
+    /** The engine may hold a newer quantity than the row (write-behind). */
+    private RawMaterialInventoryDto toDto(RawMaterialInventory rawMaterialInventory) {
+        RawMaterialInventoryDto dto = RawMaterialInventoryMapper.toRawMaterialInventoryDto(rawMaterialInventory);
+        dto.setQuantity(inventoryEngine.quantity(StockItemType.RAW_MATERIAL, rawMaterialInventory.getRawMaterial().getId(), rawMaterialInventory.getQuantity()));
+        return dto;
     }
 }
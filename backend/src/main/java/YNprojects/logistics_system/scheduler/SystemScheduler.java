@@ -1,120 +1,247 @@
 package YNprojects.logistics_system.scheduler;
 
 
+import YNprojects.logistics_system.alert.entity.AlertRetentionPolicy;
+import YNprojects.logistics_system.alert.entity.AlertSeverity;
 import YNprojects.logistics_system.alert.entity.AlertType;
 import YNprojects.logistics_system.alert.entity.EntityType;
 import YNprojects.logistics_system.alert.repository.AlertRepo;
-import YNprojects.logistics_system.productionorder.entity.ProductionOrder;
+import YNprojects.logistics_system.alert.service.AlertRetentionService;
+import YNprojects.logistics_system.alert.service.AlertService;
+import YNprojects.logistics_system.events.ShipmentStatusChangedEvent;
 import YNprojects.logistics_system.productionorder.entity.ProductionOrderStatus;
 import YNprojects.logistics_system.productionorder.repository.ProductionOrderRepo;
 import YNprojects.logistics_system.productionorder.service.ProductionOrderService;
-import YNprojects.logistics_system.shipment.dto.ChangeShipmentStatusDto;
-import YNprojects.logistics_system.shipment.entity.Shipment;
+import YNprojects.logistics_system.scheduler.dto.StepReport;
+import YNprojects.logistics_system.scheduler.service.ChunkedStepRunner;
+import YNprojects.logistics_system.scheduler.service.LeaderElection;
+import YNprojects.logistics_system.scheduler.service.ParallelStepExecutor;
+import YNprojects.logistics_system.scheduler.service.PartitionCoordinator;
+import YNprojects.logistics_system.scheduler.service.PartitionedStep;
+import YNprojects.logistics_system.scheduler.service.StepGraph;
 import YNprojects.logistics_system.shipment.entity.ShipmentStatus;
 import YNprojects.logistics_system.shipment.repo.ShipmentRepo;
-import YNprojects.logistics_system.shipment.service.ShipmentService;
+import jakarta.annotation.PostConstruct;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
-
+import java.util.OptionalLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Nightly status transitions and alert purges. Alerts are purged as their {@link AlertRetentionPolicy} says.
+ *
+ * Every step runs through {@link ChunkedStepRunner}: rows are read by id with keyset paging and
+ * committed chunk by chunk, with a checkpoint per step and run date so a crashed run can resume.
+ * Transitions pick up every overdue row (due date on or before today), one due date at a time,
+ * so a night the cron did not fire is caught up by the next run.
+ *
+ * The steps form a {@link StepGraph}: each runs after the steps it depends on, the others in
+ * parallel on the {@link ParallelStepExecutor}. Shipment transitions, plain status updates on a
+ * large table, are also split by id range across the scheduler threads, and across the other
+ * nodes when several run.
+ *
+ * Only the node holding the scheduler lease runs the steps ({@link LeaderElection}); the others
+ * run the shipment ranges it hands out ({@link PartitionCoordinator}).
+ */
+@Slf4j
 @AllArgsConstructor
 @Component
 public class SystemScheduler {
 
+    private static final String PO_START = "production-order.planned-to-in-progress";
+    private static final String PO_COMPLETE = "production-order.in-progress-to-completed";
+    private static final String SHIPMENT_DELAY = "shipment.in-transit-to-delayed";
+    private static final String SHIPMENT_DEPART = "shipment.planned-to-in-transit";
+
     private final ShipmentRepo shipmentRepo;
-    private final ShipmentService shipmentService;
     private final ProductionOrderRepo productionOrderRepo;
     private final ProductionOrderService productionOrderService;
     private final AlertRepo alertRepo;
+    private final AlertService alertService;
+    private final AlertRetentionService alertRetentionService;
+    private final ChunkedStepRunner stepRunner;
+    private final Clock clock;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ParallelStepExecutor parallelStepExecutor;
+    private final LeaderElection leaderElection;
+    private final PartitionCoordinator partitionCoordinator;
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    /** Every node knows the partitioned steps, so it can run the ranges the leader hands out. */
+    @PostConstruct
+    public void registerPartitionedSteps() {
+        partitionCoordinator.register(departureStep());
+        partitionCoordinator.register(delayStep());
+    }
 
+    /**
+     * Runs the nightly steps once the application is up when {@code scheduler.catch-up.on-startup}
+     * is set, so a run missed during a deploy does not wait for the next night. The run starts on a
+     * thread of its own, so neither startup nor the other ready listeners wait for it, and like the
+     * nightly run it only goes ahead on the node that holds the scheduler lease.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUpOnStartup(ApplicationReadyEvent event) {
+        if (!event.getApplicationContext().getEnvironment()
+                .getProperty("scheduler.catch-up.on-startup", Boolean.class, false)) {
+            return;
+        }
+        Thread.ofPlatform().name("scheduler-catch-up").daemon().start(() -> {
+            try {
+                auto();
+            } catch (RuntimeException e) {
+                log.error("Startup catch-up run failed", e);
+            }
+        });
+    }
 
-    @Transactional
     @Scheduled(cron = "0 2 0 * * *")
     public void auto(){
-        plannedToInProgressProductionOrder();
-        inProgressToCompletedProductionOrder();
-
-        inTransitToDelayedShipment();
-        plannedToInTransitShipment();
-
-        purgeOldCancelledShipmentAlerts();
-
-        purgeOldCancelledProductionOrderAlerts();
-        purgeOldReversedProductionOrderAlerts();
+        // the startup catch-up may still be running when the cron fires, or the other way round
+        if (!runLock.tryLock()) {
+            log.info("A nightly run is already in progress on node {}, skipping", leaderElection.getNodeId());
+            return;
+        }
+        try {
+            runSteps();
+        } finally {
+            runLock.unlock();
+        }
+    }
 
-        purgeOldRawMaterialShortageAlertsForProductionOrders();
+    private void runSteps() {
+        OptionalLong token = leaderElection.tryLead();
+        if (token.isEmpty()) {
+            log.info("Node {} does not hold the scheduler lease, skipping the nightly run", leaderElection.getNodeId());
+            return;
+        }
+        long started = System.currentTimeMillis();
+
+        StepGraph graph = new StepGraph()
+                .step(PO_START, this::plannedToInProgressProductionOrder)
+                .step(PO_COMPLETE, this::inProgressToCompletedProductionOrder, PO_START)
+                .step(SHIPMENT_DELAY, this::inTransitToDelayedShipment)
+                // a shipment that departs tonight is not checked for delay until tomorrow
+                .step(SHIPMENT_DEPART, this::plannedToInTransitShipment, SHIPMENT_DELAY);
+        for (AlertRetentionPolicy policy : alertRetentionService.getEnabled()) {
+            graph.step(purgeStepName(policy), () -> purgeExpiredAlerts(policy));
+        }
+        List<StepReport> reports = leaderElection.fenced(token.getAsLong(), () -> parallelStepExecutor.run(graph));
+
+        log.info("Nightly run finished in {} ms: {}", System.currentTimeMillis() - started, reports);
     }
 
 
-    @Transactional
-    public void plannedToInTransitShipment() {
-        LocalDate today = LocalDate.now();
-        List<Shipment> plannedShipments = shipmentRepo.findByStatusAndDepartureDate(ShipmentStatus.PLANNED, today);
-        plannedShipments.forEach(shipment -> {
-            ChangeShipmentStatusDto dto = new ChangeShipmentStatusDto(shipment.getId(), ShipmentStatus.IN_TRANSIT);
-            shipmentService.changeShipmentStatus(dto);
-        });
+    public StepReport plannedToInTransitShipment() {
+        LocalDate today = LocalDate.now(clock);
+        return stepRunner.runCatchUp(departureStep(), today,
+                (after, upTo) -> shipmentRepo.findNextDepartureDate(ShipmentStatus.PLANNED, after, upTo));
     }
 
-    @Transactional
-    public void inTransitToDelayedShipment() {
-        LocalDate today = LocalDate.now();
-        List<Shipment> overdue = shipmentRepo
-                .findByStatusAndEstimateArrivalDate(ShipmentStatus.IN_TRANSIT, today);
-        overdue.forEach(shipment -> {
-            ChangeShipmentStatusDto dto = new ChangeShipmentStatusDto(shipment.getId(), ShipmentStatus.DELAYED);
-            shipmentService.changeShipmentStatus(dto);
-        });
+    public StepReport inTransitToDelayedShipment() {
+        LocalDate today = LocalDate.now(clock);
+        return stepRunner.runCatchUp(delayStep(), today,
+                (after, upTo) -> shipmentRepo.findNextEstimateArrivalDate(ShipmentStatus.IN_TRANSIT, after, upTo));
     }
 
-    @Transactional
-    public void plannedToInProgressProductionOrder() {
-        LocalDate today = LocalDate.now();
-        List<ProductionOrder> plannedOrders = productionOrderRepo.findByStatusAndStartDate(ProductionOrderStatus.PLANNED,today);
-        plannedOrders.forEach(productionOrder -> {
-            try {
-                productionOrderService.changeStatus(productionOrder.getId(),ProductionOrderStatus.IN_PROGRESS);
-            } catch (Exception e) {
-                productionOrderService.changeStatus(productionOrder.getId(),ProductionOrderStatus.CANCELLED);
-            }
-        });
+    public StepReport plannedToInProgressProductionOrder() {
+        LocalDate today = LocalDate.now(clock);
+        // Starting an order moves inventory, so it goes through the service one order at a time,
+        // still committed per chunk. An order that cannot start is cancelled on its own.
+        // Not partitioned: parallel ranges would contend for the same inventory rows.
+        return stepRunner.runCatchUp(PO_START, today,
+                (after, upTo) -> productionOrderRepo.findNextStartDate(ProductionOrderStatus.PLANNED, after, upTo),
+                date -> (afterId, limit) -> productionOrderRepo.findIdsByStatusAndStartDate(
+                        ProductionOrderStatus.PLANNED, date, afterId, PageRequest.of(0, limit)),
+                ids -> {
+                    ids.forEach(id -> productionOrderService.changeStatus(id, ProductionOrderStatus.IN_PROGRESS));
+                    return ids.size();
+                },
+                id -> productionOrderService.changeStatus(id, ProductionOrderStatus.CANCELLED));
     }
 
-    @Transactional
-    public void inProgressToCompletedProductionOrder() {
-        LocalDate today = LocalDate.now();
-        List<ProductionOrder> inProgressOrders = productionOrderRepo.findByStatusAndPlannedCompletionDate(ProductionOrderStatus.IN_PROGRESS,today);
-        inProgressOrders.forEach(productionOrder -> {
-            productionOrderService.changeStatus(productionOrder.getId(),ProductionOrderStatus.COMPLETED);
-        });
+    public StepReport inProgressToCompletedProductionOrder() {
+        LocalDate today = LocalDate.now(clock);
+        return stepRunner.runCatchUp(PO_COMPLETE, today,
+                (after, upTo) -> productionOrderRepo.findNextPlannedCompletionDate(ProductionOrderStatus.IN_PROGRESS, after, upTo),
+                date -> (afterId, limit) -> productionOrderRepo.findIdsByStatusAndPlannedCompletionDate(
+                        ProductionOrderStatus.IN_PROGRESS, date, afterId, PageRequest.of(0, limit)),
+                ids -> {
+                    ids.forEach(id -> productionOrderService.changeStatus(id, ProductionOrderStatus.COMPLETED));
+                    return ids.size();
+                },
+                null);
     }
 
-    @Transactional
-    public void purgeOldCancelledShipmentAlerts() {
-        LocalDateTime cutoff = LocalDateTime.now().minusDays(3);
-        int deleted = alertRepo.deleteByAlertTypeAndCreatedAtBefore(AlertType.SHIPMENT_CANCELLED, cutoff);
+    /**
+     * Deletes the alerts the policy has expired: ids are read in id order and deleted
+     * {@code scheduler.chunk-size} at a time with a bulk delete, each chunk in its own transaction.
+     * The report carries the rows removed and the time taken.
+     */
+    public StepReport purgeExpiredAlerts(AlertRetentionPolicy policy) {
+        AlertType alertType = policy.getAlertType();
+        EntityType entityType = policy.getEntityType();
+        LocalDateTime cutoff = LocalDateTime.now(clock).minusDays(policy.getTtlDays());
+        return stepRunner.runChunked(purgeStepName(policy), LocalDate.now(clock),
+                (afterId, limit) -> alertRepo.findExpiredIds(
+                        alertType, entityType, cutoff, afterId, PageRequest.of(0, limit)),
+                alertRepo::deleteByIdIn);
     }
 
-    @Transactional
-    public void purgeOldCancelledProductionOrderAlerts() {
-        LocalDateTime cutoff = LocalDateTime.now().minusDays(3);
-        int deleted = alertRepo.deleteByAlertTypeAndCreatedAtBefore(AlertType.PRODUCTION_CANCELLED, cutoff);
+    private PartitionedStep departureStep() {
+        // Rows are due on their departure date, which is never after today, so the departure date stays as is.
+        return new PartitionedStep(SHIPMENT_DEPART,
+                date -> (afterId, limit) -> shipmentRepo.findIdsByStatusAndDepartureDate(
+                        ShipmentStatus.PLANNED, date, afterId, PageRequest.of(0, limit)),
+                date -> shipmentRepo.findMaxIdByStatusAndDepartureDate(ShipmentStatus.PLANNED, date),
+                ids -> {
+                    List<Long> due = shipmentRepo.findIdsByIdInAndStatus(ids, ShipmentStatus.PLANNED);
+                    if (due.isEmpty()) return 0;
+                    int changed = shipmentRepo.updateStatusByIds(
+                            due, ShipmentStatus.PLANNED, ShipmentStatus.IN_TRANSIT, LocalDateTime.now());
+                    due.forEach(id -> eventPublisher.publishEvent(
+                            new ShipmentStatusChangedEvent(id, ShipmentStatus.PLANNED, ShipmentStatus.IN_TRANSIT)));
+                    return changed;
+                },
+                null);
     }
 
-    @Transactional
-    public void purgeOldReversedProductionOrderAlerts() {
-        LocalDateTime cutoff = LocalDateTime.now().minusDays(3);
-        int deleted = alertRepo.deleteByAlertTypeAndCreatedAtBefore(AlertType.PRODUCTION_REVERSED, cutoff);
+    private PartitionedStep delayStep() {
+        return new PartitionedStep(SHIPMENT_DELAY,
+                date -> (afterId, limit) -> shipmentRepo.findIdsByStatusAndEstimateArrivalDate(
+                        ShipmentStatus.IN_TRANSIT, date, afterId, PageRequest.of(0, limit)),
+                date -> shipmentRepo.findMaxIdByStatusAndEstimateArrivalDate(ShipmentStatus.IN_TRANSIT, date),
+                ids -> {
+                    List<Long> due = shipmentRepo.findIdsByIdInAndStatus(ids, ShipmentStatus.IN_TRANSIT);
+                    if (due.isEmpty()) return 0;
+                    int changed = shipmentRepo.updateStatusByIds(
+                            due, ShipmentStatus.IN_TRANSIT, ShipmentStatus.DELAYED, LocalDateTime.now());
+                    due.forEach(id -> {
+                        eventPublisher.publishEvent(
+                                new ShipmentStatusChangedEvent(id, ShipmentStatus.IN_TRANSIT, ShipmentStatus.DELAYED));
+                        alertService.createIfNotExists(
+                                AlertType.SHIPMENT_DELAYED,
+                                AlertSeverity.WARNING,
+                                EntityType.SHIPMENT,
+                                id);
+                    });
+                    return changed;
+                },
+                null);
     }
 
-    @Transactional
-    public void purgeOldRawMaterialShortageAlertsForProductionOrders() {
-        LocalDateTime cutoff = LocalDateTime.now().minusDays(3);
-        int deleted = alertRepo.deleteByAlertTypeAndEntityTypeAndCreatedAtBefore(AlertType.PRODUCTION_REVERSED, EntityType.PRODUCTION_ORDER, cutoff);
+    private static String purgeStepName(AlertRetentionPolicy policy) {
+        return "alert.purge." + policy.getAlertType() + "." + (policy.getEntityType() == null ? "ANY" : policy.getEntityType());
     }
 }
@@ -0,0 +1,19 @@
+package YNprojects.logistics_system.scheduler.dto;
+
+import YNprojects.logistics_system.scheduler.entity.StepStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class StepReport {
+    private String stepName;
+    private StepStatus status;
+    private long processed;
+    private long failed;
+    private long chunks;
+    private long durationMillis;
+    private boolean resumed;
+}
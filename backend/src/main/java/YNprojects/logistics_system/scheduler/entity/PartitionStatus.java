@@ -0,0 +1,5 @@
+package YNprojects.logistics_system.scheduler.entity;
+
+public enum PartitionStatus {
+    PENDING, CLAIMED, COMPLETED, FAILED
+}
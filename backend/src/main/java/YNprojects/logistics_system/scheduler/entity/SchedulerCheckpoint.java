@@ -0,0 +1,42 @@
+package YNprojects.logistics_system.scheduler.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress marker of one scheduler step for one run date, i.e. the due date whose rows it processes.
+ * Updated in the same transaction as every committed chunk, so a crashed run
+ * resumes right after the last committed id instead of starting over.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_checkpoint_step_run", columnNames = {"stepName", "runDate"}))
+public class SchedulerCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String stepName;
+    private LocalDate runDate;
+
+    @Enumerated(EnumType.STRING)
+    private StepStatus status;
+
+    private Long lastProcessedId;   // keyset position, 0 when nothing committed yet
+    private long processedCount;
+    private long failedCount;
+    private long chunkCount;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long durationMillis;
+}
@@ -0,0 +1,30 @@
+package YNprojects.logistics_system.scheduler.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease that makes one node the scheduler leader. The owner renews it on every heartbeat; once it
+ * expires another node may take it, which increments the fencing token. Scheduler writes check the
+ * token of their run against this row, so a leader that lost the lease cannot commit anymore.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+public class SchedulerLease {
+    @Id
+    private String name;
+
+    private String owner;           // node id, null when released
+    private long token;             // fencing token, incremented on every change of owner
+    private LocalDateTime expiresAt;
+    private LocalDateTime renewedAt;
+}
@@ -0,0 +1,44 @@
+package YNprojects.logistics_system.scheduler.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One id range of a partitioned step, published by the leader so any node can run it.
+ * A node claims it, runs it with the leader's fencing token and records the outcome;
+ * the leader removes the rows once it has collected every outcome.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "idx_partition_status", columnList = "status, id"))
+public class SchedulerPartition {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String stepName;        // a step registered with the PartitionCoordinator
+    private LocalDate runDate;
+    private long lowId;
+    private long highId;
+    private long token;             // fencing token of the run that published it
+
+    @Enumerated(EnumType.STRING)
+    private PartitionStatus status;
+
+    private String owner;
+    private LocalDateTime claimedAt;
+
+    private long processedCount;
+    private long failedCount;
+    private long chunkCount;
+    private long durationMillis;
+}
@@ -0,0 +1,12 @@
+package YNprojects.logistics_system.scheduler.repository;
+
+import YNprojects.logistics_system.scheduler.entity.SchedulerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface SchedulerCheckpointRepo extends JpaRepository<SchedulerCheckpoint, Long> {
+
+    Optional<SchedulerCheckpoint> findByStepNameAndRunDate(String stepName, LocalDate runDate);
+}
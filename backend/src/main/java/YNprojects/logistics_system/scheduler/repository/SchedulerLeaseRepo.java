@@ -0,0 +1,41 @@
+package YNprojects.logistics_system.scheduler.repository;
+
+import YNprojects.logistics_system.scheduler.entity.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Lease times are read and written with the database clock (localtimestamp), so nodes whose clocks
+ * drift apart still agree on when a lease expires.
+ */
+public interface SchedulerLeaseRepo extends JpaRepository<SchedulerLease, String> {
+
+    /** Takes the lease when it is free or expired and moves to the next fencing token. */
+    @Modifying
+    @Query(value = "update scheduler_lease set owner = :owner, token = token + 1, " +
+            "expires_at = timestampadd(second, :ttl, localtimestamp), renewed_at = localtimestamp " +
+            "where name = :name and (owner is null or expires_at < localtimestamp)", nativeQuery = true)
+    int acquire(@Param("name") String name, @Param("owner") String owner, @Param("ttl") long ttlSeconds);
+
+    /** Extends the lease of its current holder; 0 when it was taken over since. */
+    @Modifying
+    @Query(value = "update scheduler_lease set expires_at = timestampadd(second, :ttl, localtimestamp), " +
+            "renewed_at = localtimestamp where name = :name and owner = :owner and token = :token", nativeQuery = true)
+    int renew(@Param("name") String name, @Param("owner") String owner, @Param("token") long token,
+              @Param("ttl") long ttlSeconds);
+
+    @Modifying
+    @Query(value = "update scheduler_lease set owner = null, expires_at = localtimestamp " +
+            "where name = :name and owner = :owner and token = :token", nativeQuery = true)
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("token") long token);
+
+    /**
+     * Whether {@code token} still holds the lease for at least {@code margin} more seconds. A plain read:
+     * it takes no lock, so renewals never wait for the transactions that check it.
+     */
+    @Query(value = "select count(*) from scheduler_lease where name = :name and token = :token " +
+            "and expires_at > timestampadd(second, :margin, localtimestamp)", nativeQuery = true)
+    long countValid(@Param("name") String name, @Param("token") long token, @Param("margin") long marginSeconds);
+}
@@ -0,0 +1,52 @@
+package YNprojects.logistics_system.scheduler.repository;
+
+import YNprojects.logistics_system.scheduler.entity.PartitionStatus;
+import YNprojects.logistics_system.scheduler.entity.SchedulerPartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Claim times are written and compared with the database clock (localtimestamp), as the lease times of
+ * {@link SchedulerLeaseRepo} are, so a node whose clock runs ahead cannot take over a live claim.
+ */
+public interface SchedulerPartitionRepo extends JpaRepository<SchedulerPartition, Long> {
+
+    Optional<SchedulerPartition> findFirstByStatusOrderByIdAsc(PartitionStatus status);
+
+    List<SchedulerPartition> findByIdIn(Collection<Long> ids);
+
+    /** Claims a pending partition for {@code owner}; 0 when another node was first. */
+    @Modifying
+    @Query(value = "update scheduler_partition set status = 'CLAIMED', owner = :owner, claimed_at = localtimestamp " +
+            "where id = :id and status = 'PENDING'", nativeQuery = true)
+    int claim(@Param("id") Long id, @Param("owner") String owner);
+
+    /** The claimed partitions of {@code ids} whose owner has not refreshed its claim for {@code timeout} seconds. */
+    @Query(value = "select id from scheduler_partition where id in (:ids) and status = 'CLAIMED' " +
+            "and timestampadd(second, :timeout, claimed_at) < localtimestamp", nativeQuery = true)
+    List<Long> findStaleIds(@Param("ids") Collection<Long> ids, @Param("timeout") long timeoutSeconds);
+
+    /** Takes over a claimed partition whose owner stopped refreshing its claim; 0 when it is not stale any more. */
+    @Modifying
+    @Query(value = "update scheduler_partition set owner = :owner, claimed_at = localtimestamp " +
+            "where id = :id and status = 'CLAIMED' and timestampadd(second, :timeout, claimed_at) < localtimestamp",
+            nativeQuery = true)
+    int reclaim(@Param("id") Long id, @Param("owner") String owner, @Param("timeout") long timeoutSeconds);
+
+    /** Heartbeat of the claimed partitions a node is running. */
+    @Modifying
+    @Query(value = "update scheduler_partition set claimed_at = localtimestamp where owner = :owner and status = 'CLAIMED'",
+            nativeQuery = true)
+    int touch(@Param("owner") String owner);
+
+    /** Drops the partitions of runs fenced out since, which nobody will collect. */
+    @Modifying
+    @Query("delete from SchedulerPartition p where p.token < :token")
+    int deleteByTokenLessThan(@Param("token") long token);
+}
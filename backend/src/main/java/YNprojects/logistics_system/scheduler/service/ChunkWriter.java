@@ -0,0 +1,12 @@
+package YNprojects.logistics_system.scheduler.service;
+
+import java.util.List;
+
+/**
+ * Applies a step to one chunk of ids inside the chunk transaction.
+ * Returns the number of rows actually changed.
+ */
+@FunctionalInterface
+public interface ChunkWriter {
+    int write(List<Long> ids);
+}
@@ -0,0 +1,437 @@
+package YNprojects.logistics_system.scheduler.service;
+
+import YNprojects.logistics_system.concurrency.service.ConnectionLimiter;
+import YNprojects.logistics_system.exceptions.FencedOutException;
+import YNprojects.logistics_system.scheduler.dto.StepReport;
+import YNprojects.logistics_system.scheduler.entity.SchedulerCheckpoint;
+import YNprojects.logistics_system.scheduler.entity.StepStatus;
+import YNprojects.logistics_system.scheduler.repository.SchedulerCheckpointRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.stream.LongStream;
+
+/**
+ * Runs scheduler steps in bounded transactions.
+ *
+ * A chunked step reads ids with a keyset reader and writes them {@code scheduler.chunk-size}
+ * at a time, each chunk in its own transaction together with its checkpoint update.
+ * If a chunk fails, its items are retried one by one so a single bad row cannot block the rest.
+ * A step that did not finish resumes after the last committed id; a completed one reads its date
+ * again from the start, for the rows that became due on it since.
+ * Large steps can be split by id range and run in parallel, see {@link #runPartitioned}.
+ *
+ * Every chunk checks the fencing token of the run ({@link LeaderElection#checkFence}) at the end of
+ * its own transaction. A run fenced out by a new leader stops at once and leaves its checkpoint as it is,
+ * for the new leader to resume.
+ *
+ * Each chunk, from its read to its checkpoint, holds a {@link ConnectionLimiter} permit, released before
+ * the next one, so a long step takes turns with requests instead of keeping a permit for its whole run.
+ * A step that gets no permit in time fails and resumes from its checkpoint on the next run.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChunkedStepRunner {
+
+    private static final int DENSITY_SAMPLES = 32;
+
+    private final PlatformTransactionManager transactionManager;
+    private final SchedulerCheckpointRepo checkpointRepo;
+    private final ParallelStepExecutor parallelStepExecutor;
+    private final PartitionCoordinator partitionCoordinator;
+    private final LeaderElection leaderElection;
+    private final ConnectionLimiter connectionLimiter;
+
+    @Value("${scheduler.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${scheduler.catch-up.enabled:true}")
+    private boolean catchUpEnabled;
+
+    @Value("${scheduler.partition.min-rows:5000}")
+    private long minPartitionRows;
+
+    public StepReport runChunked(String stepName, LocalDate runDate, KeysetReader reader, ChunkWriter writer) {
+        return runChunked(stepName, runDate, reader, writer, null);
+    }
+
+    public StepReport runChunked(String stepName, LocalDate runDate,
+                                 KeysetReader reader, ChunkWriter writer, ItemRecoverer recoverer) {
+        TransactionTemplate tx = newTransaction();
+        SchedulerCheckpoint opened = tx.execute(status -> openCheckpoint(stepName, runDate, true));
+
+        Long checkpointId = opened.getId();
+        boolean resumed = opened.getLastProcessedId() > 0;
+        long afterId = opened.getLastProcessedId();
+        long started = System.currentTimeMillis();
+        if (resumed) {
+            log.info("Step {} resuming for {} after id {}", stepName, runDate, afterId);
+        }
+
+        try {
+            while (true) {
+                long after = afterId;
+                Long lastId = connectionLimiter.run(
+                        () -> runChunk(stepName, checkpointId, tx, reader.read(after, chunkSize), writer, recoverer));
+                if (lastId == null) break;
+                afterId = lastId;
+            }
+            long elapsed = System.currentTimeMillis() - started;
+            SchedulerCheckpoint done = tx.execute(status -> finish(checkpointId, StepStatus.COMPLETED, elapsed));
+            log.info("Step {} completed for {}: {} rows, {} failed, {} chunks in {} ms",
+                    stepName, runDate, done.getProcessedCount(), done.getFailedCount(), done.getChunkCount(), elapsed);
+            return toReport(done, resumed);
+        } catch (FencedOutException e) {
+            return fencedOut(stepName, runDate, started, resumed, e);
+        } catch (RuntimeException e) {
+            long elapsed = System.currentTimeMillis() - started;
+            log.error("Step {} failed for {} after {} ms", stepName, runDate, elapsed, e);
+            SchedulerCheckpoint failed = tx.execute(status -> finish(checkpointId, StepStatus.FAILED, elapsed));
+            return toReport(failed, resumed);
+        }
+    }
+
+    /**
+     * Runs a chunked step for every date up to {@code today} that still has due rows, oldest first,
+     * so days missed by the cron are caught up. Each date keeps its own checkpoint. Dates are found
+     * with {@code dueDates}, an index seek per date, so the cost follows the backlog rather than the table.
+     * With {@code scheduler.catch-up.enabled=false} only {@code today} is processed.
+     */
+    public StepReport runCatchUp(String stepName, LocalDate today, DueDateFinder dueDates,
+                                 Function<LocalDate, KeysetReader> readerForDate,
+                                 ChunkWriter writer, ItemRecoverer recoverer) {
+        return catchUp(stepName, today, dueDates,
+                date -> runChunked(stepName, date, readerForDate.apply(date), writer, recoverer));
+    }
+
+    /**
+     * Same as {@link #runCatchUp(String, LocalDate, DueDateFinder, Function, ChunkWriter, ItemRecoverer)},
+     * with the rows of each date split by id range as in {@link #runPartitioned}.
+     */
+    public StepReport runCatchUp(PartitionedStep step, LocalDate today, DueDateFinder dueDates) {
+        return catchUp(step.name(), today, dueDates, date -> runPartitioned(step, date));
+    }
+
+    /**
+     * Splits the ids from the first row due on {@code runDate} up to the last into ranges, at most one
+     * per scheduler thread and each with about {@code scheduler.partition.min-rows} rows or more, and
+     * runs each range as a chunked step of its own ({@link #runRange}). Rows are counted with one chunk
+     * read at each of {@value #DENSITY_SAMPLES} evenly spaced ids ({@link #sampleRows}) and the ranges
+     * are cut to hold about as many rows each ({@link #split}), so dense and sparse stretches of ids are
+     * shared out evenly. A step whose rows fit in one chunk is not split.
+     * Ranges are named after their bounds and keep their own checkpoints. A rerun recomputes the ranges
+     * from the first row still due, which is safe as long as the reader only returns rows that still need
+     * the step, as the due-date readers do. With a single range this is {@link #runChunked}.
+     *
+     * Inside a fenced leader run the ranges are handed to every node through the {@link PartitionCoordinator};
+     * otherwise they run side by side on the {@link ParallelStepExecutor}.
+     */
+    public StepReport runPartitioned(PartitionedStep step, LocalDate runDate) {
+        String stepName = step.name();
+        KeysetReader reader = step.readerForDate().apply(runDate);
+        if (parallelStepExecutor.getParallelism() < 2) {
+            return runChunked(stepName, runDate, reader, step.writer(), step.recoverer());
+        }
+        List<Long> first = connectionLimiter.run(() -> reader.read(0, chunkSize));
+        if (first.size() < chunkSize) {
+            return runChunked(stepName, runDate, reader, step.writer(), step.recoverer());
+        }
+        long low = first.get(0);
+        long high = Math.max(low, step.maxIdForDate().applyAsLong(runDate));
+        long[] sliceRows = connectionLimiter.run(() -> sampleRows(reader, low, high, chunkSize));
+        long estimatedRows = LongStream.of(sliceRows).sum();
+        int count = (int) Math.min(parallelStepExecutor.getParallelism(), estimatedRows / minPartitionRows);
+        if (count < 2) {
+            return runChunked(stepName, runDate, reader, step.writer(), step.recoverer());
+        }
+
+        List<long[]> ranges = split(low, high, sliceRows, count);
+        log.info("Step {} for {} split into {} ranges, about {} rows", stepName, runDate, ranges.size(), estimatedRows);
+
+        long started = System.currentTimeMillis();
+        List<StepReport> reports;
+        Long token = leaderElection.runToken();
+        if (partitionCoordinator.isDistributed() && token != null) {
+            List<Long> ids = partitionCoordinator.publish(stepName, runDate, ranges, token);
+            reports = partitionCoordinator.await(ids, partition -> leaderElection.fenced(partition.getToken(),
+                    () -> runRange(step, partition.getRunDate(), partition.getLowId(), partition.getHighId())));
+        } else {
+            reports = new CopyOnWriteArrayList<>();
+            parallelStepExecutor.runAll(ranges, range -> reports.add(runRange(step, runDate, range[0], range[1])));
+        }
+        StepReport combined = combine(stepName, reports);
+        // ranges ran side by side: the step took as long as the run, not the sum of the ranges
+        return new StepReport(stepName, combined.getStatus(), combined.getProcessed(), combined.getFailed(),
+                combined.getChunks(), System.currentTimeMillis() - started, combined.isResumed());
+    }
+
+    /** Runs the ids from {@code low} to {@code high} of a partitioned step, with a checkpoint of their own. */
+    public StepReport runRange(PartitionedStep step, LocalDate runDate, long low, long high) {
+        return runChunked(step.name() + "[" + low + ".." + high + "]", runDate,
+                within(step.readerForDate().apply(runDate), low, high), step.writer(), step.recoverer());
+    }
+
+    /**
+     * Runs a step that is a single set-based statement (e.g. a purge) in its own transaction.
+     */
+    public StepReport runTasklet(String stepName, LocalDate runDate, IntSupplier work) {
+        TransactionTemplate tx = newTransaction();
+        SchedulerCheckpoint opened = tx.execute(status -> openCheckpoint(stepName, runDate, false));
+        if (opened.getStatus() == StepStatus.COMPLETED) {
+            log.info("Step {} already completed for {}, skipping", stepName, runDate);
+            return toReport(opened, false);
+        }
+
+        Long checkpointId = opened.getId();
+        long started = System.currentTimeMillis();
+        try {
+            connectionLimiter.run(() -> tx.execute(status -> {
+                advance(checkpointId, 0, work.getAsInt(), 0);
+                return null;
+            }));
+            long elapsed = System.currentTimeMillis() - started;
+            SchedulerCheckpoint done = tx.execute(status -> finish(checkpointId, StepStatus.COMPLETED, elapsed));
+            log.info("Step {} completed for {}: {} rows in {} ms", stepName, runDate, done.getProcessedCount(), elapsed);
+            return toReport(done, false);
+        } catch (FencedOutException e) {
+            return fencedOut(stepName, runDate, started, false, e);
+        } catch (RuntimeException e) {
+            long elapsed = System.currentTimeMillis() - started;
+            log.error("Step {} failed for {} after {} ms", stepName, runDate, elapsed, e);
+            SchedulerCheckpoint failed = tx.execute(status -> finish(checkpointId, StepStatus.FAILED, elapsed));
+            return toReport(failed, false);
+        }
+    }
+
+    /** Writes one chunk with its checkpoint and returns its last id, or null when there are no ids left. */
+    private Long runChunk(String stepName, Long checkpointId, TransactionTemplate tx, List<Long> ids,
+                          ChunkWriter writer, ItemRecoverer recoverer) {
+        if (ids.isEmpty()) return null;
+        long lastId = ids.get(ids.size() - 1);
+        try {
+            tx.executeWithoutResult(status -> {
+                int changed = writer.write(ids);
+                advance(checkpointId, lastId, changed, 0);
+            });
+        } catch (FencedOutException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            log.warn("Step {} chunk ({}..{}) failed, retrying item by item: {}",
+                    stepName, ids.get(0), lastId, e.getMessage());
+            writeItemByItem(stepName, checkpointId, ids, writer, recoverer);
+        }
+        return lastId;
+    }
+
+    private void writeItemByItem(String stepName, Long checkpointId, List<Long> ids,
+                                 ChunkWriter writer, ItemRecoverer recoverer) {
+        TransactionTemplate tx = newTransaction();
+        int changed = 0;
+        int failed = 0;
+        for (Long id : ids) {
+            try {
+                Integer rows = tx.execute(status -> {
+                    int written = writer.write(List.of(id));
+                    leaderElection.checkFence();
+                    return written;
+                });
+                changed += rows == null ? 0 : rows;
+            } catch (FencedOutException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                failed++;
+                log.warn("Step {} item {} failed: {}", stepName, id, e.getMessage());
+                if (recoverer != null) {
+                    try {
+                        tx.executeWithoutResult(status -> recoverer.recover(id));
+                    } catch (RuntimeException re) {
+                        log.error("Step {} could not recover item {}", stepName, id, re);
+                    }
+                }
+            }
+        }
+        int changedTotal = changed;
+        int failedTotal = failed;
+        long lastId = ids.get(ids.size() - 1);
+        tx.executeWithoutResult(status -> advance(checkpointId, lastId, changedTotal, failedTotal));
+    }
+
+    /**
+     * Finds or creates the checkpoint of a step and date and marks it started. With {@code rerunCompleted}
+     * a completed checkpoint starts over from id 0: rows can become due on its date after it completed,
+     * with ids below its last one (a delayed shipment put back in transit, an old order started by hand),
+     * and the readers only return rows still in the source status, so the new pass finds just those.
+     * Otherwise a completed checkpoint is left as it is.
+     */
+    private SchedulerCheckpoint openCheckpoint(String stepName, LocalDate runDate, boolean rerunCompleted) {
+        SchedulerCheckpoint checkpoint = checkpointRepo.findByStepNameAndRunDate(stepName, runDate)
+                .orElseGet(() -> {
+                    SchedulerCheckpoint c = new SchedulerCheckpoint();
+                    c.setStepName(stepName);
+                    c.setRunDate(runDate);
+                    c.setLastProcessedId(0L);
+                    c.setStartedAt(LocalDateTime.now());
+                    return c;
+                });
+        if (checkpoint.getStatus() == StepStatus.COMPLETED) {
+            if (!rerunCompleted) return checkpoint;
+            checkpoint.setLastProcessedId(0L);
+        }
+        checkpoint.setStatus(StepStatus.STARTED);
+        checkpoint.setFinishedAt(null);
+        return checkpointRepo.save(checkpoint);
+    }
+
+    private void advance(Long checkpointId, long lastId, int changed, int failed) {
+        SchedulerCheckpoint checkpoint = checkpointRepo.findById(checkpointId).orElseThrow();
+        if (lastId > 0) {
+            checkpoint.setLastProcessedId(lastId);
+        }
+        checkpoint.setProcessedCount(checkpoint.getProcessedCount() + changed);
+        checkpoint.setFailedCount(checkpoint.getFailedCount() + failed);
+        checkpoint.setChunkCount(checkpoint.getChunkCount() + 1);
+        checkpointRepo.save(checkpoint);
+        leaderElection.checkFence();
+    }
+
+    private SchedulerCheckpoint finish(Long checkpointId, StepStatus status, long elapsedMillis) {
+        SchedulerCheckpoint checkpoint = checkpointRepo.findById(checkpointId).orElseThrow();
+        checkpoint.setStatus(status);
+        checkpoint.setFinishedAt(LocalDateTime.now());
+        checkpoint.setDurationMillis(checkpoint.getDurationMillis() + elapsedMillis);
+        return checkpointRepo.save(checkpoint);
+    }
+
+    private StepReport catchUp(String stepName, LocalDate today, DueDateFinder dueDates,
+                               Function<LocalDate, StepReport> runForDate) {
+        if (!catchUpEnabled) {
+            return runForDate.apply(today);
+        }
+
+        List<StepReport> reports = new ArrayList<>();
+        LocalDate due = dueDates.next(LocalDate.EPOCH, today);
+        while (due != null) {
+            if (due.isBefore(today)) {
+                log.info("Step {} catching up rows due on {}", stepName, due);
+            }
+            reports.add(runForDate.apply(due));
+            due = dueDates.next(due, today);
+        }
+        return combine(stepName, reports);
+    }
+
+    /** A fenced out run writes nothing more, not even its checkpoint status. */
+    private StepReport fencedOut(String stepName, LocalDate runDate, long started, boolean resumed, FencedOutException e) {
+        long elapsed = System.currentTimeMillis() - started;
+        log.warn("Step {} for {} stopped after {} ms: {}", stepName, runDate, elapsed, e.getMessage());
+        return new StepReport(stepName, StepStatus.FAILED, 0, 0, 0, elapsed, resumed);
+    }
+
+    /**
+     * Estimated rows of {@code reader} in each of up to {@value #DENSITY_SAMPLES} slices of equal width
+     * from {@code low} to {@code high}, from one read of {@code chunkSize} ids at the start of each slice:
+     * exact when the slice has no more rows than that, scaled by the id span of the read otherwise.
+     */
+    static long[] sampleRows(KeysetReader reader, long low, long high, int chunkSize) {
+        long width = sliceWidth(low, high);
+        long[] rows = new long[(int) ((high - low) / width + 1)];
+        for (int slice = 0; slice < rows.length; slice++) {
+            long from = low + slice * width;
+            long to = Math.min(high, from + width - 1);
+            List<Long> ids = within(reader, from, to).read(from - 1, chunkSize);
+            rows[slice] = ids.size() < chunkSize
+                    ? ids.size()
+                    : Math.round((double) ids.size() * (to - from + 1) / (ids.get(ids.size() - 1) - from + 1));
+        }
+        return rows;
+    }
+
+    /**
+     * Cuts the ids from {@code low} to {@code high} into at most {@code count} ranges holding about the same
+     * number of rows, given the rows of each slice as estimated by {@link #sampleRows}. Rows are taken to be
+     * spread evenly within a slice.
+     */
+    static List<long[]> split(long low, long high, long[] sliceRows, int count) {
+        long width = sliceWidth(low, high);
+        double total = LongStream.of(sliceRows).sum();
+        List<long[]> ranges = new ArrayList<>();
+        long from = low;
+        double before = 0;      // rows in the slices before the current one
+        int slice = 0;
+        for (int k = 1; k < count; k++) {
+            double target = total * k / count;
+            while (slice < sliceRows.length - 1 && before + sliceRows[slice] < target) {
+                before += sliceRows[slice++];
+            }
+            long sliceFrom = low + slice * width;
+            long sliceTo = Math.min(high, sliceFrom + width - 1);
+            double share = sliceRows[slice] == 0 ? 1 : (target - before) / sliceRows[slice];
+            long to = Math.min(sliceTo, sliceFrom + (long) Math.ceil(share * (sliceTo - sliceFrom + 1)) - 1);
+            if (to >= from && to < high) {
+                ranges.add(new long[]{from, to});
+                from = to + 1;
+            }
+        }
+        ranges.add(new long[]{from, high});
+        return ranges;
+    }
+
+    private static long sliceWidth(long low, long high) {
+        return (high - low + DENSITY_SAMPLES) / DENSITY_SAMPLES;
+    }
+
+    /** The ids of {@code reader} from {@code low} to {@code high}; stops at the first page past {@code high}. */
+    private static KeysetReader within(KeysetReader reader, long low, long high) {
+        return (afterId, limit) -> {
+            List<Long> ids = reader.read(Math.max(afterId, low - 1), limit);
+            int end = ids.size();
+            while (end > 0 && ids.get(end - 1) > high) end--;
+            return ids.subList(0, end);
+        };
+    }
+
+    private StepReport combine(String stepName, List<StepReport> reports) {
+        StepStatus status = reports.stream().anyMatch(r -> r.getStatus() == StepStatus.FAILED)
+                ? StepStatus.FAILED : StepStatus.COMPLETED;
+        return new StepReport(
+                stepName,
+                status,
+                reports.stream().mapToLong(StepReport::getProcessed).sum(),
+                reports.stream().mapToLong(StepReport::getFailed).sum(),
+                reports.stream().mapToLong(StepReport::getChunks).sum(),
+                reports.stream().mapToLong(StepReport::getDurationMillis).sum(),
+                reports.stream().anyMatch(StepReport::isResumed)
+        );
+    }
+
+    private StepReport toReport(SchedulerCheckpoint checkpoint, boolean resumed) {
+        return new StepReport(
+                checkpoint.getStepName(),
+                checkpoint.getStatus(),
+                checkpoint.getProcessedCount(),
+                checkpoint.getFailedCount(),
+                checkpoint.getChunkCount(),
+                checkpoint.getDurationMillis(),
+                resumed
+        );
+    }
+
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+}
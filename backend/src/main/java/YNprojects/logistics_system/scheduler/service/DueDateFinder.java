@@ -0,0 +1,12 @@
+package YNprojects.logistics_system.scheduler.service;
+
+import java.time.LocalDate;
+
+/**
+ * Finds the earliest date strictly after {@code after} and no later than {@code upTo}
+ * that still has rows waiting for a step, or {@code null} when there is none.
+ */
+@FunctionalInterface
+public interface DueDateFinder {
+    LocalDate next(LocalDate after, LocalDate upTo);
+}
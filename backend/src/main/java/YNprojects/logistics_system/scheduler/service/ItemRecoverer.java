@@ -0,0 +1,9 @@
+package YNprojects.logistics_system.scheduler.service;
+
+/**
+ * Compensating action for an item that failed on its own, run in a fresh transaction.
+ */
+@FunctionalInterface
+public interface ItemRecoverer {
+    void recover(Long id);
+}
@@ -0,0 +1,11 @@
+package YNprojects.logistics_system.scheduler.service;
+
+import java.util.List;
+
+/**
+ * Reads the next page of ids strictly greater than {@code afterId}, in ascending order.
+ */
+@FunctionalInterface
+public interface KeysetReader {
+    List<Long> read(long afterId, int limit);
+}
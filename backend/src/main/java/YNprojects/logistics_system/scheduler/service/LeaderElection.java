@@ -0,0 +1,218 @@
+package YNprojects.logistics_system.scheduler.service;
+
+import YNprojects.logistics_system.exceptions.FencedOutException;
+import YNprojects.logistics_system.scheduler.entity.SchedulerLease;
+import YNprojects.logistics_system.scheduler.repository.SchedulerLeaseRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Elects the node that runs the scheduler jobs through a lease row in {@link SchedulerLease}.
+ *
+ * Every node heartbeats every {@code scheduler.lease.heartbeat-ms} on a thread of its own, so a long
+ * nightly run does not hold up its renewal: the leader extends the lease by
+ * {@code scheduler.lease.ttl-seconds}, the others take it once it has expired. Taking the lease
+ * increments its fencing token. Expiry is computed and compared by the database, never with the
+ * node's clock. A run binds the token it started with ({@link #fenced}) and every chunk checks, at
+ * the end of its own transaction ({@link #checkFence}), that the token still holds the lease for
+ * {@code scheduler.lease.fence-margin-seconds} more; a leader that stalled cannot commit past its lease.
+ *
+ * With {@code scheduler.leader-election.enabled=false} every node leads and nothing is fenced.
+ */
+@Slf4j
+@Component
+public class LeaderElection {
+
+    static final String LEASE = "scheduler";
+
+    private static final ThreadLocal<Long> RUN_TOKEN = new ThreadLocal<>();
+
+    private final SchedulerLeaseRepo leaseRepo;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final long ttlSeconds;
+    private final long heartbeatMillis;
+    private final long fenceMarginSeconds;
+    private final String nodeId;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Runnable> heartbeatListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("scheduler-lease").daemon().factory());
+
+    private volatile Long token;                // held fencing token, null when following
+    // System.nanoTime() by which the lease has surely expired: the ttl counted from before the renewal was sent
+    private volatile long heldUntilNanos;
+
+    public LeaderElection(SchedulerLeaseRepo leaseRepo,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${scheduler.leader-election.enabled:true}") boolean enabled,
+                          @Value("${scheduler.lease.ttl-seconds:30}") long ttlSeconds,
+                          @Value("${scheduler.lease.heartbeat-ms:10000}") long heartbeatMillis,
+                          @Value("${scheduler.lease.fence-margin-seconds:5}") long fenceMarginSeconds,
+                          @Value("${scheduler.node-id:}") String nodeId) {
+        this.leaseRepo = leaseRepo;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.ttlSeconds = ttlSeconds;
+        this.heartbeatMillis = heartbeatMillis;
+        this.fenceMarginSeconds = fenceMarginSeconds;
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) return;
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, 0, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeats.shutdownNow();
+        Long held = token;
+        if (!enabled || held == null) return;
+        try {
+            tx.execute(status -> leaseRepo.release(LEASE, nodeId, held));
+            log.info("Node {} released the scheduler lease", nodeId);
+        } catch (RuntimeException e) {
+            log.warn("Node {} could not release the scheduler lease: {}", nodeId, e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public boolean isLeader() {
+        return !enabled || (token != null && heldUntilNanos - System.nanoTime() > 0);
+    }
+
+    /** Called after every heartbeat, on the heartbeat thread. */
+    public void onHeartbeat(Runnable listener) {
+        heartbeatListeners.add(listener);
+    }
+
+    /**
+     * Renews the lease when this node holds it and takes it when it is free or expired.
+     * Returns the fencing token when this node leads, empty otherwise; always 0 when disabled.
+     */
+    public OptionalLong tryLead() {
+        if (!enabled) return OptionalLong.of(0);
+        lock.lock();
+        try {
+            long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds);
+            Long held = token;
+            if (held != null) {
+                Integer renewed = tx.execute(status -> leaseRepo.renew(LEASE, nodeId, held, ttlSeconds));
+                if (renewed != null && renewed == 1) {
+                    heldUntilNanos = until;
+                    return OptionalLong.of(held);
+                }
+                log.warn("Node {} lost the scheduler lease (token {})", nodeId, held);
+                token = null;
+            }
+
+            ensureLease();
+            Long acquired = tx.execute(status -> leaseRepo.acquire(LEASE, nodeId, ttlSeconds) == 1
+                    ? leaseRepo.findById(LEASE).orElseThrow().getToken()
+                    : null);
+            if (acquired == null) return OptionalLong.empty();
+            token = acquired;
+            heldUntilNanos = until;
+            log.info("Node {} leads the scheduler (token {})", nodeId, acquired);
+            return OptionalLong.of(acquired);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The fencing token bound to the current thread by {@link #fenced}, or null. */
+    public Long runToken() {
+        return RUN_TOKEN.get();
+    }
+
+    /** Runs {@code work} with {@code token} bound to the current thread; a null token binds nothing. */
+    public <T> T fenced(Long token, Supplier<T> work) {
+        Long previous = RUN_TOKEN.get();
+        RUN_TOKEN.set(token);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) RUN_TOKEN.remove();
+            else RUN_TOKEN.set(previous);
+        }
+    }
+
+    /**
+     * Fails with {@link FencedOutException} unless the token bound to this thread still holds the lease
+     * for the fence margin. Call it last in the transaction it guards, so that the transaction commits
+     * well before the lease could pass to another node. Work without a bound token is not checked.
+     */
+    public void checkFence() {
+        Long bound = RUN_TOKEN.get();
+        if (!enabled || bound == null) return;
+        if (leaseRepo.countValid(LEASE, bound, fenceMarginSeconds) == 0) {
+            throw new FencedOutException("Scheduler run with token " + bound + " no longer holds the lease");
+        }
+    }
+
+    private void heartbeat() {
+        try {
+            tryLead();
+        } catch (RuntimeException e) {
+            log.warn("Scheduler lease heartbeat of node {} failed: {}", nodeId, e.getMessage());
+        }
+        for (Runnable listener : heartbeatListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                log.warn("Scheduler heartbeat listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void ensureLease() {
+        if (leaseRepo.existsById(LEASE)) return;
+        try {
+            tx.executeWithoutResult(status -> leaseRepo.save(new SchedulerLease(LEASE, null, 0, LocalDateTime.now(), null)));
+        } catch (DataIntegrityViolationException e) {
+            // another node created it first
+            log.debug("Scheduler lease created concurrently");
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
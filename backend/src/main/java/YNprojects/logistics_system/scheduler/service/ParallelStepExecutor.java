@@ -0,0 +1,134 @@
+package YNprojects.logistics_system.scheduler.service;
+
+import YNprojects.logistics_system.scheduler.dto.StepReport;
+import YNprojects.logistics_system.scheduler.entity.StepStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Runs scheduler work on a pool of {@code scheduler.parallelism} threads (the number of cores
+ * by default), virtual when {@code spring.threads.virtual.enabled} is set.
+ *
+ * Threads hold no database permit of their own: steps take one per chunk ({@link ChunkedStepRunner}),
+ * so a step waiting for others, or a long one, does not keep requests out of the database. Callers
+ * never wait for a task that has not started, so work can fan out from inside a step without
+ * deadlocking the pool.
+ *
+ * Tasks run with the fencing token of the thread that submitted them ({@link LeaderElection#fenced}).
+ */
+@Slf4j
+@Component
+public class ParallelStepExecutor {
+
+    private final LeaderElection leaderElection;
+    private final int parallelism;
+    private final ExecutorService pool;
+
+    public ParallelStepExecutor(LeaderElection leaderElection,
+                                @Value("${scheduler.parallelism:0}") int parallelism,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.leaderElection = leaderElection;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ThreadFactory threads = virtualThreads
+                ? Thread.ofVirtual().name("scheduler-", 1).factory()
+                : Thread.ofPlatform().name("scheduler-", 1).daemon().factory();
+        this.pool = Executors.newFixedThreadPool(this.parallelism, threads);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Runs every step of the graph once the steps it waits for have finished and returns
+     * their reports in declaration order. A step that throws is reported as failed.
+     */
+    public List<StepReport> run(StepGraph graph) {
+        Long token = leaderElection.runToken();
+        Map<String, CompletableFuture<StepReport>> started = new LinkedHashMap<>();
+        for (StepGraph.Step step : graph.steps()) {
+            CompletableFuture<?>[] dependencies = step.after().stream()
+                    .map(started::get)
+                    .toArray(CompletableFuture[]::new);
+            started.put(step.name(), CompletableFuture.allOf(dependencies)
+                    .handle((done, failure) -> null)
+                    .thenApplyAsync(ignored -> leaderElection.fenced(token, () -> runStep(step)), pool));
+        }
+        return started.values().stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+     * Applies {@code work} to every task, on the calling thread and on idle pool threads.
+     * Returns once every task is done. Pool threads that did not start before the caller
+     * ran out of tasks are skipped, so the call finishes even when the pool is busy.
+     * A task that throws does not stop the others; once they are all done the first failure
+     * is rethrown, with the later ones suppressed.
+     */
+    public <T> void runAll(List<T> tasks, Consumer<T> work) {
+        Queue<T> queue = new ConcurrentLinkedQueue<>(tasks);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Runnable drain = () -> {
+            T task;
+            while ((task = queue.poll()) != null) {
+                try {
+                    work.accept(task);
+                } catch (RuntimeException e) {
+                    if (!failure.compareAndSet(null, e)) failure.get().addSuppressed(e);
+                }
+            }
+        };
+
+        Long token = leaderElection.runToken();
+        List<Helper> helpers = new ArrayList<>();
+        for (int i = 1; i < Math.min(tasks.size(), parallelism); i++) {
+            AtomicBoolean claimed = new AtomicBoolean();
+            Future<?> future = pool.submit(() -> {
+                if (claimed.compareAndSet(false, true)) leaderElection.fenced(token, () -> {
+                    drain.run();
+                    return null;
+                });
+            });
+            helpers.add(new Helper(claimed, future));
+        }
+        drain.run();
+        for (Helper helper : helpers) {
+            // claiming it here means it never started and never will do any work
+            if (helper.claimed().compareAndSet(false, true)) continue;
+            try {
+                helper.future().get();
+            } catch (ExecutionException e) {
+                log.error("Scheduler worker failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for scheduler workers", e);
+            }
+        }
+        if (failure.get() != null) throw failure.get();
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private StepReport runStep(StepGraph.Step step) {
+        long started = System.currentTimeMillis();
+        try {
+            return step.work().get();
+        } catch (RuntimeException e) {
+            long elapsed = System.currentTimeMillis() - started;
+            log.error("Step {} failed after {} ms", step.name(), elapsed, e);
+            return new StepReport(step.name(), StepStatus.FAILED, 0, 0, 0, elapsed, false);
+        }
+    }
+
+    private record Helper(AtomicBoolean claimed, Future<?> future) {}
+}
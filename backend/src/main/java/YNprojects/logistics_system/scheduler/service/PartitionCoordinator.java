@@ -0,0 +1,170 @@
+package YNprojects.logistics_system.scheduler.service;
+
+import YNprojects.logistics_system.scheduler.dto.StepReport;
+import YNprojects.logistics_system.scheduler.entity.PartitionStatus;
+import YNprojects.logistics_system.scheduler.entity.SchedulerPartition;
+import YNprojects.logistics_system.scheduler.entity.StepStatus;
+import YNprojects.logistics_system.scheduler.repository.SchedulerPartitionRepo;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands the id ranges of a partitioned step to every node through {@link SchedulerPartition} rows.
+ *
+ * The leader publishes the ranges and followers poll for them ({@link PartitionWorker}); the leader
+ * runs the ranges no follower claimed within {@code scheduler.partition.handoff-ms} itself, so a
+ * single node only loses that delay. Owners refresh their claims on every lease heartbeat. A claim
+ * not refreshed for {@code scheduler.partition.claim-timeout-seconds} is taken over by the leader,
+ * which runs the range again from its checkpoint. Claim times are kept by the database clock, so
+ * clock drift between nodes cannot make a live claim look stale.
+ */
+@Slf4j
+@Component
+public class PartitionCoordinator {
+
+    private final SchedulerPartitionRepo partitionRepo;
+    private final LeaderElection leaderElection;
+    private final ParallelStepExecutor parallelStepExecutor;
+    private final TransactionTemplate tx;
+    private final Map<String, PartitionedStep> steps = new ConcurrentHashMap<>();
+
+    @Value("${scheduler.partition.claim-timeout-seconds:60}")
+    private long claimTimeoutSeconds;
+
+    @Value("${scheduler.partition.poll-ms:1000}")
+    private long pollMillis;
+
+    @Value("${scheduler.partition.handoff-ms:2000}")
+    private long handoffMillis;
+
+    public PartitionCoordinator(SchedulerPartitionRepo partitionRepo, LeaderElection leaderElection,
+                                ParallelStepExecutor parallelStepExecutor,
+                                PlatformTransactionManager transactionManager) {
+        this.partitionRepo = partitionRepo;
+        this.leaderElection = leaderElection;
+        this.parallelStepExecutor = parallelStepExecutor;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void start() {
+        leaderElection.onHeartbeat(() -> tx.execute(status -> partitionRepo.touch(leaderElection.getNodeId())));
+    }
+
+    /** Ranges are only handed out when several nodes take part in the election. */
+    public boolean isDistributed() {
+        return leaderElection.isEnabled();
+    }
+
+    public void register(PartitionedStep step) {
+        steps.put(step.name(), step);
+    }
+
+    public Optional<PartitionedStep> step(String name) {
+        return Optional.ofNullable(steps.get(name));
+    }
+
+    /**
+     * Publishes the ranges of a run as pending partitions carrying the run's fencing token.
+     * Partitions left behind by runs with an older token are dropped first.
+     */
+    public List<Long> publish(String stepName, LocalDate runDate, List<long[]> ranges, long token) {
+        tx.execute(status -> partitionRepo.deleteByTokenLessThan(token));
+        List<SchedulerPartition> rows = ranges.stream().map(range -> new SchedulerPartition(
+                null, stepName, runDate, range[0], range[1], token, PartitionStatus.PENDING,
+                null, null, 0, 0, 0, 0)).toList();
+        return tx.execute(status -> partitionRepo.saveAll(rows).stream().map(SchedulerPartition::getId).toList());
+    }
+
+    /** Claims a pending partition for this node; false when another node was first. */
+    public boolean claim(Long id) {
+        Integer claimed = tx.execute(status -> partitionRepo.claim(id, leaderElection.getNodeId()));
+        return claimed != null && claimed == 1;
+    }
+
+    /** The oldest pending partition of any run, claimed for this node. */
+    public Optional<SchedulerPartition> claimNext() {
+        while (true) {
+            Optional<SchedulerPartition> next = partitionRepo.findFirstByStatusOrderByIdAsc(PartitionStatus.PENDING);
+            if (next.isEmpty()) return Optional.empty();
+            if (claim(next.get().getId())) return next;
+        }
+    }
+
+    public void complete(Long id, StepReport report) {
+        tx.executeWithoutResult(status -> partitionRepo.findById(id).ifPresent(partition -> {
+            partition.setStatus(report.getStatus() == StepStatus.COMPLETED ? PartitionStatus.COMPLETED : PartitionStatus.FAILED);
+            partition.setProcessedCount(report.getProcessed());
+            partition.setFailedCount(report.getFailed());
+            partition.setChunkCount(report.getChunks());
+            partition.setDurationMillis(report.getDurationMillis());
+            partitionRepo.save(partition);
+        }));
+    }
+
+    /**
+     * Waits until every partition of {@code ids} is completed or failed and returns their reports,
+     * then removes the rows. Partitions still pending after {@code scheduler.partition.handoff-ms},
+     * and claims whose owner went silent, are run here through {@code runner}, side by side on the
+     * {@link ParallelStepExecutor}.
+     */
+    public List<StepReport> await(List<Long> ids, PartitionRunner runner) {
+        long handoffAt = System.currentTimeMillis() + handoffMillis;
+        while (true) {
+            boolean handedOff = System.currentTimeMillis() >= handoffAt;
+            boolean open = false;
+            List<SchedulerPartition> local = new ArrayList<>();
+            Set<Long> stale = new HashSet<>(partitionRepo.findStaleIds(ids, claimTimeoutSeconds));
+            for (SchedulerPartition partition : partitionRepo.findByIdIn(ids)) {
+                if (partition.getStatus() == PartitionStatus.PENDING) {
+                    if (handedOff && claim(partition.getId())) local.add(partition);
+                    else open = true;
+                } else if (partition.getStatus() == PartitionStatus.CLAIMED) {
+                    if (stale.contains(partition.getId()) && reclaim(partition)) local.add(partition);
+                    else open = true;
+                }
+            }
+            if (!local.isEmpty()) {
+                parallelStepExecutor.runAll(local, partition -> complete(partition.getId(), runner.run(partition)));
+                continue;
+            }
+            if (!open) break;
+            try {
+                Thread.sleep(pollMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for scheduler partitions", e);
+            }
+        }
+
+        List<SchedulerPartition> done = partitionRepo.findByIdIn(ids);
+        tx.executeWithoutResult(status -> partitionRepo.deleteAllByIdInBatch(ids));
+        return done.stream().map(p -> new StepReport(
+                p.getStepName() + "[" + p.getLowId() + ".." + p.getHighId() + "]",
+                p.getStatus() == PartitionStatus.COMPLETED ? StepStatus.COMPLETED : StepStatus.FAILED,
+                p.getProcessedCount(), p.getFailedCount(), p.getChunkCount(), p.getDurationMillis(), false)).toList();
+    }
+
+    private boolean reclaim(SchedulerPartition partition) {
+        Integer reclaimed = tx.execute(status -> partitionRepo.reclaim(
+                partition.getId(), leaderElection.getNodeId(), claimTimeoutSeconds));
+        if (reclaimed == null || reclaimed != 1) return false;
+        log.warn("Taking over partition {} of {} from silent node {}", partition.getId(), partition.getStepName(), partition.getOwner());
+        return true;
+    }
+
+    @FunctionalInterface
+    public interface PartitionRunner {
+        StepReport run(SchedulerPartition partition);
+    }
+}
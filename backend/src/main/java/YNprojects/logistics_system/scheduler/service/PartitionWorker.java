@@ -0,0 +1,53 @@
+package YNprojects.logistics_system.scheduler.service;
+
+import YNprojects.logistics_system.scheduler.dto.StepReport;
+import YNprojects.logistics_system.scheduler.entity.SchedulerPartition;
+import YNprojects.logistics_system.scheduler.entity.StepStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Runs on a follower the step partitions the leader published, up to one per scheduler thread per poll.
+ * Each runs with the fencing token of the run that published it, so it stops once that run is fenced out.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PartitionWorker {
+
+    private final PartitionCoordinator partitionCoordinator;
+    private final ChunkedStepRunner stepRunner;
+    private final ParallelStepExecutor parallelStepExecutor;
+    private final LeaderElection leaderElection;
+
+    @Scheduled(fixedDelayString = "${scheduler.partition.poll-ms:1000}")
+    public void poll() {
+        if (!partitionCoordinator.isDistributed() || leaderElection.isLeader()) return;
+        List<SchedulerPartition> claimed = new ArrayList<>();
+        while (claimed.size() < parallelStepExecutor.getParallelism()) {
+            Optional<SchedulerPartition> next = partitionCoordinator.claimNext();
+            if (next.isEmpty()) break;
+            claimed.add(next.get());
+        }
+        if (claimed.isEmpty()) return;
+        log.info("Node {} running {} partition(s) for the leader", leaderElection.getNodeId(), claimed.size());
+        parallelStepExecutor.runAll(claimed, partition -> partitionCoordinator.complete(partition.getId(),
+                leaderElection.fenced(partition.getToken(), () -> run(partition))));
+    }
+
+    private StepReport run(SchedulerPartition partition) {
+        String range = partition.getStepName() + "[" + partition.getLowId() + ".." + partition.getHighId() + "]";
+        return partitionCoordinator.step(partition.getStepName())
+                .map(step -> stepRunner.runRange(step, partition.getRunDate(), partition.getLowId(), partition.getHighId()))
+                .orElseGet(() -> {
+                    log.error("Partition {} names step {}, which this node does not know", partition.getId(), partition.getStepName());
+                    return new StepReport(range, StepStatus.FAILED, 0, 0, 0, 0, false);
+                });
+    }
+}
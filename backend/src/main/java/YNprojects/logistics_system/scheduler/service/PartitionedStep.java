@@ -0,0 +1,21 @@
+package YNprojects.logistics_system.scheduler.service;
+
+import java.time.LocalDate;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * A chunked step that can be split by id range and run on any node. Registered under its name
+ * with the {@link PartitionCoordinator} on every node, so a follower can run a range of it.
+ *
+ * @param readerForDate due rows of a run date, see {@link KeysetReader}; must only return rows that
+ *                      still need the step, so a range can safely be run again
+ * @param maxIdForDate  highest id due on a run date, 0 when none
+ * @param recoverer     may be null
+ */
+public record PartitionedStep(String name,
+                              Function<LocalDate, KeysetReader> readerForDate,
+                              ToLongFunction<LocalDate> maxIdForDate,
+                              ChunkWriter writer,
+                              ItemRecoverer recoverer) {
+}
@@ -0,0 +1,36 @@
+package YNprojects.logistics_system.scheduler.service;
+
+import YNprojects.logistics_system.scheduler.dto.StepReport;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Steps of a run and the steps each one runs after. A step can only name steps declared before it,
+ * so the graph has no cycles. Steps that do not depend on each other are run in parallel by
+ * {@link ParallelStepExecutor}. A step runs once the steps it waits for have finished, whether
+ * they completed or failed: dependencies order the work, they do not gate it.
+ */
+public class StepGraph {
+
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+
+    public StepGraph step(String name, Supplier<StepReport> work, String... after) {
+        if (steps.containsKey(name)) {
+            throw new IllegalArgumentException("Step " + name + " is declared twice");
+        }
+        for (String dependency : after) {
+            if (!steps.containsKey(dependency)) {
+                throw new IllegalArgumentException("Step " + name + " runs after " + dependency + ", which is not declared before it");
+            }
+        }
+        steps.put(name, new Step(name, work, List.of(after)));
+        return this;
+    }
+
+    Collection<Step> steps() {
+        return steps.values();
+    }
+
+    record Step(String name, Supplier<StepReport> work, List<String> after) {}
+}
@@ -0,0 +1,31 @@
+package YNprojects.logistics_system.sequence.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Per-day counter behind generated references (e.g. {@code SHIP-20250101-001}).
+ * Nodes reserve blocks of values by moving {@code nextValue} forward under a row lock
+ * and hand them out from memory, so the row is touched once per block rather than once per reference.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_reference_sequence_name_date", columnNames = {"sequenceName", "sequenceDate"}))
+public class ReferenceSequence {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String sequenceName;
+    private LocalDate sequenceDate;
+
+    private long nextValue;         // first value not yet reserved by any node
+}
@@ -0,0 +1,15 @@
+package YNprojects.logistics_system.sequence.repository;
+
+import YNprojects.logistics_system.sequence.entity.ReferenceSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+public interface ReferenceSequenceRepo extends JpaRepository<ReferenceSequence, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<ReferenceSequence> findBySequenceNameAndSequenceDate(String sequenceName, LocalDate sequenceDate);
+}
@@ -0,0 +1,118 @@
+package YNprojects.logistics_system.sequence.service;
+
+import YNprojects.logistics_system.sequence.entity.ReferenceSequence;
+import YNprojects.logistics_system.sequence.repository.ReferenceSequenceRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out per-day sequence numbers that are unique across nodes.
+ *
+ * Each node reserves a block of {@code reference.sequence.block-size} values from the
+ * {@link ReferenceSequence} row of the day (hi/lo) in a short transaction of its own, then serves
+ * the block from an {@link AtomicLong} without locking. Values left in a block when a node stops
+ * are never used, so numbers are unique and increasing per node but may have gaps.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReferenceSequenceService {
+
+    private final ReferenceSequenceRepo referenceSequenceRepo;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${reference.sequence.block-size:20}")
+    private int blockSize;
+
+    // the first insert of a day's row may race with other nodes
+    private static final int RESERVE_ATTEMPTS = 3;
+
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+    // one per sequence name, so a slow refill only holds up its own sequence
+    private final Map<String, ReentrantLock> refillLocks = new ConcurrentHashMap<>();
+
+    /** Next value of {@code sequenceName} for {@code date}, starting at 1 each day. */
+    public long next(String sequenceName, LocalDate date) {
+        String key = sequenceName + "|" + date;
+        while (true) {
+            Block block = blocks.get(key);
+            if (block != null) {
+                long value = block.next.getAndIncrement();
+                if (value < block.end) return value;
+            }
+            refill(key, block, sequenceName, date);
+        }
+    }
+
+    /**
+     * Reserves a new block unless another thread already replaced the exhausted one. Guarded by a lock
+     * rather than synchronized, which would pin a virtual thread to its carrier during the database round trip.
+     */
+    private void refill(String key, Block exhausted, String sequenceName, LocalDate date) {
+        ReentrantLock refillLock = refillLocks.computeIfAbsent(sequenceName, name -> new ReentrantLock());
+        refillLock.lock();
+        try {
+            if (blocks.get(key) != exhausted) return;
+            long start = reserve(sequenceName, date);
+            blocks.put(key, new Block(start, start + blockSize));
+            // yesterday's blocks are never used again
+            blocks.keySet().removeIf(k -> k.startsWith(sequenceName + "|") && !k.equals(key));
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private long reserve(String sequenceName, LocalDate date) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return tx.execute(status -> reserveLocked(sequenceName, date));
+            } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+                // Another node created the day's row first. MySQL reports the race as a duplicate key, or as
+                // a deadlock or lock wait failure (CannotAcquireLockException, DeadlockLoserDataAccessException)
+                // when both inserts wait on the same gap lock. Either way the row exists by now.
+                if (attempt == RESERVE_ATTEMPTS) throw e;
+                log.debug("Sequence row {} {} created concurrently, retrying", sequenceName, date);
+            }
+        }
+    }
+
+    private long reserveLocked(String sequenceName, LocalDate date) {
+        ReferenceSequence sequence = referenceSequenceRepo.findBySequenceNameAndSequenceDate(sequenceName, date)
+                .orElseGet(() -> {
+                    ReferenceSequence s = new ReferenceSequence();
+                    s.setSequenceName(sequenceName);
+                    s.setSequenceDate(date);
+                    s.setNextValue(1);
+                    return s;
+                });
+        long start = sequence.getNextValue();
+        sequence.setNextValue(start + blockSize);
+        referenceSequenceRepo.saveAndFlush(sequence);
+        return start;
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;      // exclusive
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
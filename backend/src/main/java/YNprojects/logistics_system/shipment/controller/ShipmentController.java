@@ -1,8 +1,11 @@
 package YNprojects.logistics_system.shipment.controller;
 
 import YNprojects.logistics_system.shipment.dto.ChangeShipmentStatusDto;
+import YNprojects.logistics_system.shipment.dto.ChangeShipmentStatusResultDto;
 import YNprojects.logistics_system.shipment.dto.CreateShipmentDto;
 import YNprojects.logistics_system.shipment.dto.ShipmentDto;
+import YNprojects.logistics_system.shipment.dto.ShipmentFilterDto;
+import YNprojects.logistics_system.shipment.dto.ShipmentPageDto;
 import YNprojects.logistics_system.shipment.service.ShipmentService;
 import lombok.AllArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -29,6 +32,14 @@ public class ShipmentController {
         return ResponseEntity.ok(list);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<ShipmentPageDto> pageShipments(ShipmentFilterDto filter,
+                                                         @RequestParam(required = false) Long cursor,
+                                                         @RequestParam(defaultValue = "50") int size) {
+        ShipmentPageDto page = shipmentService.getShipmentPage(filter, cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
     @GetMapping("/inbound")
     public ResponseEntity<List<ShipmentDto>> getInboundShipments() {
         List<ShipmentDto> list = shipmentService.getInboundShipments();
@@ -49,9 +60,14 @@ public class ShipmentController {
 
     @PutMapping("/change-status")
     public ResponseEntity<ShipmentDto> changeStatus(@RequestBody ChangeShipmentStatusDto changeDto) {
-        System.out.println(changeDto);
         ShipmentDto updated = shipmentService.changeShipmentStatus(changeDto);
         return ResponseEntity.ok(updated);
     }
 
+    @PostMapping("/change-status/batch")
+    public ResponseEntity<List<ChangeShipmentStatusResultDto>> changeStatusBatch(@RequestBody List<ChangeShipmentStatusDto> changes) {
+        List<ChangeShipmentStatusResultDto> results = shipmentService.changeShipmentStatusBatch(changes);
+        return ResponseEntity.ok(results);
+    }
+
 }
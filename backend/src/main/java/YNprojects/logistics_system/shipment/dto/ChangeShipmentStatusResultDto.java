@@ -0,0 +1,27 @@
+package YNprojects.logistics_system.shipment.dto;
+
+import YNprojects.logistics_system.shipment.entity.ShipmentStatus;
+import lombok.*;
+
+/** Outcome of one item of a batch status change, in request order. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class ChangeShipmentStatusResultDto {
+
+    private Long shipmentId;
+    private ShipmentStatus targetStatus;
+    private boolean success;
+    private String error;
+    private ShipmentDto shipment;
+
+    public static ChangeShipmentStatusResultDto success(Long shipmentId, ShipmentStatus targetStatus, ShipmentDto shipment) {
+        return new ChangeShipmentStatusResultDto(shipmentId, targetStatus, true, null, shipment);
+    }
+
+    public static ChangeShipmentStatusResultDto failure(Long shipmentId, ShipmentStatus targetStatus, String error) {
+        return new ChangeShipmentStatusResultDto(shipmentId, targetStatus, false, error, null);
+    }
+}
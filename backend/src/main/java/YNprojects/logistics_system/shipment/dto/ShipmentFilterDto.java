@@ -0,0 +1,33 @@
+package YNprojects.logistics_system.shipment.dto;
+
+import YNprojects.logistics_system.shipment.entity.ShipmentDirection;
+import YNprojects.logistics_system.shipment.entity.ShipmentStatus;
+import YNprojects.logistics_system.shipment.entity.TransportMode;
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/** Optional filters of the shipment listing; null fields are ignored. Date ranges are inclusive. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class ShipmentFilterDto {
+
+    private ShipmentDirection direction;
+    private ShipmentStatus status;
+    private TransportMode transportMode;
+    private Long supplierId;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate departureFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate departureTo;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate arrivalFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate arrivalTo;
+}
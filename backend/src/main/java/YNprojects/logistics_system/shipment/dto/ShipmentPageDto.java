@@ -0,0 +1,19 @@
+package YNprojects.logistics_system.shipment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/** One page of shipments, newest first. Pass {@code nextCursor} back as {@code cursor}; it is null on the last page. */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ShipmentPageDto {
+
+    private List<ShipmentSummaryDto> items;
+    private Long nextCursor;
+}
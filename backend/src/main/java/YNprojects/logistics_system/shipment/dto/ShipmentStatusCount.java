@@ -0,0 +1,11 @@
+package YNprojects.logistics_system.shipment.dto;
+
+import YNprojects.logistics_system.shipment.entity.ShipmentDirection;
+import YNprojects.logistics_system.shipment.entity.ShipmentStatus;
+
+/** Row of a shipment count grouped by direction and status. */
+public interface ShipmentStatusCount {
+    ShipmentDirection getDirection();
+    ShipmentStatus getStatus();
+    long getTotal();
+}
@@ -0,0 +1,50 @@
+package YNprojects.logistics_system.shipment.dto;
+
+import YNprojects.logistics_system.shipment.entity.ShipmentDirection;
+import YNprojects.logistics_system.shipment.entity.ShipmentStatus;
+import YNprojects.logistics_system.shipment.entity.TransportMode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Flat listing row of a shipment. Built directly by a JPQL constructor projection,
+ * so the referenced names come from the same statement (constructor argument order matters).
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ShipmentSummaryDto {
+
+    private Long id;
+    private String referenceCode;
+    private ShipmentDirection direction;
+    private ShipmentStatus status;
+    private TransportMode transportMode;
+    private Double quantity;
+
+    private Long productId;
+    private String productName;
+
+    private Long rawMaterialId;
+    private String rawMaterialName;
+
+    private Long supplierId;
+    private String supplierName;
+
+    private String customerName;
+
+    private LocalDate departureDate;
+    private LocalDate estimateArrivalDate;
+    private LocalDate actualArrivalDate;
+
+    private String trackingNumber;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -17,6 +17,12 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_shipment_status_departure", columnList = "status, departureDate"),
+        @Index(name = "idx_shipment_status_eta", columnList = "status, estimateArrivalDate"),
+        @Index(name = "idx_shipment_direction_status", columnList = "direction, status"),
+        @Index(name = "uk_shipment_reference_code", columnList = "referenceCode", unique = true)
+})
 public class Shipment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
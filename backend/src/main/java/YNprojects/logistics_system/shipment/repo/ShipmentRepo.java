@@ -1,18 +1,152 @@
 package YNprojects.logistics_system.shipment.repo;
 
+import YNprojects.logistics_system.mrp.dto.MaterialFlow;
+import YNprojects.logistics_system.shipment.dto.ShipmentStatusCount;
+import YNprojects.logistics_system.shipment.dto.ShipmentSummaryDto;
 import YNprojects.logistics_system.shipment.entity.Shipment;
 import YNprojects.logistics_system.shipment.entity.ShipmentDirection;
 import YNprojects.logistics_system.shipment.entity.ShipmentStatus;
+import YNprojects.logistics_system.shipment.entity.TransportMode;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ShipmentRepo extends JpaRepository<Shipment, Long> {
+
+    /** Listing projection: the shipment with its referenced names, joined in the same statement. */
+    String SUMMARY_SELECT = "select new YNprojects.logistics_system.shipment.dto.ShipmentSummaryDto(" +
+            "s.id, s.referenceCode, s.direction, s.status, s.transportMode, s.quantity, " +
+            "p.id, p.name, r.id, r.name, sup.id, sup.supplierName, s.customerName, " +
+            "s.departureDate, s.estimateArrivalDate, s.actualArrivalDate, s.trackingNumber, s.createdAt, s.updatedAt) " +
+            "from Shipment s left join s.product p left join s.rawMaterial r left join s.supplier sup ";
+
     List<Shipment> findByStatusAndDepartureDate(ShipmentStatus status, LocalDate departureDate);
 
     List<Shipment> findByStatusAndEstimateArrivalDate(ShipmentStatus status, LocalDate estimateArrivalDate);
 
+    // The full lists fetch their references in the same statement instead of one select per row.
+    @Override
+    @EntityGraph(attributePaths = {"product", "rawMaterial", "supplier"})
+    List<Shipment> findAll();
+
+    @EntityGraph(attributePaths = {"product", "rawMaterial", "supplier"})
     List<Shipment> findByDirection(ShipmentDirection direction);
+
+    /**
+     * Keyset page of shipments, newest first: rows with an id below {@code cursor} (all rows when null),
+     * limited by {@code pageable}. Null filters are ignored.
+     */
+    @Query(SUMMARY_SELECT + "where (:cursor is null or s.id < :cursor) " +
+            "and (:direction is null or s.direction = :direction) " +
+            "and (:status is null or s.status = :status) " +
+            "and (:transportMode is null or s.transportMode = :transportMode) " +
+            "and (:supplierId is null or sup.id = :supplierId) " +
+            "and (:departureFrom is null or s.departureDate >= :departureFrom) " +
+            "and (:departureTo is null or s.departureDate <= :departureTo) " +
+            "and (:arrivalFrom is null or s.estimateArrivalDate >= :arrivalFrom) " +
+            "and (:arrivalTo is null or s.estimateArrivalDate <= :arrivalTo) " +
+            "order by s.id desc")
+    List<ShipmentSummaryDto> findSummaryPage(@Param("cursor") Long cursor,
+                                             @Param("direction") ShipmentDirection direction,
+                                             @Param("status") ShipmentStatus status,
+                                             @Param("transportMode") TransportMode transportMode,
+                                             @Param("supplierId") Long supplierId,
+                                             @Param("departureFrom") LocalDate departureFrom,
+                                             @Param("departureTo") LocalDate departureTo,
+                                             @Param("arrivalFrom") LocalDate arrivalFrom,
+                                             @Param("arrivalTo") LocalDate arrivalTo,
+                                             Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Shipment s where s.id = :id")
+    Optional<Shipment> findByIdForUpdate(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Shipment s where s.id in :ids order by s.id")
+    List<Shipment> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    /** Shipments of {@code status} by departure date, served by the (status, departureDate) index. */
+    @Query(SUMMARY_SELECT + "where s.status = :status and s.departureDate is not null " +
+            "order by s.departureDate, s.id")
+    List<ShipmentSummaryDto> findSummariesByStatusOrderByDepartureDate(@Param("status") ShipmentStatus status,
+                                                                      Pageable pageable);
+
+    @Query("select s.direction as direction, s.status as status, count(s) as total " +
+            "from Shipment s group by s.direction, s.status")
+    List<ShipmentStatusCount> countByDirectionAndStatus();
+
+    // ---- keyset readers for the scheduler ----
+
+    @Query("select s.id from Shipment s where s.status = :status and s.departureDate = :date " +
+            "and s.id > :afterId order by s.id")
+    List<Long> findIdsByStatusAndDepartureDate(@Param("status") ShipmentStatus status,
+                                               @Param("date") LocalDate date,
+                                               @Param("afterId") long afterId,
+                                               Pageable pageable);
+
+    @Query("select s.id from Shipment s where s.status = :status and s.estimateArrivalDate = :date " +
+            "and s.id > :afterId order by s.id")
+    List<Long> findIdsByStatusAndEstimateArrivalDate(@Param("status") ShipmentStatus status,
+                                                     @Param("date") LocalDate date,
+                                                     @Param("afterId") long afterId,
+                                                     Pageable pageable);
+
+    /** Highest id due on {@code date}, 0 when none; bounds the id ranges of a partitioned step. */
+    @Query("select coalesce(max(s.id), 0) from Shipment s where s.status = :status and s.departureDate = :date")
+    long findMaxIdByStatusAndDepartureDate(@Param("status") ShipmentStatus status, @Param("date") LocalDate date);
+
+    @Query("select coalesce(max(s.id), 0) from Shipment s where s.status = :status and s.estimateArrivalDate = :date")
+    long findMaxIdByStatusAndEstimateArrivalDate(@Param("status") ShipmentStatus status, @Param("date") LocalDate date);
+
+    /** Next due date after {@code after} (exclusive) and up to {@code upTo}, served by the (status, departureDate) index. */
+    @Query("select min(s.departureDate) from Shipment s where s.status = :status " +
+            "and s.departureDate > :after and s.departureDate <= :upTo")
+    LocalDate findNextDepartureDate(@Param("status") ShipmentStatus status,
+                                    @Param("after") LocalDate after,
+                                    @Param("upTo") LocalDate upTo);
+
+    /** Next due date after {@code after} (exclusive) and up to {@code upTo}, served by the (status, estimateArrivalDate) index. */
+    @Query("select min(s.estimateArrivalDate) from Shipment s where s.status = :status " +
+            "and s.estimateArrivalDate > :after and s.estimateArrivalDate <= :upTo")
+    LocalDate findNextEstimateArrivalDate(@Param("status") ShipmentStatus status,
+                                          @Param("after") LocalDate after,
+                                          @Param("upTo") LocalDate upTo);
+
+    /**
+     * Set-based status transition. The {@code from} guard makes it a no-op for rows
+     * that were changed by someone else since they were read.
+     */
+    @Modifying
+    @Query("update Shipment s set s.status = :to, s.updatedAt = :now where s.id in :ids and s.status = :from")
+    int updateStatusByIds(@Param("ids") Collection<Long> ids,
+                          @Param("from") ShipmentStatus from,
+                          @Param("to") ShipmentStatus to,
+                          @Param("now") LocalDateTime now);
+
+    @Query("select s.id from Shipment s where s.id in :ids and s.status = :status")
+    List<Long> findIdsByIdInAndStatus(@Param("ids") Collection<Long> ids, @Param("status") ShipmentStatus status);
+
+    /** Raw material quantities of the shipments in {@code direction} and {@code statuses}, due on their estimated arrival. */
+    @Query("select s.id as sourceId, s.rawMaterial.id as rawMaterialId, s.quantity as quantity, s.estimateArrivalDate as date " +
+            "from Shipment s where s.direction = :direction and s.status in :statuses and s.rawMaterial is not null")
+    List<MaterialFlow> findMaterialFlows(@Param("direction") ShipmentDirection direction,
+                                         @Param("statuses") Collection<ShipmentStatus> statuses);
+
+    @Query("select s.id as sourceId, s.rawMaterial.id as rawMaterialId, s.quantity as quantity, s.estimateArrivalDate as date " +
+            "from Shipment s where s.direction = :direction and s.status in :statuses and s.rawMaterial is not null " +
+            "and s.id in :ids")
+    List<MaterialFlow> findMaterialFlowsByIdIn(@Param("direction") ShipmentDirection direction,
+                                               @Param("statuses") Collection<ShipmentStatus> statuses,
+                                               @Param("ids") Collection<Long> ids);
 }
@@ -4,15 +4,24 @@ import YNprojects.logistics_system.alert.entity.AlertSeverity;
 import YNprojects.logistics_system.alert.entity.AlertType;
 import YNprojects.logistics_system.alert.entity.EntityType;
 import YNprojects.logistics_system.alert.service.AlertService;
+import YNprojects.logistics_system.inventory.dto.StockChange;
+import YNprojects.logistics_system.inventory.entity.MovementCause;
+import YNprojects.logistics_system.inventory.entity.StockItemType;
+import YNprojects.logistics_system.inventory.service.InventoryEngine;
+import YNprojects.logistics_system.inventory.service.InventoryLockManager;
+import YNprojects.logistics_system.events.ShipmentStatusChangedEvent;
 import YNprojects.logistics_system.exceptions.ResourceNotFoundException;
-import YNprojects.logistics_system.rawmaterialinventory.entity.RawMaterialInventory;
 import YNprojects.logistics_system.rawmaterialinventory.repository.RawMaterialInventoryRepo;
+import YNprojects.logistics_system.sequence.service.ReferenceSequenceService;
 import YNprojects.logistics_system.shipment.dto.ChangeShipmentStatusDto;
+import YNprojects.logistics_system.shipment.dto.ChangeShipmentStatusResultDto;
 import YNprojects.logistics_system.shipment.dto.ShipmentDto;
+import YNprojects.logistics_system.shipment.dto.ShipmentFilterDto;
+import YNprojects.logistics_system.shipment.dto.ShipmentPageDto;
+import YNprojects.logistics_system.shipment.dto.ShipmentSummaryDto;
 import YNprojects.logistics_system.shipment.mapper.ShipmentMapper;
 import YNprojects.logistics_system.product.entity.Product;
 import YNprojects.logistics_system.product.repository.ProductRepo;
-import YNprojects.logistics_system.productinventory.entities.ProductInventory;
 import YNprojects.logistics_system.productinventory.repository.ProductInventoryRepo;
 import YNprojects.logistics_system.rawmaterial.entity.RawMaterial;
 import YNprojects.logistics_system.rawmaterial.repository.RawMaterialRepo;
@@ -23,17 +32,20 @@ import YNprojects.logistics_system.shipment.entity.ShipmentStatus;
 import YNprojects.logistics_system.supplier.entity.Supplier;
 import YNprojects.logistics_system.shipment.repo.ShipmentRepo;
 import YNprojects.logistics_system.supplier.repository.SupplierRepo;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 
-@AllArgsConstructor
+@RequiredArgsConstructor
 @Service
 public class ShipmentService {
 
@@ -44,19 +56,51 @@ public class ShipmentService {
     private final ProductInventoryRepo productInventoryRepo;
     private final RawMaterialInventoryRepo rawMaterialInventoryRepo;
     private final AlertService alertService;
+    private final ReferenceSequenceService referenceSequenceService;
+    private final InventoryEngine inventoryEngine;
+    private final InventoryLockManager inventoryLockManager;
+    private final ApplicationEventPublisher eventPublisher;
 
-    private static int dailyCounter = 0;
-    private static LocalDate lastResetDate = LocalDate.now();
+    private static final String REFERENCE_SEQUENCE = "shipment";
 
+    @Value("${shipment.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${shipment.page.max-size:200}")
+    private int maxPageSize;
+
+    /** {@code SHIP-yyyyMMdd-NNN}; the number is padded to three digits and simply grows past 999. */
     public String generateReference() {
         LocalDate today = LocalDate.now();
-        if (!today.equals(lastResetDate)) {
-            dailyCounter = 0;
-            lastResetDate = today;
+        long sequence = referenceSequenceService.next(REFERENCE_SEQUENCE, today);
+        return "SHIP-" + today.format(DateTimeFormatter.BASIC_ISO_DATE) + "-" + String.format("%03d", sequence);
+    }
+
+    /**
+     * Keyset page of shipments, newest first. {@code cursor} is the {@code nextCursor} of the previous page
+     * (null for the first). One extra row is read to know whether another page follows.
+     */
+    @Transactional(readOnly = true)
+    public ShipmentPageDto getShipmentPage(ShipmentFilterDto filter, Long cursor, int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
         }
-        dailyCounter++;
-        String sequence = String.format("%03d", dailyCounter);
-        return "SHIP-" + today.format(DateTimeFormatter.BASIC_ISO_DATE) + "-" + sequence;
+        List<ShipmentSummaryDto> rows = shipmentRepo.findSummaryPage(
+                cursor,
+                filter.getDirection(),
+                filter.getStatus(),
+                filter.getTransportMode(),
+                filter.getSupplierId(),
+                filter.getDepartureFrom(),
+                filter.getDepartureTo(),
+                filter.getArrivalFrom(),
+                filter.getArrivalTo(),
+                PageRequest.of(0, size + 1));
+        if (rows.size() <= size) {
+            return new ShipmentPageDto(rows, null);
+        }
+        List<ShipmentSummaryDto> items = rows.subList(0, size);
+        return new ShipmentPageDto(new ArrayList<>(items), items.get(size - 1).getId());
     }
 
     public List<ShipmentDto> getAllShipments() {
@@ -78,8 +122,12 @@ public class ShipmentService {
         return ShipmentMapper.toDto(shipment);
     }
 
-    @Transactional
+    // Retried as a whole on an inventory lock timeout or deadlock
     public ShipmentDto createShipment(CreateShipmentDto dto) {
+        return inventoryLockManager.inTransaction(() -> doCreateShipment(dto));
+    }
+
+    private ShipmentDto doCreateShipment(CreateShipmentDto dto) {
         if (dto == null) throw new IllegalArgumentException("CreateShipmentDto cannot be null");
         if (dto.getQuantity() == null || dto.getQuantity() <= 0) throw new IllegalArgumentException("Quantity must be > 0");
         if (dto.getDirection() == null) throw new IllegalArgumentException("Shipment direction is required");
@@ -150,109 +198,212 @@ public class ShipmentService {
         }
         shipment.setStatus(status);
 
-        // -------------- Inventory side-effects --------------
-        // OUTBOUND: reserve (deduct) finished product inventory immediately at creation
-        if (shipment.getDirection() == ShipmentDirection.OUTBOUND) {
-            // IMPORTANT: use a repository method that applies a database lock (PESSIMISTIC_WRITE)
-            // e.g. productInventoryRepo.findByProductIdForUpdate(product.getId())
-            Product product = shipment.getProduct();
-            ProductInventory inv = productInventoryRepo
-                    .findByProduct(product) // implement with @Lock(LockModeType.PESSIMISTIC_WRITE)
-                    .orElseThrow(() -> new IllegalStateException("No inventory record for product: " + product.getName()));
-
-            double available = inv.getQuantity();
-            double qty = shipment.getQuantity();
-            if (available < qty) {
-                throw new IllegalStateException("Insufficient finished-product stock. Available: " + available + ", required: " + qty);
-            }
-
-            inv.setQuantity(available - qty);
-            productInventoryRepo.save(inv);
-            if(inv.getQuantity() <= inv.getReorderThreshold()) {
-                alertService.createIfNotExists(AlertType.LOW_STOCK,
-                        AlertSeverity.WARNING,
-                        EntityType.PRODUCT_INVENTORY,
-                        inv.getId());
-            }
-        }
-        // INBOUND: no inventory changes now — inventory is increased when shipment marked DELIVERED
-
         // -------------- finalize shipment entity --------------
         shipment.setReferenceCode(generateReference()); // existing method you mentioned
         shipment.setCreatedAt(LocalDateTime.now());
         shipment.setUpdatedAt(LocalDateTime.now());
 
-        // Persist
+        // Persist first so the stock movement can point to the shipment; a shortage rolls both back
         Shipment saved = shipmentRepo.save(shipment);
 
+        // -------------- Inventory side-effects --------------
+        // OUTBOUND: reserve (deduct) finished product inventory immediately at creation
+        if (saved.getDirection() == ShipmentDirection.OUTBOUND) {
+            inventoryEngine.apply(List.of(StockChange.product(
+                    saved.getProduct().getId(), -saved.getQuantity(), MovementCause.SHIPMENT, saved.getId())));
+        }
+        // INBOUND: no inventory changes now — inventory is increased when shipment marked DELIVERED
+
+        eventPublisher.publishEvent(new ShipmentStatusChangedEvent(saved.getId(), null, saved.getStatus()));
+
         // Optional: generate alerts if reservation dropped below threshold
         // if (shipment.getDirection()==OUTBOUND) alertService.checkLowStock(product);
 
         return ShipmentMapper.toDto(saved);
     }
 
-    @Transactional
     public ShipmentDto changeShipmentStatus(ChangeShipmentStatusDto changeShipmentStatusDto) {
+        return inventoryLockManager.inTransaction(() -> doChangeShipmentStatus(changeShipmentStatusDto));
+    }
+
+    private ShipmentDto doChangeShipmentStatus(ChangeShipmentStatusDto changeShipmentStatusDto) {
 
         Long shipmentId = changeShipmentStatusDto.getShipmentId() ;
         ShipmentStatus targetStatus = changeShipmentStatusDto.getTargetStatus();
-        System.out.println("shipmentId = "+shipmentId);
-        System.out.println("targetStatus = "+targetStatus);
         if (shipmentId == null || targetStatus == null) {
             throw new IllegalArgumentException("shipmentId and targetStatus are required");
         }
 
-        // 1) Load & lock shipment row to avoid concurrent transitions.
-        Shipment shipment = shipmentRepo.findById(shipmentId)
+        // 1) Load & lock shipment row (FOR UPDATE, as the batch path does) to avoid concurrent transitions.
+        Shipment shipment = shipmentRepo.findByIdForUpdate(shipmentId)
                 .orElseThrow(() -> new IllegalArgumentException("Shipment not found: " + shipmentId));
 
         ShipmentStatus current = shipment.getStatus();
         if (current == targetStatus) return ShipmentMapper.toDto(shipment); // noop
 
-        // 2) Terminal guard
+        // 2) Terminal guard + allowed transitions
+        validateTransition(current, targetStatus);
+
+        // 3) Inventory side-effects (stock only ever comes back on a status change)
+        StockChange stockReturn = stockReturnFor(shipment, current, targetStatus);
+        if (stockReturn != null) {
+            inventoryEngine.apply(List.of(stockReturn));
+        }
+
+        // 4) Status, dates and shipment alerts
+        applyTransition(shipment, current, targetStatus, LocalDate.now());
+
+        Shipment saved = shipmentRepo.save(shipment);
+
+        return ShipmentMapper.toDto(saved);
+    }
+
+    /**
+     * Applies many status transitions in one transaction.
+     *
+     * Every item is validated first; invalid items are reported as failures and left untouched.
+     * The stock returned by the valid items goes to the {@link InventoryEngine} in a single call,
+     * which sums it per item and updates each inventory row once. Results are returned in request order.
+     */
+    public List<ChangeShipmentStatusResultDto> changeShipmentStatusBatch(List<ChangeShipmentStatusDto> changes) {
+        return inventoryLockManager.inTransaction(() -> doChangeShipmentStatusBatch(changes));
+    }
+
+    private List<ChangeShipmentStatusResultDto> doChangeShipmentStatusBatch(List<ChangeShipmentStatusDto> changes) {
+        if (changes == null || changes.isEmpty()) {
+            throw new IllegalArgumentException("At least one status change is required");
+        }
+        if (changes.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch too large: " + changes.size() + " items, max is " + maxBatchSize);
+        }
+
+        // 1) Lock all referenced shipments in id order
+        Set<Long> ids = changes.stream()
+                .map(ChangeShipmentStatusDto::getShipmentId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(TreeSet::new));
+        Map<Long, Shipment> shipments = shipmentRepo.findAllByIdInForUpdate(ids).stream()
+                .collect(Collectors.toMap(Shipment::getId, s -> s));
+
+        // 2) Validate each item and plan its stock return
+        ChangeShipmentStatusResultDto[] results = new ChangeShipmentStatusResultDto[changes.size()];
+        Map<Integer, StockChange> planned = new LinkedHashMap<>();
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < changes.size(); i++) {
+            ChangeShipmentStatusDto change = changes.get(i);
+            Long shipmentId = change.getShipmentId();
+            ShipmentStatus targetStatus = change.getTargetStatus();
+            try {
+                if (shipmentId == null || targetStatus == null) {
+                    throw new IllegalArgumentException("shipmentId and targetStatus are required");
+                }
+                if (!seen.add(shipmentId)) {
+                    throw new IllegalArgumentException("Shipment appears more than once in the batch: " + shipmentId);
+                }
+                Shipment shipment = shipments.get(shipmentId);
+                if (shipment == null) {
+                    throw new IllegalArgumentException("Shipment not found: " + shipmentId);
+                }
+                if (shipment.getStatus() == targetStatus) {
+                    results[i] = ChangeShipmentStatusResultDto.success(shipmentId, targetStatus, ShipmentMapper.toDto(shipment));
+                    continue;
+                }
+                validateTransition(shipment.getStatus(), targetStatus);
+                planned.put(i, stockReturnFor(shipment, shipment.getStatus(), targetStatus));
+            } catch (RuntimeException e) {
+                results[i] = ChangeShipmentStatusResultDto.failure(shipmentId, targetStatus, e.getMessage());
+            }
+        }
+
+        // 3) Items whose inventory row is missing fail on their own, without their stock
+        Set<Long> productIds = new HashSet<>();
+        Set<Long> rawIds = new HashSet<>();
+        planned.values().stream().filter(Objects::nonNull).forEach(c ->
+                (c.getItemType() == StockItemType.PRODUCT ? productIds : rawIds).add(c.getItemId()));
+        Set<Long> productsWithInventory = productIds.isEmpty() ? Set.of()
+                : new HashSet<>(productInventoryRepo.findProductIdsWithInventory(productIds));
+        Set<Long> rawsWithInventory = rawIds.isEmpty() ? Set.of()
+                : new HashSet<>(rawMaterialInventoryRepo.findRawMaterialIdsWithInventory(rawIds));
+        planned.entrySet().removeIf(entry -> {
+            StockChange stockReturn = entry.getValue();
+            if (stockReturn == null) return false;
+            boolean product = stockReturn.getItemType() == StockItemType.PRODUCT;
+            if ((product ? productsWithInventory : rawsWithInventory).contains(stockReturn.getItemId())) return false;
+            int i = entry.getKey();
+            results[i] = ChangeShipmentStatusResultDto.failure(changes.get(i).getShipmentId(), changes.get(i).getTargetStatus(),
+                    product ? "No product inventory record for product: " + stockReturn.getItemId()
+                            : "No raw material inventory for id: " + stockReturn.getItemId());
+            return true;
+        });
+
+        // 4) Return the stock, one write per inventory row
+        List<StockChange> stockReturns = planned.values().stream().filter(Objects::nonNull).toList();
+        if (!stockReturns.isEmpty()) {
+            inventoryEngine.apply(stockReturns);
+        }
+
+        // 5) Apply the status transitions
+        LocalDate today = LocalDate.now();
+        List<Shipment> changed = new ArrayList<>();
+        planned.keySet().forEach(i -> {
+            Shipment shipment = shipments.get(changes.get(i).getShipmentId());
+            applyTransition(shipment, shipment.getStatus(), changes.get(i).getTargetStatus(), today);
+            changed.add(shipment);
+        });
+        shipmentRepo.saveAll(changed);
+        planned.keySet().forEach(i -> {
+            Shipment shipment = shipments.get(changes.get(i).getShipmentId());
+            results[i] = ChangeShipmentStatusResultDto.success(shipment.getId(), shipment.getStatus(), ShipmentMapper.toDto(shipment));
+        });
+
+        return Arrays.asList(results);
+    }
+
+    /** Stock that comes back when a shipment moves from {@code current} to {@code target}, or null. */
+    private StockChange stockReturnFor(Shipment shipment, ShipmentStatus current, ShipmentStatus target) {
+        // OUTBOUND -> CANCELLED: we had reserved stock at creation; return it
+        if (target == ShipmentStatus.CANCELLED && shipment.getDirection() == ShipmentDirection.OUTBOUND) {
+            Product product = shipment.getProduct();
+            if (product == null || product.getId() == null) {
+                throw new IllegalStateException("Outbound shipment missing product reference");
+            }
+            return StockChange.product(product.getId(), shipment.getQuantity(), MovementCause.SHIPMENT, shipment.getId());
+        }
+        // INBOUND IN_TRANSIT -> DELIVERED: add raw materials to inventory
+        if (current == ShipmentStatus.IN_TRANSIT && target == ShipmentStatus.DELIVERED
+                && shipment.getDirection() == ShipmentDirection.INBOUND) {
+            RawMaterial raw = shipment.getRawMaterial();
+            if (raw == null || raw.getId() == null) {
+                throw new IllegalStateException("Inbound shipment missing raw material reference");
+            }
+            return StockChange.rawMaterial(raw.getId(), shipment.getQuantity(), MovementCause.SHIPMENT, shipment.getId());
+        }
+        // inbound cancel: nothing to revert (not yet added); outbound deliver: already deducted at creation
+        return null;
+    }
+
+    private void validateTransition(ShipmentStatus current, ShipmentStatus targetStatus) {
         if (current == ShipmentStatus.DELIVERED || current == ShipmentStatus.CANCELLED) {
             throw new IllegalStateException("Cannot change status of a terminal shipment: " + current);
         }
-
-        // 3) Validate allowed transitions
         if (!isAllowedShipmentTransition(current, targetStatus)) {
             throw new IllegalStateException("Invalid shipment status transition: " + current + " -> " + targetStatus);
         }
+    }
 
-        LocalDate today = LocalDate.now();
-
-        // ---------- Transition implementations ----------
+    /** Status, dates and shipment alerts of a validated transition. Inventory is handled by the caller. */
+    private void applyTransition(Shipment shipment, ShipmentStatus current, ShipmentStatus targetStatus, LocalDate today) {
         // PLANNED -> IN_TRANSIT
         if (current == ShipmentStatus.PLANNED && targetStatus == ShipmentStatus.IN_TRANSIT) {
             // set departure date if missing
             if (shipment.getDepartureDate() == null || shipment.getDepartureDate().isAfter(today)) {
-                System.out.println("it is isn't it, departure date is before today");
                 shipment.setDepartureDate(today);
             }
             shipment.setStatus(ShipmentStatus.IN_TRANSIT);
-
         }
 
-        // PLANNED -> CANCELLED
-        else if (current == ShipmentStatus.PLANNED && targetStatus == ShipmentStatus.CANCELLED) {
-            // if outbound we had reserved stock at creation; return it
-            if (shipment.getDirection() == ShipmentDirection.OUTBOUND) {
-                Product product = shipment.getProduct();
-                if (product == null || product.getId() == null) {
-                    throw new IllegalStateException("Outbound shipment missing product reference");
-                }
-                // lock product inventory row
-                ProductInventory inv = productInventoryRepo
-                        .findByProduct(product)
-                        .orElseThrow(() -> new IllegalStateException("No product inventory record for product: " + product.getId()));
-                inv.setQuantity(inv.getQuantity() + shipment.getQuantity());
-                productInventoryRepo.save(inv);
-                if(inv.getQuantity() > inv.getReorderThreshold()) {
-                    alertService.resolveByTypeAndEntity(AlertType.LOW_STOCK,
-                            EntityType.PRODUCT_INVENTORY,
-                            inv.getId());
-                }
-            }
+        // PLANNED || IN_TRANSIT || DELAYED -> CANCELLED (allow cancelling while in transit)
+        else if (targetStatus == ShipmentStatus.CANCELLED) {
             shipment.setStatus(ShipmentStatus.CANCELLED);
             alertService.createIfNotExists(
                     AlertType.SHIPMENT_CANCELLED,
@@ -260,29 +411,16 @@ public class ShipmentService {
                     EntityType.SHIPMENT,
                     shipment.getId()
             );
+            if(current == ShipmentStatus.DELAYED){
+                alertService.resolveByTypeAndEntity(
+                        AlertType.SHIPMENT_DELAYED,
+                        EntityType.SHIPMENT,
+                        shipment.getId());
+            }
         }
 
         // IN_TRANSIT -> DELIVERED
         else if (current == ShipmentStatus.IN_TRANSIT && targetStatus == ShipmentStatus.DELIVERED) {
-            // For inbound, add raw materials to inventory
-            if (shipment.getDirection() == ShipmentDirection.INBOUND) {
-                RawMaterial raw = shipment.getRawMaterial();
-                if (raw == null || raw.getId() == null) {
-                    throw new IllegalStateException("Inbound shipment missing raw material reference");
-                }
-                RawMaterialInventory rawInv = rawMaterialInventoryRepo
-                        .findByRawMaterial(raw)
-                        .orElseThrow(() -> new IllegalStateException("No raw material inventory for id: " + raw.getId()));
-                rawInv.setQuantity(rawInv.getQuantity() + shipment.getQuantity());
-                rawMaterialInventoryRepo.save(rawInv);
-                if (rawInv.getQuantity() > rawInv.getReorderThreshold()) {
-                    alertService.resolveByTypeAndEntity(AlertType.RAW_MATERIAL_SHORTAGE,
-                            EntityType.RAW_MATERIAL_INVENTORY,
-                            rawInv.getId());
-                }
-            }
-            // For outbound: inventory was already deducted at creation
-
             // set actual arrival date if missing
             if (shipment.getActualArrivalDate() == null) {
                 shipment.setActualArrivalDate(today);
@@ -312,50 +450,14 @@ public class ShipmentService {
                     EntityType.SHIPMENT,
                     shipment.getId());
         }
-        // IN_TRANSIT || DELAYED -> CANCELLED (allow cancelling while in transit)
-        else if ((current == ShipmentStatus.IN_TRANSIT || current == ShipmentStatus.DELAYED) && targetStatus == ShipmentStatus.CANCELLED) {
-            if (shipment.getDirection() == ShipmentDirection.OUTBOUND) {
-                Product product = shipment.getProduct();
-                if (product == null || product.getId() == null) {
-                    throw new IllegalStateException("Outbound shipment missing product reference");
-                }
-                ProductInventory inv = productInventoryRepo
-                        .findByProduct(product)
-                        .orElseThrow(() -> new IllegalStateException("No product inventory record for product: " + product.getId()));
-                inv.setQuantity(inv.getQuantity() + shipment.getQuantity());
-                productInventoryRepo.save(inv);
-                if(inv.getQuantity() > inv.getReorderThreshold()) {
-                    alertService.resolveByTypeAndEntity(AlertType.LOW_STOCK,
-                            EntityType.PRODUCT_INVENTORY,
-                            inv.getId());
-                }
-            }
-            // inbound: nothing to revert (not yet added)
-            shipment.setStatus(ShipmentStatus.CANCELLED);
-            alertService.createIfNotExists(
-                    AlertType.SHIPMENT_CANCELLED,
-                    AlertSeverity.WARNING,
-                    EntityType.SHIPMENT,
-                    shipment.getId()
-            );
-            if(current == ShipmentStatus.DELAYED){
-                alertService.resolveByTypeAndEntity(
-                        AlertType.SHIPMENT_DELAYED,
-                        EntityType.SHIPMENT,
-                        shipment.getId());
-            }
-        }
 
         else {
-            // Should never happen because of isAllowedShipmentTransition check above
+            // Should never happen because of isAllowedShipmentTransition check
             throw new IllegalStateException("Unhandled transition: " + current + " -> " + targetStatus);
         }
 
-        shipment.setUpdatedAt(java.time.LocalDateTime.now());
-
-        Shipment saved = shipmentRepo.save(shipment);
-
-        return ShipmentMapper.toDto(saved);
+        shipment.setUpdatedAt(LocalDateTime.now());
+        eventPublisher.publishEvent(new ShipmentStatusChangedEvent(shipment.getId(), current, targetStatus));
     }
 
     /** Allowed transitions for the shipment status machine. */
@@ -1,7 +1,20 @@
 package YNprojects.logistics_system.supplier.repository;
 
 import YNprojects.logistics_system.supplier.entity.Supplier;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
 
 public interface SupplierRepo extends JpaRepository<Supplier, Long> {
+
+    /** Full list behind the dropdowns, served from the query cache until a row changes. */
+    @Override
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "reference-data-queries")
+    })
+    List<Supplier> findAll();
 }
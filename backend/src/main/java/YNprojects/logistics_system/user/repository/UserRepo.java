@@ -1,7 +1,9 @@
 package YNprojects.logistics_system.user.repository;
 
+import YNprojects.logistics_system.user.entity.Role;
 import YNprojects.logistics_system.user.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.Optional;
 
@@ -10,4 +12,7 @@ public interface UserRepo extends JpaRepository<User, Long> {
     Boolean existsByUsername(String username);
     Optional<User> findByUsername(String username);
 
+    @Query("select u.role from User u where u.id = :id")
+    Optional<Role> findRoleById(Long id);
+
 }
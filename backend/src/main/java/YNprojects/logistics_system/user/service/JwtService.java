@@ -3,44 +3,85 @@ package YNprojects.logistics_system.user.service;
 
 import YNprojects.logistics_system.user.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies the API tokens.
+ *
+ * The signing key and parser are built once. Verified claims are cached by SHA-256 of the token
+ * until the token expires, so a token seen before costs a hash and a map lookup instead of a
+ * signature check. The cache holds at most {@code jwt.cache.max-size} tokens; once full, new
+ * tokens are verified every time until expired entries are purged.
+ *
+ * Tokens carry the user id and role, so a request is authenticated without loading the user.
+ */
 @Service
 public class JwtService {
 
-    @Value("${jwt.secret}")
-    private String SECRET_KEY;
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
+
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final int cacheMaxSize;
+
+    private final Map<String, CachedClaims> verified = new ConcurrentHashMap<>();
+
+    public JwtService(@Value("${jwt.secret}") String secretKey,
+                      @Value("${jwt.cache.max-size:10000}") int cacheMaxSize) {
+        this.signingKey = Keys.hmacShaKeyFor(Base64.getDecoder().decode(secretKey));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.cacheMaxSize = cacheMaxSize;
+    }
 
     public String generateToken(User user) {
         return Jwts.builder()
                 .subject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole().name())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + 24*60*60*1000))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     public Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        String key = hash(token);
+        CachedClaims cached = verified.get(key);
+        if (cached != null) {
+            if (cached.expiresAt() > System.currentTimeMillis()) return cached.claims();
+            // expired: parsing again throws the same ExpiredJwtException as an unknown token
+            verified.remove(key);
+        }
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        if (claims.getExpiration() != null && verified.size() < cacheMaxSize) {
+            verified.put(key, new CachedClaims(claims, claims.getExpiration().getTime()));
+        }
+        return claims;
     }
 
     public boolean isValid(String token, UserDetails user) {
-        String username=extractUsername(token) ;
-        return username.equals(user.getUsername()) && !isTokenExpired(token);
+        return isValid(extractAllClaims(token), user);
+    }
+
+    public boolean isValid(Claims claims, UserDetails user) {
+        return claims.getSubject().equals(user.getUsername()) && !claims.getExpiration().before(new Date());
     }
 
     public boolean isTokenExpired(String token) {
@@ -60,9 +101,22 @@ public class JwtService {
         return resolver.apply(claims);
     }
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Base64.getDecoder().decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /** Drops the tokens that expired since they were cached. */
+    @Scheduled(fixedDelayString = "${jwt.cache.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        verified.values().removeIf(cached -> cached.expiresAt() <= now);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);   // every JVM ships SHA-256
+        }
     }
 
+    private record CachedClaims(Claims claims, long expiresAt) {}
+
 }
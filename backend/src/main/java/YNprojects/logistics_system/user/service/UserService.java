@@ -20,6 +20,7 @@ public class UserService {
     private final UserRepo userRepo;
     private final JwtService jwtService;
     private final PasswordEncoder passwordEncoder;
+    private final UserStatusCache userStatusCache;
 
     public List<UserDto> getAllUsers() {
         return userRepo.findAll()
@@ -48,11 +49,14 @@ public class UserService {
         user.setEmail(userDto.getEmail());
         user.setRole(userDto.getRole());
         userRepo.save(user);
+        // tokens carry the role they were issued with; the filter checks it against the current one
+        userStatusCache.evict(user.getId());
         return UserMapper.toDto(user);
     }
 
     public void deleteUser(Long id) {
         userRepo.deleteById(id);
+        userStatusCache.evict(id);
     }
 
     public void changePassword(ChangePasswordDto changePasswordDto) {
@@ -0,0 +1,52 @@
+package YNprojects.logistics_system.user.service;
+
+import YNprojects.logistics_system.user.entity.Role;
+import YNprojects.logistics_system.user.repository.UserRepo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Current role of a user, or empty once the user is deleted, as seen by the authentication filter.
+ *
+ * Looked up at most once per {@code security.user-status.ttl-seconds} per user instead of on every
+ * request. {@link UserService} evicts a user when it changes or deletes it, so the change applies
+ * to the next request on this node and within the ttl on the others.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserStatusCache {
+
+    private final UserRepo userRepo;
+
+    @Value("${security.user-status.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${security.user-status.max-size:10000}")
+    private int maxSize;
+
+    private final Map<Long, Status> statuses = new ConcurrentHashMap<>();
+
+    public Optional<Role> currentRole(Long userId) {
+        long now = System.currentTimeMillis();
+        Status status = statuses.get(userId);
+        if (status == null || status.expiresAt() <= now) {
+            status = new Status(userRepo.findRoleById(userId).orElse(null), now + ttlSeconds * 1000);
+            if (statuses.size() >= maxSize) {
+                statuses.values().removeIf(s -> s.expiresAt() <= now);
+            }
+            if (statuses.size() < maxSize) statuses.put(userId, status);
+        }
+        return Optional.ofNullable(status.role());
+    }
+
+    public void evict(Long userId) {
+        statuses.remove(userId);
+    }
+
+    private record Status(Role role, long expiresAt) {}
+}
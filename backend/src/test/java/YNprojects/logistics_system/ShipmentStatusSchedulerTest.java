@@ -1,9 +1,9 @@
 package YNprojects.logistics_system;
 
 import YNprojects.logistics_system.scheduler.SystemScheduler;
+import YNprojects.logistics_system.shipment.entity.Shipment;
 import YNprojects.logistics_system.shipment.entity.ShipmentStatus;
 import YNprojects.logistics_system.product.repository.ProductRepo;
-import YNprojects.logistics_system.scheduler.ShipmentStatusScheduler;
 import YNprojects.logistics_system.shipment.repo.ShipmentRepo;
 import YNprojects.logistics_system.shipment.service.ShipmentService;
 import org.junit.jupiter.api.Test;
@@ -11,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
 
 import java.time.Clock;
 import java.time.Instant;
@@ -35,6 +36,7 @@ class ShipmentStatusSchedulerTest {
     @TestConfiguration
     static class FixedClockConfig {
         @Bean
+        @Primary
         Clock fixedClock() {
             // pretend “today” is 2025-08-15
             Instant instant = LocalDate.of(2025, 8, 15)
@@ -66,8 +68,8 @@ class ShipmentStatusSchedulerTest {
         shipmentRepo.save(s2);
 
         // 3) Fire the scheduler logic
-        scheduler.transitPlannedShipments();
-        scheduler.delayOverdueShipments();
+        scheduler.plannedToInTransitShipment();
+        scheduler.inTransitToDelayedShipment();
 
         // 4) Reload and assert
         Shipment updated1 = shipmentRepo.findById(s1.getId()).get();
@@ -0,0 +1,109 @@
+package YNprojects.logistics_system.atp.service;
+
+import YNprojects.logistics_system.atp.dto.AtpBucketDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductLedgerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 8, 15);
+
+    @Test
+    void available_addsTheOutputDueByTheDate() {
+        ProductLedger ledger = new ProductLedger();
+        ledger.setOnHand(10);
+        ledger.add(TODAY.plusDays(3), 5);
+        ledger.add(TODAY.plusDays(3), 2);
+        ledger.add(TODAY.plusDays(8), 20);
+
+        assertThat(ledger.available(TODAY, TODAY)).isEqualTo(10);
+        assertThat(ledger.available(TODAY, TODAY.plusDays(2))).isEqualTo(10);
+        assertThat(ledger.available(TODAY, TODAY.plusDays(3))).isEqualTo(17);
+        assertThat(ledger.available(TODAY, TODAY.plusDays(7))).isEqualTo(17);
+        assertThat(ledger.available(TODAY, TODAY.plusDays(100))).isEqualTo(37);
+    }
+
+    @Test
+    void overdueOutput_countsAsToday() {
+        ProductLedger ledger = new ProductLedger();
+        ledger.setOnHand(1);
+        ledger.add(TODAY.minusDays(5), 4);
+        ledger.add(TODAY.minusDays(1), 3);
+
+        assertThat(ledger.available(TODAY, TODAY)).isEqualTo(8);
+        assertThat(ledger.buckets(TODAY, TODAY.minusDays(1), TODAY.plusDays(5))).singleElement()
+                .satisfies(bucket -> {
+                    assertThat(bucket.getDate()).isEqualTo(TODAY);
+                    assertThat(bucket.getSupply()).isEqualTo(7);
+                    assertThat(bucket.getAvailable()).isEqualTo(8);
+                });
+    }
+
+    @Test
+    void buckets_listTheDaysAfterFromUpToTo() {
+        ProductLedger ledger = new ProductLedger();
+        ledger.setOnHand(0);
+        ledger.add(TODAY.plusDays(1), 1);
+        ledger.add(TODAY.plusDays(2), 2);
+        ledger.add(TODAY.plusDays(4), 4);
+        ledger.add(TODAY.plusDays(6), 6);
+
+        List<AtpBucketDto> buckets = ledger.buckets(TODAY, TODAY.plusDays(2), TODAY.plusDays(4));
+
+        assertThat(buckets).extracting(AtpBucketDto::getDate).containsExactly(TODAY.plusDays(4));
+        assertThat(buckets.get(0).getAvailable()).isEqualTo(7);
+        assertThat(ledger.buckets(TODAY, TODAY, TODAY.plusDays(10))).extracting(AtpBucketDto::getAvailable)
+                .containsExactly(1.0, 3.0, 7.0, 13.0);
+    }
+
+    @Test
+    void changes_showOnTheNextRead() {
+        ProductLedger ledger = new ProductLedger();
+        ledger.setOnHand(10);
+        ledger.add(TODAY.plusDays(2), 5);
+        assertThat(ledger.available(TODAY, TODAY.plusDays(2))).isEqualTo(15);
+
+        ledger.setOnHand(4);
+        assertThat(ledger.available(TODAY, TODAY.plusDays(2))).isEqualTo(9);
+
+        ledger.add(TODAY.plusDays(1), 1);
+        assertThat(ledger.available(TODAY, TODAY.plusDays(1))).isEqualTo(5);
+
+        ledger.remove(TODAY.plusDays(2), 5);
+        assertThat(ledger.available(TODAY, TODAY.plusDays(2))).isEqualTo(5);
+        assertThat(ledger.buckets(TODAY, TODAY, TODAY.plusDays(10))).extracting(AtpBucketDto::getDate)
+                .containsExactly(TODAY.plusDays(1));
+    }
+
+    @Test
+    void aNewDay_rebuildsTheIndex() {
+        ProductLedger ledger = new ProductLedger();
+        ledger.setOnHand(0);
+        ledger.add(TODAY.plusDays(1), 3);
+        ledger.add(TODAY.plusDays(2), 4);
+        assertThat(ledger.buckets(TODAY, TODAY, TODAY.plusDays(5))).hasSize(2);
+
+        LocalDate later = TODAY.plusDays(2);
+        assertThat(ledger.buckets(later, later.minusDays(1), later.plusDays(5))).singleElement()
+                .satisfies(bucket -> {
+                    assertThat(bucket.getDate()).isEqualTo(later);
+                    assertThat(bucket.getSupply()).isEqualTo(7);
+                });
+        assertThat(ledger.available(later, later)).isEqualTo(7);
+    }
+
+    @Test
+    void remove_ofAnUnknownDayIsIgnored() {
+        ProductLedger ledger = new ProductLedger();
+        ledger.setOnHand(2);
+        ledger.add(TODAY.plusDays(1), 1);
+
+        ledger.remove(TODAY.plusDays(3), 1);
+
+        assertThat(ledger.available(TODAY, TODAY.plusDays(3))).isEqualTo(3);
+    }
+}
@@ -0,0 +1,119 @@
+package YNprojects.logistics_system.mrp.service;
+
+import YNprojects.logistics_system.mrp.dto.ProjectedBucketDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MaterialLedgerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 8, 15);
+
+    @Test
+    void project_runsTheBalanceOverTheDaysWithFlows() {
+        MaterialLedger ledger = new MaterialLedger();
+        ledger.setOnHand(100);
+        ledger.add(TODAY.plusDays(2), -30);
+        ledger.add(TODAY.plusDays(2), 10);
+        ledger.add(TODAY.plusDays(5), -50);
+
+        List<ProjectedBucketDto> projection = ledger.project(TODAY, TODAY.plusDays(10));
+
+        assertThat(projection).extracting(ProjectedBucketDto::getDate).containsExactly(TODAY.plusDays(2), TODAY.plusDays(5));
+        assertThat(projection.get(0).getSupply()).isEqualTo(10);
+        assertThat(projection.get(0).getDemand()).isEqualTo(30);
+        assertThat(projection.get(0).getBalance()).isEqualTo(80);
+        assertThat(projection.get(1).getBalance()).isEqualTo(30);
+    }
+
+    @Test
+    void project_stopsAtTheHorizon() {
+        MaterialLedger ledger = new MaterialLedger();
+        ledger.add(TODAY.plusDays(3), 5);
+        ledger.add(TODAY.plusDays(4), 5);
+
+        assertThat(ledger.project(TODAY, TODAY.plusDays(3))).extracting(ProjectedBucketDto::getDate)
+                .containsExactly(TODAY.plusDays(3));
+        assertThat(ledger.project(TODAY, TODAY)).isEmpty();
+    }
+
+    @Test
+    void overdueFlows_countAsToday() {
+        MaterialLedger ledger = new MaterialLedger();
+        ledger.setOnHand(20);
+        ledger.add(TODAY.minusDays(3), -15);
+        ledger.add(LocalDate.MIN, -10);     // an order without a start date
+        ledger.add(TODAY, 4);
+
+        List<ProjectedBucketDto> projection = ledger.project(TODAY, TODAY.plusDays(30));
+
+        assertThat(projection).hasSize(1);
+        assertThat(projection.get(0).getDate()).isEqualTo(TODAY);
+        assertThat(projection.get(0).getSupply()).isEqualTo(4);
+        assertThat(projection.get(0).getDemand()).isEqualTo(25);
+        assertThat(projection.get(0).getBalance()).isEqualTo(-1);
+        assertThat(ledger.shortageDate(TODAY)).isEqualTo(TODAY);
+    }
+
+    @Test
+    void shortageDate_isTheFirstDayBelowZero() {
+        MaterialLedger ledger = new MaterialLedger();
+        ledger.setOnHand(10);
+        ledger.add(TODAY.plusDays(1), -10);
+        ledger.add(TODAY.plusDays(7), -1);
+        ledger.add(TODAY.plusDays(9), 5);
+
+        assertThat(ledger.shortageDate(TODAY)).isEqualTo(TODAY.plusDays(7));
+    }
+
+    @Test
+    void shortageDate_followsChangesAndTheDay() {
+        MaterialLedger ledger = new MaterialLedger();
+        ledger.setOnHand(10);
+        ledger.add(TODAY.plusDays(5), -20);
+        assertThat(ledger.shortageDate(TODAY)).isEqualTo(TODAY.plusDays(5));
+
+        ledger.add(TODAY.plusDays(4), 15);
+        assertThat(ledger.shortageDate(TODAY)).isNull();
+
+        ledger.setOnHand(0);
+        assertThat(ledger.shortageDate(TODAY)).isEqualTo(TODAY.plusDays(5));
+
+        // once the days have passed, the flows weigh on the new today
+        assertThat(ledger.shortageDate(TODAY.plusDays(10))).isEqualTo(TODAY.plusDays(10));
+    }
+
+    @Test
+    void remove_takesBackAFlowAndDropsTheEmptyDay() {
+        MaterialLedger ledger = new MaterialLedger();
+        ledger.setOnHand(1);
+        ledger.add(TODAY.plusDays(2), 0.1);
+        ledger.add(TODAY.plusDays(2), 0.2);
+        ledger.add(TODAY.plusDays(3), -5);
+
+        ledger.remove(TODAY.plusDays(2), 0.1);
+        List<ProjectedBucketDto> projection = ledger.project(TODAY, TODAY.plusDays(5));
+        assertThat(projection.get(0).getSupply()).isCloseTo(0.2, within(1e-9));
+        assertThat(ledger.shortageDate(TODAY)).isEqualTo(TODAY.plusDays(3));
+
+        ledger.remove(TODAY.plusDays(2), 0.2);
+        ledger.remove(TODAY.plusDays(3), -5);
+        assertThat(ledger.project(TODAY, TODAY.plusDays(5))).isEmpty();
+        assertThat(ledger.shortageDate(TODAY)).isNull();
+    }
+
+    @Test
+    void remove_ofAnUnknownDayIsIgnored() {
+        MaterialLedger ledger = new MaterialLedger();
+        ledger.add(TODAY.plusDays(1), 5);
+
+        ledger.remove(TODAY.plusDays(2), 5);
+
+        assertThat(ledger.project(TODAY, TODAY.plusDays(5))).singleElement()
+                .extracting(ProjectedBucketDto::getBalance).isEqualTo(5.0);
+    }
+}
@@ -0,0 +1,265 @@
+package YNprojects.logistics_system.scheduler.service;
+
+import YNprojects.logistics_system.concurrency.service.ConnectionLimiter;
+import YNprojects.logistics_system.scheduler.dto.StepReport;
+import YNprojects.logistics_system.scheduler.entity.SchedulerCheckpoint;
+import YNprojects.logistics_system.scheduler.entity.StepStatus;
+import YNprojects.logistics_system.scheduler.repository.SchedulerCheckpointRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChunkedStepRunnerTest {
+
+    private static final int CHUNK = 500;
+    private static final String STEP = "shipment.in-transit-to-delayed";
+    private static final LocalDate TODAY = LocalDate.of(2025, 8, 15);
+
+    // rows still in the source status of the step, by id, with their due date
+    private final Map<Long, LocalDate> due = new TreeMap<>();
+    private final List<Long> written = new ArrayList<>();
+    private final Map<Long, SchedulerCheckpoint> checkpoints = new HashMap<>();
+
+    private ParallelStepExecutor parallelStepExecutor;
+    private ChunkedStepRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        SchedulerCheckpointRepo checkpointRepo = mock(SchedulerCheckpointRepo.class);
+        when(checkpointRepo.save(any(SchedulerCheckpoint.class))).thenAnswer(invocation -> {
+            SchedulerCheckpoint checkpoint = invocation.getArgument(0);
+            if (checkpoint.getId() == null) checkpoint.setId(checkpoints.size() + 1L);
+            checkpoints.put(checkpoint.getId(), checkpoint);
+            return checkpoint;
+        });
+        when(checkpointRepo.findById(any())).thenAnswer(invocation ->
+                Optional.ofNullable(checkpoints.get(invocation.<Long>getArgument(0))));
+        when(checkpointRepo.findByStepNameAndRunDate(any(), any())).thenAnswer(invocation ->
+                checkpoint(invocation.getArgument(0), invocation.getArgument(1)));
+
+        // leader election and the limiter off: nothing is fenced or limited
+        LeaderElection leaderElection = new LeaderElection(null, null, false, 30, 10000, 5, "test");
+        parallelStepExecutor = new ParallelStepExecutor(leaderElection, 1, false);
+        runner = new ChunkedStepRunner(new NoTransactions(), checkpointRepo, parallelStepExecutor, null,
+                leaderElection, new ConnectionLimiter(null, false, 1, 1000));
+        ReflectionTestUtils.setField(runner, "chunkSize", 2);
+        ReflectionTestUtils.setField(runner, "catchUpEnabled", true);
+    }
+
+    @AfterEach
+    void close() {
+        parallelStepExecutor.close();
+    }
+
+    @Test
+    void runChunked_resumesAfterTheLastCommittedId() {
+        LongStream.rangeClosed(1, 6).forEach(id -> due.put(id, TODAY));
+        SchedulerCheckpoint crashed = new SchedulerCheckpoint(1L, STEP, TODAY, StepStatus.STARTED, 3L, 3, 0, 2,
+                null, null, 0);
+        checkpoints.put(1L, crashed);
+
+        StepReport report = runner.runChunked(STEP, TODAY, readerFor(TODAY), this::write);
+
+        assertThat(report.isResumed()).isTrue();
+        assertThat(report.getStatus()).isEqualTo(StepStatus.COMPLETED);
+        assertThat(report.getProcessed()).isEqualTo(6);
+        assertThat(written).containsExactly(4L, 5L, 6L);
+        assertThat(crashed.getLastProcessedId()).isEqualTo(6);
+    }
+
+    @Test
+    void runChunked_rereadsACompletedDate_forRowsThatBecameDueBelowItsLastId() {
+        LongStream.rangeClosed(1, 5).forEach(id -> due.put(id, TODAY));
+        runner.runChunked(STEP, TODAY, readerFor(TODAY), this::write);
+        written.clear();
+
+        // e.g. a delayed shipment put back in transit after its arrival date
+        due.put(2L, TODAY);
+        StepReport report = runner.runChunked(STEP, TODAY, readerFor(TODAY), this::write);
+
+        assertThat(written).containsExactly(2L);
+        assertThat(report.getStatus()).isEqualTo(StepStatus.COMPLETED);
+        assertThat(due).isEmpty();
+        assertThat(checkpoint(STEP, TODAY)).get().extracting(SchedulerCheckpoint::getLastProcessedId).isEqualTo(2L);
+    }
+
+    @Test
+    void runCatchUp_runsEveryOverdueDateOldestFirst_withACheckpointEach() {
+        due.put(1L, TODAY.minusDays(2));
+        due.put(5L, TODAY.minusDays(2));
+        due.put(3L, TODAY);
+        due.put(4L, TODAY);
+        due.put(2L, TODAY.plusDays(1));
+
+        StepReport report = runner.runCatchUp(STEP, TODAY, this::nextDueDate, this::readerFor, this::write, null);
+
+        assertThat(written).containsExactly(1L, 5L, 3L, 4L);
+        assertThat(report.getProcessed()).isEqualTo(4);
+        assertThat(report.getStatus()).isEqualTo(StepStatus.COMPLETED);
+        assertThat(due).containsOnlyKeys(2L);
+        assertThat(checkpoints.values()).extracting(SchedulerCheckpoint::getRunDate)
+                .containsExactlyInAnyOrder(TODAY.minusDays(2), TODAY);
+    }
+
+    @Test
+    void runCatchUp_picksUpARowThatBecameDueOnAnAlreadyCompletedDate() {
+        due.put(7L, TODAY.minusDays(1));
+        due.put(8L, TODAY.minusDays(1));
+        runner.runCatchUp(STEP, TODAY, this::nextDueDate, this::readerFor, this::write, null);
+        written.clear();
+
+        due.put(3L, TODAY.minusDays(1));
+        runner.runCatchUp(STEP, TODAY, this::nextDueDate, this::readerFor, this::write, null);
+
+        assertThat(written).containsExactly(3L);
+        assertThat(due).isEmpty();
+    }
+
+    @Test
+    void sampleRows_isExactForSlicesThatFitInAChunk() {
+        KeysetReader reader = reader(LongStream.rangeClosed(1, 3_200).filter(id -> id % 2 == 0));
+
+        long[] rows = ChunkedStepRunner.sampleRows(reader, 2, 3_200, CHUNK);
+
+        assertThat(rows).hasSize(32);
+        assertThat(LongStream.of(rows).sum()).isEqualTo(1_600);
+    }
+
+    @Test
+    void sampleRows_seesDensityChangesPastTheFirstChunk() {
+        // 20 000 dense ids, then 20 000 spread over the next 780 000
+        KeysetReader reader = reader(LongStream.concat(
+                LongStream.rangeClosed(1, 20_000),
+                LongStream.rangeClosed(1, 20_000).map(i -> 20_000 + i * 39)));
+
+        long[] rows = ChunkedStepRunner.sampleRows(reader, 1, 800_000, CHUNK);
+
+        // the first chunk alone would make it 800 000; density is only known per slice of 25 000 ids
+        assertThat((double) LongStream.of(rows).sum()).isCloseTo(40_000, within(6_000.0));
+        assertThat(rows[0]).isGreaterThan(rows[31] * 10);
+    }
+
+    @Test
+    void split_cutsUniformIdsIntoEqualRanges() {
+        long[] rows = new long[32];
+        Arrays.fill(rows, 3_125);
+
+        List<long[]> ranges = ChunkedStepRunner.split(1, 100_000, rows, 4);
+
+        assertThat(ranges).containsExactly(
+                new long[]{1, 25_000}, new long[]{25_001, 50_000},
+                new long[]{50_001, 75_000}, new long[]{75_001, 100_000});
+    }
+
+    @Test
+    void split_givesDenseIdsNarrowerRanges() {
+        long[] rows = new long[32];
+        rows[0] = 10_000;
+
+        List<long[]> ranges = ChunkedStepRunner.split(1, 320_000, rows, 2);
+
+        assertThat(ranges).containsExactly(new long[]{1, 5_000}, new long[]{5_001, 320_000});
+    }
+
+    @Test
+    void split_coversEveryIdOnce() {
+        long[] rows = new long[32];
+        rows[0] = 7;
+        rows[2] = 3_000;
+        rows[3] = 1;
+        rows[5] = 900;
+        rows[31] = 40;
+
+        List<long[]> ranges = ChunkedStepRunner.split(17, 5_000_017, rows, 5);
+
+        assertThat(ranges.get(0)[0]).isEqualTo(17);
+        assertThat(ranges.get(ranges.size() - 1)[1]).isEqualTo(5_000_017);
+        for (int i = 1; i < ranges.size(); i++) {
+            assertThat(ranges.get(i)[0]).isEqualTo(ranges.get(i - 1)[1] + 1);
+            assertThat(ranges.get(i)[1]).isGreaterThanOrEqualTo(ranges.get(i)[0]);
+        }
+    }
+
+    @Test
+    void split_ofSampledRows_balancesTheRowsPerRange() {
+        // 50 000 dense ids, then 10 000 spread over the next 750 000
+        List<Long> ids = LongStream.concat(
+                LongStream.rangeClosed(1, 50_000),
+                LongStream.rangeClosed(1, 10_000).map(i -> 50_000 + i * 75)).boxed().toList();
+        KeysetReader reader = reader(ids.stream().mapToLong(Long::longValue));
+        long high = ids.get(ids.size() - 1);
+
+        List<long[]> ranges = ChunkedStepRunner.split(1, high, ChunkedStepRunner.sampleRows(reader, 1, high, CHUNK), 4);
+
+        assertThat(ranges).hasSize(4);
+        for (long[] range : ranges) {
+            long count = ids.stream().filter(id -> id >= range[0] && id <= range[1]).count();
+            assertThat((double) count).isCloseTo(15_000, within(1_500.0));
+        }
+    }
+
+    private KeysetReader readerFor(LocalDate date) {
+        return (afterId, limit) -> due.entrySet().stream()
+                .filter(row -> row.getKey() > afterId && row.getValue().equals(date))
+                .map(Map.Entry::getKey)
+                .limit(limit)
+                .toList();
+    }
+
+    private LocalDate nextDueDate(LocalDate after, LocalDate upTo) {
+        return due.values().stream()
+                .filter(date -> date.isAfter(after) && !date.isAfter(upTo))
+                .min(LocalDate::compareTo)
+                .orElse(null);
+    }
+
+    /** Moves the rows out of the source status, as a transition does. */
+    private int write(List<Long> ids) {
+        ids.forEach(due::remove);
+        written.addAll(ids);
+        return ids.size();
+    }
+
+    private Optional<SchedulerCheckpoint> checkpoint(String stepName, LocalDate runDate) {
+        return checkpoints.values().stream()
+                .filter(c -> c.getStepName().equals(stepName) && c.getRunDate().equals(runDate))
+                .findFirst();
+    }
+
+    private static KeysetReader reader(LongStream ids) {
+        List<Long> sorted = ids.sorted().boxed().toList();
+        return (afterId, limit) -> sorted.stream().filter(id -> id > afterId).limit(limit).toList();
+    }
+
+    /** Runs the work of every transaction template as is. */
+    private static final class NoTransactions implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package YNprojects.logistics_system.scheduler.service;
+
+import YNprojects.logistics_system.scheduler.dto.StepReport;
+import YNprojects.logistics_system.scheduler.entity.StepStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParallelStepExecutorTest {
+
+    // leader election off: runs are not fenced and need no database
+    private final ParallelStepExecutor executor = new ParallelStepExecutor(
+            new LeaderElection(null, null, false, 30, 10000, 5, "test"), 4, false);
+
+    private final List<String> events = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void close() {
+        executor.close();
+    }
+
+    @Test
+    void run_startsAStepOnlyAfterTheStepsItWaitsFor() {
+        StepGraph graph = new StepGraph()
+                .step("a", step("a", 100))
+                .step("b", step("b", 50))
+                .step("c", step("c", 0), "a", "b")
+                .step("d", step("d", 0), "c");
+
+        List<StepReport> reports = executor.run(graph);
+
+        assertThat(reports).extracting(StepReport::getStepName).containsExactly("a", "b", "c", "d");
+        assertThat(reports).extracting(StepReport::getStatus).containsOnly(StepStatus.COMPLETED);
+        assertThat(events.indexOf("c started")).isGreaterThan(events.indexOf("a done")).isGreaterThan(events.indexOf("b done"));
+        assertThat(events.indexOf("d started")).isGreaterThan(events.indexOf("c done"));
+    }
+
+    @Test
+    void run_runsIndependentStepsSideBySide() throws InterruptedException {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        Supplier<StepReport> meet = () -> {
+            bothStarted.countDown();
+            try {
+                return report(bothStarted.await(5, TimeUnit.SECONDS) ? "met" : "alone");
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        List<StepReport> reports = executor.run(new StepGraph().step("a", meet).step("b", meet));
+
+        assertThat(reports).extracting(StepReport::getStepName).containsExactly("met", "met");
+    }
+
+    @Test
+    void run_reportsAThrowingStepAsFailed_andStillRunsTheStepsAfterIt() {
+        StepGraph graph = new StepGraph()
+                .step("a", () -> {
+                    throw new IllegalStateException("broken");
+                })
+                .step("b", step("b", 0), "a");
+
+        List<StepReport> reports = executor.run(graph);
+
+        assertThat(reports.get(0).getStepName()).isEqualTo("a");
+        assertThat(reports.get(0).getStatus()).isEqualTo(StepStatus.FAILED);
+        assertThat(reports.get(1).getStatus()).isEqualTo(StepStatus.COMPLETED);
+        assertThat(events).contains("b done");
+    }
+
+    @Test
+    void stepGraph_onlyAcceptsDependenciesDeclaredBefore_soItCannotHaveCycles() {
+        StepGraph graph = new StepGraph().step("a", step("a", 0));
+
+        assertThatThrownBy(() -> graph.step("b", step("b", 0), "c"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("not declared before");
+        assertThatThrownBy(() -> graph.step("b", step("b", 0), "b"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> graph.step("a", step("a", 0)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("declared twice");
+        assertThat(graph.steps()).extracting(StepGraph.Step::name).containsExactly("a");
+    }
+
+    @Test
+    void runAll_appliesTheWorkToEveryTask() {
+        Set<Integer> done = ConcurrentHashMap.newKeySet();
+
+        executor.runAll(IntStream.range(0, 100).boxed().toList(), done::add);
+
+        assertThat(done).hasSize(100);
+    }
+
+    @Test
+    void runAll_finishesTheOtherTasks_thenThrowsTheFirstFailure() {
+        Set<Integer> done = ConcurrentHashMap.newKeySet();
+        List<Integer> tasks = IntStream.range(0, 100).boxed().toList();
+
+        assertThatThrownBy(() -> executor.runAll(tasks, task -> {
+            if (task % 10 == 0) throw new IllegalStateException("task " + task);
+            done.add(task);
+        }))
+                .isInstanceOf(IllegalStateException.class)
+                .satisfies(e -> assertThat(e.getSuppressed()).hasSize(9));
+        assertThat(done).hasSize(90);
+    }
+
+    @Test
+    void runAll_finishesWhenThePoolIsBusy() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> blockers = IntStream.range(0, 4).boxed().toList();
+        Thread busy = Thread.ofPlatform().start(() -> executor.runAll(blockers, task -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        Set<Integer> done = ConcurrentHashMap.newKeySet();
+
+        try {
+            executor.runAll(IntStream.range(0, 10).boxed().toList(), done::add);
+            assertThat(done).hasSize(10);
+        } finally {
+            release.countDown();
+            busy.join();
+        }
+    }
+
+    private Supplier<StepReport> step(String name, long millis) {
+        return () -> {
+            events.add(name + " started");
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            events.add(name + " done");
+            return report(name);
+        };
+    }
+
+    private static StepReport report(String name) {
+        return new StepReport(name, StepStatus.COMPLETED, 0, 0, 0, 0, false);
+    }
+}
@@ -0,0 +1,106 @@
+package YNprojects.logistics_system.benchmarks;
+
+import YNprojects.logistics_system.atp.dto.AtpDto;
+import YNprojects.logistics_system.atp.service.AtpService;
+import YNprojects.logistics_system.events.ProductionOrderStatusChangedEvent;
+import YNprojects.logistics_system.productionorder.entity.ProductionOrderStatus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Available-to-promise reads over {@code products} products, each with 100 on hand and ten open
+ * production orders of 20 completing over the next 180 days.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AtpBenchmark {
+
+    private static final int ORDERS_PER_PRODUCT = 10;
+
+    @Param({"1000", "10000"})
+    public int products;
+
+    private ConfigurableApplicationContext context;
+    private AtpService atpService;
+    private long firstProductId;
+    private long firstOrderId;
+    private LocalDate today;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start();
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        new DataSeeder(jdbc).seed(1000);
+        firstProductId = DataSeeder.PRODUCTS + 1;
+        firstOrderId = 1000 / 10 + 1;
+
+        Timestamp ts = Timestamp.valueOf(LocalDateTime.now());
+        today = LocalDate.now();
+        List<Object[]> rows = new ArrayList<>();
+        List<Object[]> inventories = new ArrayList<>();
+        for (int i = 0; i < products; i++) {
+            rows.add(new Object[]{"Promised product " + i, "A-" + i, "pcs", 60L, ts, ts});
+            inventories.add(new Object[]{firstProductId + i, 100.0, 10.0, ts});
+        }
+        jdbc.batchUpdate("insert into product (name, sku, unit, production_duration_minutes, created_at, updated_at) " +
+                "values (?, ?, ?, ?, ?, ?)", rows);
+        jdbc.batchUpdate("insert into product_inventory (product_id, quantity, reorder_threshold, last_updated, version) " +
+                "values (?, ?, ?, ?, 0)", inventories);
+
+        List<Object[]> orders = new ArrayList<>();
+        List<Object[]> lines = new ArrayList<>();
+        for (int i = 0; i < products * ORDERS_PER_PRODUCT; i++) {
+            LocalDate completion = today.plusDays(1 + i % 180);
+            ProductionOrderStatus status = i % 2 == 0 ? ProductionOrderStatus.PLANNED : ProductionOrderStatus.IN_PROGRESS;
+            orders.add(new Object[]{"PO-ATP-" + i, Date.valueOf(today), Date.valueOf(today), Date.valueOf(completion), status.name()});
+            lines.add(new Object[]{firstOrderId + i, firstProductId + i % products, 20.0});
+        }
+        jdbc.batchUpdate("insert into production_order (reference, creation_date, start_date, planned_completion_date, status) " +
+                "values (?, ?, ?, ?, ?)", orders);
+        jdbc.batchUpdate("insert into production_order_product (production_order_id, product_id, quantity) values (?, ?, ?)", lines);
+
+        atpService = context.getBean(AtpService.class);
+        atpService.rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    /** One product from a random day in the next half year, with the default range. */
+    @Benchmark
+    public AtpDto atp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return atpService.getAtp(firstProductId + random.nextInt(products), today.plusDays(random.nextInt(180)), null);
+    }
+
+    /** An order change as committed writes announce it: one order reloaded, then one product read. */
+    @Benchmark
+    public AtpDto orderChangedThenAtp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int order = random.nextInt(products * ORDERS_PER_PRODUCT);
+        atpService.onProductionOrderChanged(new ProductionOrderStatusChangedEvent(firstOrderId + order, null, ProductionOrderStatus.PLANNED));
+        return atpService.getAtp(firstProductId + order % products, null, null);
+    }
+
+    /** Everything loaded again from the database, as at startup. */
+    @Benchmark
+    public void rebuild() {
+        atpService.rebuild();
+    }
+}
@@ -0,0 +1,39 @@
+package YNprojects.logistics_system.benchmarks;
+
+import YNprojects.logistics_system.LogisticsSystemApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+
+/**
+ * Starts the real application on an in-memory H2 database in MySQL mode. Command line arguments
+ * are used because they override the MySQL settings of application.properties. {@code extraArgs}
+ * are added to them; they must not repeat a key, as repeated values are joined rather than replaced.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... extraArgs) {
+        String[] args = {
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;NON_KEYWORDS=USER,VALUE",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.show-sql=false",
+                "--server.port=0",
+                // innodb_lock_wait_timeout does not exist on H2
+                "--inventory.lock.timeout-seconds=0",
+                "--logging.level.root=WARN"
+        };
+        String[] all = Arrays.copyOf(args, args.length + extraArgs.length);
+        System.arraycopy(extraArgs, 0, all, args.length, extraArgs.length);
+        return new SpringApplicationBuilder(LogisticsSystemApplication.class)
+                .logStartupInfo(false)
+                .run(all);
+    }
+}
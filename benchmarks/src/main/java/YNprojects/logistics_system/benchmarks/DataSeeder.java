@@ -0,0 +1,100 @@
+package YNprojects.logistics_system.benchmarks;
+
+import YNprojects.logistics_system.productionorder.entity.ProductionOrderStatus;
+import YNprojects.logistics_system.shipment.entity.ShipmentDirection;
+import YNprojects.logistics_system.shipment.entity.ShipmentStatus;
+import YNprojects.logistics_system.shipment.entity.TransportMode;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Fills a fresh schema with JDBC batches: a fixed catalog of products, raw materials (each with
+ * plenty of stock) and suppliers, {@code rows} shipments and {@code rows / 10} completed production
+ * orders with two material lines each. The schema is empty, so generated ids run from 1.
+ */
+final class DataSeeder {
+
+    static final int PRODUCTS = 100;
+    static final int RAW_MATERIALS = 100;
+    static final int SUPPLIERS = 10;
+    static final double STOCK = 1e12;
+
+    private static final int BATCH = 5_000;
+
+    private final JdbcTemplate jdbc;
+
+    DataSeeder(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    void seed(int rows) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp ts = Timestamp.valueOf(now);
+        LocalDate today = now.toLocalDate();
+
+        insert("insert into product (name, sku, unit, production_duration_minutes, created_at, updated_at) values (?, ?, ?, ?, ?, ?)",
+                PRODUCTS, i -> new Object[]{"Product " + i, "P-" + i, "pcs", 60L, ts, ts});
+        insert("insert into product_inventory (product_id, quantity, reorder_threshold, last_updated, version) values (?, ?, ?, ?, 0)",
+                PRODUCTS, i -> new Object[]{i + 1, STOCK, 10.0, ts});
+        insert("insert into raw_material (name, sku, unit, created_at, updated_at) values (?, ?, ?, ?, ?)",
+                RAW_MATERIALS, i -> new Object[]{"Raw material " + i, "R-" + i, "kg", ts, ts});
+        insert("insert into raw_material_inventory (raw_material_id, quantity, reorder_threshold, last_updated, version) values (?, ?, ?, ?, 0)",
+                RAW_MATERIALS, i -> new Object[]{i + 1, STOCK, 10.0, ts});
+        insert("insert into supplier (supplier_name, email, city, country) values (?, ?, ?, ?)",
+                SUPPLIERS, i -> new Object[]{"Supplier " + i, "supplier" + i + "@example.com", "Casablanca", "Morocco"});
+
+        ShipmentStatus[] statuses = ShipmentStatus.values();
+        TransportMode[] modes = TransportMode.values();
+        insert("insert into shipment (reference_code, direction, status, transport_mode, quantity, product_id, raw_material_id, " +
+                        "supplier_id, customer_name, departure_date, estimate_arrival_date, created_at, updated_at) " +
+                        "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                rows, i -> {
+                    boolean inbound = i % 2 == 0;
+                    LocalDate departure = today.minusDays(i % 365);
+                    return new Object[]{
+                            "SEED-" + i,
+                            (inbound ? ShipmentDirection.INBOUND : ShipmentDirection.OUTBOUND).ordinal(),
+                            statuses[i % statuses.length].ordinal(),
+                            modes[i % modes.length].ordinal(),
+                            1 + i % 50,
+                            inbound ? null : 1 + i % PRODUCTS,
+                            inbound ? 1 + i % RAW_MATERIALS : null,
+                            inbound ? 1 + i % SUPPLIERS : null,
+                            inbound ? null : "Customer " + i % 1000,
+                            Date.valueOf(departure),
+                            Date.valueOf(departure.plusDays(3)),
+                            ts, ts};
+                });
+
+        int orders = Math.max(1, rows / 10);
+        insert("insert into production_order (reference, creation_date, start_date, planned_completion_date, status) values (?, ?, ?, ?, ?)",
+                orders, i -> {
+                    LocalDate start = today.minusDays(1 + i % 365);
+                    return new Object[]{"PO-SEED-" + i, Date.valueOf(start), Date.valueOf(start), Date.valueOf(start),
+                            ProductionOrderStatus.COMPLETED.name()};
+                });
+        insert("insert into production_order_product (production_order_id, product_id, quantity) values (?, ?, ?)",
+                orders, i -> new Object[]{i + 1, 1 + i % PRODUCTS, 5.0});
+        insert("insert into production_order_material (production_order_id, raw_material_id, quantity) values (?, ?, ?)",
+                orders * 2, i -> new Object[]{i / 2 + 1, 1 + i % RAW_MATERIALS, 2.0});
+    }
+
+    private void insert(String sql, int count, IntFunction<Object[]> row) {
+        List<Object[]> batch = new ArrayList<>(Math.min(count, BATCH));
+        for (int i = 0; i < count; i++) {
+            batch.add(row.apply(i));
+            if (batch.size() == BATCH) {
+                jdbc.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) jdbc.batchUpdate(sql, batch);
+    }
+}
@@ -0,0 +1,66 @@
+package YNprojects.logistics_system.benchmarks;
+
+import YNprojects.logistics_system.inventory.dto.StockChange;
+import YNprojects.logistics_system.inventory.entity.MovementCause;
+import YNprojects.logistics_system.inventory.service.InventoryEngine;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound reservations of one unit of one hot product from 16 threads, each in its own transaction,
+ * with the locking engine and the atomic one. Sampled, so the report has the latency percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class InventoryReservationBenchmark {
+
+    // more than the runs can reserve, so no reservation is refused
+    private static final double STOCK = 100_000_000;
+
+    @Param({"jpa", "atomic"})
+    public String engine;
+
+    private ConfigurableApplicationContext context;
+    private InventoryEngine inventoryEngine;
+    private TransactionTemplate tx;
+    private long productId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start("--inventory.engine=" + engine);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        Timestamp ts = Timestamp.valueOf(LocalDateTime.now());
+        jdbc.update("insert into product (name, sku, unit, production_duration_minutes, created_at, updated_at) " +
+                "values (?, ?, ?, ?, ?, ?)", "Hot product", "HOT-1", "pcs", 60L, ts, ts);
+        productId = jdbc.queryForObject("select id from product where sku = ?", Long.class, "HOT-1");
+        jdbc.update("insert into product_inventory (product_id, quantity, reorder_threshold, last_updated, version) " +
+                "values (?, ?, ?, ?, 0)", productId, STOCK, 0.0, ts);
+
+        inventoryEngine = context.getBean(InventoryEngine.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public void reserve() {
+        tx.executeWithoutResult(status -> inventoryEngine.apply(List.of(
+                StockChange.product(productId, -1, MovementCause.MANUAL, null))));
+    }
+}
@@ -0,0 +1,46 @@
+package YNprojects.logistics_system.benchmarks;
+
+import YNprojects.logistics_system.user.entity.Role;
+import YNprojects.logistics_system.user.entity.User;
+import YNprojects.logistics_system.user.service.JwtService;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/** Parsing and validating a signed token, as done by the authentication filter on every request. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void build() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        jwtService = new JwtService(Base64.getEncoder().encodeToString(secret), 10_000);
+
+        user = new User();
+        user.setUsername("benchmark");
+        user.setRole(Role.ADMIN);
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return jwtService.isValid(token, user);
+    }
+}
@@ -0,0 +1,111 @@
+package YNprojects.logistics_system.benchmarks;
+
+import YNprojects.logistics_system.user.entity.Role;
+import YNprojects.logistics_system.user.entity.User;
+import YNprojects.logistics_system.user.repository.UserRepo;
+import YNprojects.logistics_system.user.service.JwtService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bursts of {@code clients} concurrent authenticated requests against the running application over
+ * HTTP, in three modes: the default platform-thread Tomcat pool, virtual threads alone, and virtual
+ * threads with the connection limiter (the {@code virtual-threads} profile). One operation is one
+ * burst; the counters report how its requests ended.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadTestBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({"platform", "virtual", "virtual-limited"})
+    public String mode;
+
+    @Param({"200", "1000"})
+    public int clients;
+
+    private ConfigurableApplicationContext context;
+    private ExecutorService clientThreads;
+    private HttpClient http;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = switch (mode) {
+            case "platform" -> BenchmarkApplication.start();
+            case "virtual" -> BenchmarkApplication.start("--spring.threads.virtual.enabled=true");
+            case "virtual-limited" -> BenchmarkApplication.start("--spring.profiles.active=virtual-threads");
+            default -> throw new IllegalArgumentException("Unknown mode " + mode);
+        };
+        new DataSeeder(context.getBean(JdbcTemplate.class)).seed(ROWS);
+
+        User user = new User();
+        user.setUsername("load-test");
+        user.setPassword("-");
+        user.setEmail("load-test@example.com");
+        user.setFullName("Load test");
+        user.setRole(Role.ADMIN);
+        user.setCreatedAt(LocalDateTime.now());
+        user = context.getBean(UserRepo.class).save(user);
+        String token = context.getBean(JwtService.class).generateToken(user);
+
+        String port = context.getEnvironment().getProperty("local.server.port");
+        clientThreads = Executors.newVirtualThreadPerTaskExecutor();
+        http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(clientThreads).build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/product-inventory/page?size=20"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        clientThreads.shutdownNow();
+        context.close();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Outcomes {
+        public long ok;
+        public long rejected;
+        public long failed;
+    }
+
+    @Benchmark
+    public void burst(Outcomes outcomes) throws InterruptedException {
+        List<Future<Integer>> responses = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            responses.add(clientThreads.submit(() -> http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()));
+        }
+        for (Future<Integer> response : responses) {
+            try {
+                int status = response.get();
+                if (status == 200) outcomes.ok++;
+                else if (status == 503) outcomes.rejected++;
+                else outcomes.failed++;
+            } catch (ExecutionException e) {
+                outcomes.failed++;
+            }
+        }
+    }
+}
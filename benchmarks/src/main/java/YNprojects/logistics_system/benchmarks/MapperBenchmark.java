@@ -0,0 +1,113 @@
+package YNprojects.logistics_system.benchmarks;
+
+import YNprojects.logistics_system.product.entity.Product;
+import YNprojects.logistics_system.productinventory.dto.ProductInventoryDto;
+import YNprojects.logistics_system.productinventory.entities.ProductInventory;
+import YNprojects.logistics_system.productinventory.mapper.ProductInventoryMapper;
+import YNprojects.logistics_system.productionorder.dto.ProductionOrderDto;
+import YNprojects.logistics_system.productionorder.entity.ProductionOrder;
+import YNprojects.logistics_system.productionorder.entity.ProductionOrderMaterial;
+import YNprojects.logistics_system.productionorder.entity.ProductionOrderProduct;
+import YNprojects.logistics_system.productionorder.entity.ProductionOrderStatus;
+import YNprojects.logistics_system.productionorder.mapper.ProductionOrderMapper;
+import YNprojects.logistics_system.rawmaterial.entity.RawMaterial;
+import YNprojects.logistics_system.shipment.dto.ShipmentDto;
+import YNprojects.logistics_system.shipment.entity.Shipment;
+import YNprojects.logistics_system.shipment.entity.ShipmentDirection;
+import YNprojects.logistics_system.shipment.entity.ShipmentStatus;
+import YNprojects.logistics_system.shipment.entity.TransportMode;
+import YNprojects.logistics_system.shipment.mapper.ShipmentMapper;
+import YNprojects.logistics_system.supplier.entity.Supplier;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Entity to DTO mapping on detached, fully built entities: no database involved. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    private Shipment shipment;
+    private ProductionOrder productionOrder;
+    private ProductInventory productInventory;
+
+    @Setup
+    public void build() {
+        LocalDateTime now = LocalDateTime.now();
+
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Product");
+        product.setSku("P-1");
+        product.setUnit("pcs");
+        product.setCreatedAt(now);
+        product.setProductionDurationMinutes(60L);
+
+        RawMaterial raw = new RawMaterial();
+        raw.setId(1L);
+        raw.setName("Raw material");
+        raw.setSku("R-1");
+        raw.setUnit("kg");
+
+        Supplier supplier = new Supplier();
+        supplier.setId(1L);
+        supplier.setSupplierName("Supplier");
+
+        shipment = new Shipment();
+        shipment.setId(1L);
+        shipment.setReferenceCode("SHIP-20250101-001");
+        shipment.setDirection(ShipmentDirection.INBOUND);
+        shipment.setStatus(ShipmentStatus.IN_TRANSIT);
+        shipment.setTransportMode(TransportMode.SEA);
+        shipment.setQuantity(10);
+        shipment.setRawMaterial(raw);
+        shipment.setSupplier(supplier);
+        shipment.setDepartureDate(LocalDate.now());
+        shipment.setEstimateArrivalDate(LocalDate.now().plusDays(21));
+        shipment.setCreatedAt(now);
+        shipment.setUpdatedAt(now);
+
+        productionOrder = new ProductionOrder();
+        productionOrder.setId(1L);
+        productionOrder.setReference("PO-BENCH");
+        productionOrder.setCreationDate(LocalDate.now());
+        productionOrder.setStartDate(LocalDate.now());
+        productionOrder.setStatus(ProductionOrderStatus.PLANNED);
+        List<ProductionOrderMaterial> lines = new ArrayList<>();
+        for (long i = 0; i < 10; i++) {
+            lines.add(new ProductionOrderMaterial(i, raw, 2.0, productionOrder));
+        }
+        productionOrder.setRawMaterials(lines);
+        productionOrder.setProduct(new ProductionOrderProduct(1L, product, 5.0, productionOrder));
+
+        productInventory = new ProductInventory();
+        productInventory.setId(1L);
+        productInventory.setProduct(product);
+        productInventory.setQuantity(100.0);
+        productInventory.setReorderThreshold(10.0);
+        productInventory.setLastUpdated(now);
+    }
+
+    @Benchmark
+    public ShipmentDto shipmentToDto() {
+        return ShipmentMapper.toDto(shipment);
+    }
+
+    @Benchmark
+    public ProductionOrderDto productionOrderToDto() {
+        return ProductionOrderMapper.toDto(productionOrder);
+    }
+
+    @Benchmark
+    public ProductInventoryDto productInventoryToDto() {
+        return ProductInventoryMapper.toProductInventoryDto(productInventory);
+    }
+}
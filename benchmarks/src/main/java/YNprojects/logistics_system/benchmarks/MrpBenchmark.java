@@ -0,0 +1,117 @@
+package YNprojects.logistics_system.benchmarks;
+
+import YNprojects.logistics_system.events.ProductionOrderStatusChangedEvent;
+import YNprojects.logistics_system.mrp.dto.MaterialProjectionDto;
+import YNprojects.logistics_system.mrp.dto.ShortageDto;
+import YNprojects.logistics_system.mrp.service.MrpService;
+import YNprojects.logistics_system.productionorder.entity.ProductionOrderStatus;
+import YNprojects.logistics_system.shipment.entity.ShipmentDirection;
+import YNprojects.logistics_system.shipment.entity.ShipmentStatus;
+import YNprojects.logistics_system.shipment.entity.TransportMode;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MRP reads over {@code materials} raw materials, each with 100 on hand, five PLANNED orders needing
+ * 30 over the next 90 days and one inbound shipment of 50 due in 30 days.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MrpBenchmark {
+
+    private static final int ORDERS_PER_MATERIAL = 5;
+
+    @Param({"1000", "10000"})
+    public int materials;
+
+    private ConfigurableApplicationContext context;
+    private MrpService mrpService;
+    private long firstMaterialId;
+    private long firstOrderId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start();
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        new DataSeeder(jdbc).seed(1000);
+        firstMaterialId = DataSeeder.RAW_MATERIALS + 1;
+        firstOrderId = 1000 / 10 + 1;
+
+        Timestamp ts = Timestamp.valueOf(LocalDateTime.now());
+        LocalDate today = LocalDate.now();
+        List<Object[]> rawMaterials = new ArrayList<>();
+        List<Object[]> inventories = new ArrayList<>();
+        List<Object[]> shipments = new ArrayList<>();
+        for (int i = 0; i < materials; i++) {
+            long id = firstMaterialId + i;
+            rawMaterials.add(new Object[]{"Planned material " + i, "M-" + i, "kg", ts, ts});
+            inventories.add(new Object[]{id, 100.0, 10.0, ts});
+            shipments.add(new Object[]{"MRP-" + i, ShipmentDirection.INBOUND.ordinal(), ShipmentStatus.PLANNED.ordinal(),
+                    TransportMode.SEA.ordinal(), 50.0, id, 1, Date.valueOf(today), Date.valueOf(today.plusDays(30)), ts, ts});
+        }
+        jdbc.batchUpdate("insert into raw_material (name, sku, unit, created_at, updated_at) values (?, ?, ?, ?, ?)", rawMaterials);
+        jdbc.batchUpdate("insert into raw_material_inventory (raw_material_id, quantity, reorder_threshold, last_updated, version) " +
+                "values (?, ?, ?, ?, 0)", inventories);
+        jdbc.batchUpdate("insert into shipment (reference_code, direction, status, transport_mode, quantity, raw_material_id, " +
+                "supplier_id, departure_date, estimate_arrival_date, created_at, updated_at) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", shipments);
+
+        List<Object[]> orders = new ArrayList<>();
+        List<Object[]> lines = new ArrayList<>();
+        for (int i = 0; i < materials * ORDERS_PER_MATERIAL; i++) {
+            LocalDate start = today.plusDays(1 + i % 90);
+            orders.add(new Object[]{"PO-MRP-" + i, Date.valueOf(today), Date.valueOf(start), Date.valueOf(start),
+                    ProductionOrderStatus.PLANNED.name()});
+            lines.add(new Object[]{firstOrderId + i, firstMaterialId + i % materials, 30.0});
+        }
+        jdbc.batchUpdate("insert into production_order (reference, creation_date, start_date, planned_completion_date, status) " +
+                "values (?, ?, ?, ?, ?)", orders);
+        jdbc.batchUpdate("insert into production_order_material (production_order_id, raw_material_id, quantity) values (?, ?, ?)", lines);
+
+        mrpService = context.getBean(MrpService.class);
+        mrpService.rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    /** Every raw material short within the default horizon. */
+    @Benchmark
+    public List<ShortageDto> shortages() {
+        return mrpService.getShortages(null);
+    }
+
+    @Benchmark
+    public MaterialProjectionDto projection() {
+        return mrpService.getProjection(firstMaterialId + ThreadLocalRandom.current().nextInt(materials), null);
+    }
+
+    /** An order change as committed writes announce it: one order reloaded, then every shortage read again. */
+    @Benchmark
+    public List<ShortageDto> orderChangedThenShortages() {
+        long orderId = firstOrderId + ThreadLocalRandom.current().nextInt(materials * ORDERS_PER_MATERIAL);
+        mrpService.onProductionOrderChanged(new ProductionOrderStatusChangedEvent(orderId, null, ProductionOrderStatus.PLANNED));
+        return mrpService.getShortages(null);
+    }
+
+    /** Everything loaded again from the database, as at startup. */
+    @Benchmark
+    public void rebuild() {
+        mrpService.rebuild();
+    }
+}
@@ -0,0 +1,66 @@
+package YNprojects.logistics_system.benchmarks;
+
+import YNprojects.logistics_system.scheduler.SystemScheduler;
+import YNprojects.logistics_system.shipment.entity.ShipmentStatus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall-clock time of the nightly scheduler run with {@code parallelism} scheduler threads.
+ * Before every run, half the shipments are set to depart today and the other half to be overdue
+ * in transit, so both shipment steps have a large backlog to split by id range.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NightlyRunBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbc;
+    private SystemScheduler scheduler;
+
+    @Setup(Level.Trial)
+    public void start() {
+        // one node: ranges run on its own threads instead of waiting to be handed to followers
+        context = BenchmarkApplication.start("--scheduler.parallelism=" + parallelism,
+                "--scheduler.leader-election.enabled=false");
+        jdbc = context.getBean(JdbcTemplate.class);
+        new DataSeeder(jdbc).seed(rows);
+        scheduler = context.getBean(SystemScheduler.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void backlog() {
+        LocalDate today = LocalDate.now();
+        jdbc.update("update shipment set status = ?, departure_date = ? where mod(id, 2) = 0",
+                ShipmentStatus.PLANNED.ordinal(), Date.valueOf(today));
+        jdbc.update("update shipment set status = ?, estimate_arrival_date = ? where mod(id, 2) = 1",
+                ShipmentStatus.IN_TRANSIT.ordinal(), Date.valueOf(today.minusDays(1)));
+        jdbc.update("delete from scheduler_checkpoint");
+        jdbc.update("delete from alert");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public void auto() {
+        scheduler.auto();
+    }
+}
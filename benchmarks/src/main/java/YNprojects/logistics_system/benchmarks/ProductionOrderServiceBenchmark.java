@@ -0,0 +1,83 @@
+package YNprojects.logistics_system.benchmarks;
+
+import YNprojects.logistics_system.productionorder.dto.ProductionOrderDto;
+import YNprojects.logistics_system.productionorder.dto.ProductionOrderMaterialDto;
+import YNprojects.logistics_system.productionorder.dto.ProductionOrderProductDto;
+import YNprojects.logistics_system.productionorder.entity.ProductionOrder;
+import YNprojects.logistics_system.productionorder.entity.ProductionOrderStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductionOrderServiceBenchmark {
+
+    private static final int MATERIAL_LINES = 10;
+
+    /** An order starting tomorrow: created as PLANNED, no stock moves. */
+    @Benchmark
+    public ProductionOrder createProductionOrder(SeededApplication app) {
+        return app.productionOrderService().createProductionOrder(order(app, LocalDate.now().plusDays(1)));
+    }
+
+    /** PLANNED -> IN_PROGRESS: consumes the raw materials of every line. */
+    @Benchmark
+    public ProductionOrder changeStatus(SeededApplication app, PlannedOrder order) {
+        return app.productionOrderService().changeStatus(order.id, ProductionOrderStatus.IN_PROGRESS);
+    }
+
+    /** COMPLETED -> REVERSED: removes the product and returns the raw materials. */
+    @Benchmark
+    public ProductionOrder reverseCompletedOrder(SeededApplication app, CompletedOrder order) {
+        return app.productionOrderService().reverseCompletedOrder(order.id);
+    }
+
+    // Transitions only run once per order, so each invocation gets a new one.
+
+    @State(Scope.Thread)
+    public static class PlannedOrder {
+        Long id;
+
+        @Setup(Level.Invocation)
+        public void create(SeededApplication app) {
+            id = app.productionOrderService().createProductionOrder(order(app, LocalDate.now().plusDays(1))).getId();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class CompletedOrder {
+        Long id;
+
+        // Starts today and takes less than a day (60 minutes per unit), so it is completed on creation.
+        @Setup(Level.Invocation)
+        public void create(SeededApplication app) {
+            id = app.productionOrderService().createProductionOrder(order(app, LocalDate.now())).getId();
+        }
+    }
+
+    static ProductionOrderDto order(SeededApplication app, LocalDate startDate) {
+        List<ProductionOrderMaterialDto> materials = new ArrayList<>();
+        for (int i = 0; i < MATERIAL_LINES; i++) {
+            ProductionOrderMaterialDto material = new ProductionOrderMaterialDto();
+            material.setRawMaterialId(app.randomRawMaterialId());
+            material.setQuantity(2.0);
+            materials.add(material);
+        }
+        ProductionOrderProductDto product = new ProductionOrderProductDto();
+        product.setProductId(app.randomProductId());
+        product.setQuantity(1.0);
+
+        ProductionOrderDto dto = new ProductionOrderDto();
+        dto.setStartDate(startDate);
+        dto.setRawMaterials(materials);
+        dto.setProduct(product);
+        return dto;
+    }
+}
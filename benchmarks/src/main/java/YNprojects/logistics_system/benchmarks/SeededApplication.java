@@ -0,0 +1,54 @@
+package YNprojects.logistics_system.benchmarks;
+
+import YNprojects.logistics_system.productionorder.service.ProductionOrderService;
+import YNprojects.logistics_system.shipment.service.ShipmentService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/** The application with a seeded database of {@code rows} shipments, shared by all benchmark threads. */
+@State(Scope.Benchmark)
+public class SeededApplication {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private ShipmentService shipmentService;
+    private ProductionOrderService productionOrderService;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start();
+        new DataSeeder(context.getBean(JdbcTemplate.class)).seed(rows);
+        shipmentService = context.getBean(ShipmentService.class);
+        productionOrderService = context.getBean(ProductionOrderService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public ShipmentService shipmentService() {
+        return shipmentService;
+    }
+
+    public ProductionOrderService productionOrderService() {
+        return productionOrderService;
+    }
+
+    public long randomProductId() {
+        return 1 + ThreadLocalRandom.current().nextInt(DataSeeder.PRODUCTS);
+    }
+
+    public long randomRawMaterialId() {
+        return 1 + ThreadLocalRandom.current().nextInt(DataSeeder.RAW_MATERIALS);
+    }
+
+    public long randomSupplierId() {
+        return 1 + ThreadLocalRandom.current().nextInt(DataSeeder.SUPPLIERS);
+    }
+}
@@ -0,0 +1,58 @@
+package YNprojects.logistics_system.benchmarks;
+
+import YNprojects.logistics_system.shipment.dto.ChangeShipmentStatusDto;
+import YNprojects.logistics_system.shipment.dto.CreateShipmentDto;
+import YNprojects.logistics_system.shipment.dto.ShipmentDto;
+import YNprojects.logistics_system.shipment.entity.ShipmentDirection;
+import YNprojects.logistics_system.shipment.entity.ShipmentStatus;
+import YNprojects.logistics_system.shipment.entity.TransportMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShipmentServiceBenchmark {
+
+    /** Outbound: reserves product stock at creation. */
+    @Benchmark
+    public ShipmentDto createShipment(SeededApplication app) {
+        CreateShipmentDto dto = new CreateShipmentDto();
+        dto.setDirection(ShipmentDirection.OUTBOUND);
+        dto.setTransportMode(TransportMode.TRUCK);
+        dto.setQuantity(1.0);
+        dto.setProductId(app.randomProductId());
+        dto.setCustomerName("Benchmark customer");
+        dto.setDepartureDate(LocalDate.now().plusDays(2));
+        return app.shipmentService().createShipment(dto);
+    }
+
+    /** IN_TRANSIT -> DELIVERED of an inbound shipment: adds raw material stock. */
+    @Benchmark
+    public ShipmentDto changeShipmentStatus(SeededApplication app, InTransitShipment shipment) {
+        return app.shipmentService().changeShipmentStatus(
+                new ChangeShipmentStatusDto(shipment.id, ShipmentStatus.DELIVERED));
+    }
+
+    @State(Scope.Thread)
+    public static class InTransitShipment {
+        Long id;
+
+        // A status change can only run once per shipment, so each invocation gets a new one.
+        @Setup(Level.Invocation)
+        public void create(SeededApplication app) {
+            CreateShipmentDto dto = new CreateShipmentDto();
+            dto.setDirection(ShipmentDirection.INBOUND);
+            dto.setTransportMode(TransportMode.SEA);
+            dto.setQuantity(10.0);
+            dto.setRawMaterialId(app.randomRawMaterialId());
+            dto.setSupplierId(app.randomSupplierId());
+            dto.setDepartureDate(LocalDate.now());
+            id = app.shipmentService().createShipment(dto).getId();
+        }
+    }
+}
@@ -1,4 +1,4 @@
-import React, { useEffect, useState } from 'react';
+import React, { useEffect, useRef, useState } from 'react';
 import ReactDOM from 'react-dom';
 import {
   Search,
@@ -7,8 +7,7 @@ import {
   Info,
   AlertTriangle,
   XCircle,
-  ChevronLeft,
-  ChevronRight,
+  ChevronDown,
   Filter,
   Bell,
   Calendar,
@@ -50,6 +49,15 @@ const Modal = ({ isOpen, onClose, title, children, size = 'md' }) => {
   );
 };
 
+const PAGE_SIZE = 24;
+const ENTITY_TYPES = ['PRODUCT', 'PRODUCT_INVENTORY', 'SHIPMENT', 'RAW_MATERIAL', 'RAW_MATERIAL_INVENTORY', 'PRODUCTION_ORDER', 'SUPPLIER', 'USER'];
+
+// Whether an alert belongs on the page under the server-side filters
+const matchesFilters = (alert, { severity, alertType, entityType }) =>
+  (!severity || alert.severity === severity) &&
+  (!alertType || alert.alertType === alertType) &&
+  (!entityType || alert.entityType === entityType);
+
 /* ---------- Enhanced Alerts Page ---------- */
 const AlertsPage = ({ userRole = 'ADMIN' }) => {
   const API_URL = import.meta.env.VITE_API_URL;
@@ -57,26 +65,31 @@ const AlertsPage = ({ userRole = 'ADMIN' }) => {
   const headers = { Authorization: `Bearer ${token}` };
 
   const [alerts, setAlerts] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [counts, setCounts] = useState([]); // { severity, alertType, total } rows
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [entityDetails, setEntityDetails] = useState({}); // Cache for entity details
 
   // UI state
   const [searchTerm, setSearchTerm] = useState('');
-  const [severityFilters, setSeverityFilters] = useState({});
+  const [severityFilter, setSeverityFilter] = useState('');
   const [typeFilter, setTypeFilter] = useState('');
   const [entityFilter, setEntityFilter] = useState('');
-  const [sortField, setSortField] = useState('createdAt');
-  const [sortDirection, setSortDirection] = useState('desc');
-  const [currentPage, setCurrentPage] = useState(1);
-  const [itemsPerPage] = useState(8);
+
+  // Read by the event stream handlers, which are only bound once
+  const filtersRef = useRef({});
+  filtersRef.current = { severity: severityFilter, alertType: typeFilter, entityType: entityFilter };
+  // Responses of a request made before the filters last changed are dropped
+  const requestRef = useRef(0);
 
   // detail modal
   const [showDetailModal, setShowDetailModal] = useState(false);
   const [selectedAlert, setSelectedAlert] = useState(null);
 
   // Derived lists for filter dropdowns
-  const alertTypes = Array.from(new Set(alerts.map(a => a.alertType).filter(Boolean)));
-  const entityTypes = Array.from(new Set(alerts.map(a => a.entityType).filter(Boolean)));
+  const alertTypes = Array.from(new Set(counts.map(c => c.alertType).filter(Boolean)));
+  const entityTypes = ENTITY_TYPES;
 
   // Fetch entity details based on type and id
   const fetchEntityDetails = async (entityType, entityId) => {
@@ -143,86 +156,132 @@ const AlertsPage = ({ userRole = 'ADMIN' }) => {
     }
   };
 
-  const fetchAlerts = async () => {
-    setLoading(true);
+  // Loads one page from the server: the first one when there is no cursor, else the one after it
+  const fetchAlerts = async (cursor = null) => {
+    const request = cursor ? requestRef.current : ++requestRef.current;
+    const { severity, alertType, entityType } = filtersRef.current;
+    const params = { size: PAGE_SIZE };
+    if (severity) params.severity = severity;
+    if (alertType) params.alertType = alertType;
+    if (entityType) params.entityType = entityType;
+    if (cursor) params.cursor = cursor;
+
+    if (cursor) setLoadingMore(true);
     try {
-      const res = await axios.get(`${API_URL}/alert`, { headers });
-      setAlerts(res.data || []);
-      
-      // Fetch entity details for all alerts
+      const res = await axios.get(`${API_URL}/alert/page`, { headers, params });
+      if (request !== requestRef.current) return;
+      const items = res.data?.items || [];
+      setAlerts(prev => {
+        if (!cursor) return items;
+        const seen = new Set(prev.map(a => a.id));
+        return [...prev, ...items.filter(a => !seen.has(a.id))];
+      });
+      setNextCursor(res.data?.nextCursor ?? null);
+
+      // Fetch details for the entities of this page we don't have cached
       const uniqueEntities = new Set();
-      res.data?.forEach(alert => {
+      items.forEach(alert => {
         if (alert.entityType && alert.entityId) {
           uniqueEntities.add(`${alert.entityType}_${alert.entityId}`);
         }
       });
-
-      // Fetch details for entities we don't have cached
       for (const entityKey of uniqueEntities) {
-        const [entityType, entityId] = entityKey.split('_');
+        const separator = entityKey.lastIndexOf('_');
         if (!entityDetails[entityKey]) {
-          await fetchEntityDetails(entityType, parseInt(entityId));
+          await fetchEntityDetails(entityKey.slice(0, separator), parseInt(entityKey.slice(separator + 1)));
         }
       }
     } catch (err) {
       console.error('Failed to fetch alerts', err);
     } finally {
+      if (cursor) setLoadingMore(false);
       setLoading(false);
     }
   };
 
+  const fetchCounts = async () => {
+    try {
+      const res = await axios.get(`${API_URL}/alert/counts`, { headers });
+      setCounts(res.data || []);
+    } catch (err) {
+      console.error('Failed to fetch alert counts', err);
+    }
+  };
+
+  // Moves the count of an alert's severity and type by delta, as the event stream reports it
+  const adjustCount = (alert, delta) => {
+    setCounts(prev => {
+      const same = c => c.severity === alert.severity && c.alertType === alert.alertType;
+      if (prev.some(same)) {
+        return prev.map(c => (same(c) ? { ...c, total: Math.max(0, c.total + delta) } : c));
+      }
+      return delta > 0 ? [...prev, { severity: alert.severity, alertType: alert.alertType, total: delta }] : prev;
+    });
+  };
+
+  useEffect(() => {
+    fetchCounts();
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, []);
+
+  // First page again whenever a server-side filter changes
   useEffect(() => {
     fetchAlerts();
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [severityFilter, typeFilter, entityFilter]);
+
+  // Live updates: apply alert diffs pushed by the server instead of re-fetching the list
+  useEffect(() => {
+    const source = new EventSource(`${API_URL}/events?access_token=${encodeURIComponent(token)}`);
+
+    source.addEventListener('alert.created', (e) => {
+      const a = JSON.parse(e.data);
+      const alert = {
+        id: a.alertId,
+        alertType: a.alertType,
+        severity: a.severity,
+        entityType: a.entityType,
+        entityId: a.entityId,
+        message: a.message,
+        createdAt: a.createdAt
+      };
+      adjustCount(alert, 1);
+      // New alerts are newer than every loaded one, so they go on top; the cursor still points past the last loaded one
+      if (!matchesFilters(alert, filtersRef.current)) return;
+      setAlerts(prev => (prev.some(x => x.id === alert.id) ? prev : [alert, ...prev]));
+      fetchEntityDetails(alert.entityType, alert.entityId);
+    });
+
+    source.addEventListener('alert.resolved', (e) => {
+      const a = JSON.parse(e.data);
+      adjustCount(a, -1);
+      setAlerts(prev => prev.filter(x => x.id !== a.alertId));
+    });
+
+    return () => source.close();
+    // eslint-disable-next-line react-hooks/exhaustive-deps
   }, []);
 
-  // Filtering
+  // Search narrows the alerts loaded so far; severity, type and entity are filtered by the server
   const filtered = alerts.filter(a => {
     const q = searchTerm.trim().toLowerCase();
-    if (q) {
-      const matchMessage = (a.message || '').toLowerCase().includes(q);
-      const matchId = String(a.id || '').includes(q);
-      const matchEntityId = String(a.entityId || '').includes(q);
-      
-      // Also search in entity display name
-      const entityKey = `${a.entityType}_${a.entityId}`;
-      const entityDetail = entityDetails[entityKey];
-      const entityDisplayName = getEntityDisplayName(a.entityType, a.entityId, entityDetail);
-      const matchEntityName = entityDisplayName.toLowerCase().includes(q);
-      
-      if (!(matchMessage || matchId || matchEntityId || matchEntityName)) return false;
-    }
-
-    const activeSeverity = Object.values(severityFilters).some(Boolean);
-    if (activeSeverity && !severityFilters[a.severity]) return false;
-
-    if (typeFilter && a.alertType !== typeFilter) return false;
-    if (entityFilter && a.entityType !== entityFilter) return false;
-
-    return true;
+    if (!q) return true;
+    const matchMessage = (a.message || '').toLowerCase().includes(q);
+    const matchId = String(a.id || '').includes(q);
+    const matchEntityId = String(a.entityId || '').includes(q);
+
+    // Also search in entity display name
+    const entityKey = `${a.entityType}_${a.entityId}`;
+    const entityDetail = entityDetails[entityKey];
+    const entityDisplayName = getEntityDisplayName(a.entityType, a.entityId, entityDetail);
+    const matchEntityName = entityDisplayName.toLowerCase().includes(q);
+
+    return matchMessage || matchId || matchEntityId || matchEntityName;
   });
 
-  // Sorting
-  const sorted = [...filtered].sort((x, y) => {
-    const a = x[sortField];
-    const b = y[sortField];
-    if (sortField === 'createdAt') {
-      const da = new Date(a).getTime();
-      const db = new Date(b).getTime();
-      return sortDirection === 'asc' ? da - db : db - da;
-    }
-    if (a === undefined || b === undefined) return 0;
-    if (sortDirection === 'asc') return a > b ? 1 : -1;
-    return a < b ? 1 : -1;
-  });
-
-  // Pagination
-  const totalPages = Math.max(1, Math.ceil(sorted.length / itemsPerPage));
-  const startIndex = (currentPage - 1) * itemsPerPage;
-  const paginated = sorted.slice(startIndex, startIndex + itemsPerPage);
-
   // Get alert counts by severity for the header stats
-  const alertCounts = alerts.reduce((acc, alert) => {
-    acc[alert.severity] = (acc[alert.severity] || 0) + 1;
+  const alertCounts = counts.reduce((acc, c) => {
+    acc[c.severity] = (acc[c.severity] || 0) + c.total;
     return acc;
   }, {});
 
@@ -269,8 +328,7 @@ const AlertsPage = ({ userRole = 'ADMIN' }) => {
   };
 
   const toggleSeverity = (sev) => {
-    setSeverityFilters(prev => ({ ...prev, [sev]: !prev[sev] }));
-    setCurrentPage(1);
+    setSeverityFilter(prev => (prev === sev ? '' : sev));
   };
 
   const openDetail = (alert) => { setSelectedAlert(alert); setShowDetailModal(true); };
@@ -330,7 +388,7 @@ const AlertsPage = ({ userRole = 'ADMIN' }) => {
           </div>
           
           {/* <button 
-            onClick={fetchAlerts}
+            onClick={() => fetchAlerts()}
             disabled={loading}
             className="flex items-center px-4 py-2 bg-gradient-to-r from-blue-500 to-blue-600 text-white rounded-lg hover:from-blue-600 hover:to-blue-700 transition-all duration-200 shadow-lg hover:shadow-xl disabled:opacity-50"
           >
@@ -355,9 +413,9 @@ const AlertsPage = ({ userRole = 'ADMIN' }) => {
               <div className="relative">
                 <Search className="absolute left-3 top-1/2 transform -translate-y-1/2 text-gray-400 h-5 w-5" />
                 <input
-                  placeholder="Search by message, ID, entity name..."
+                  placeholder="Search loaded alerts by message, ID, entity name..."
                   value={searchTerm}
-                  onChange={(e) => { setSearchTerm(e.target.value); setCurrentPage(1); }}
+                  onChange={(e) => setSearchTerm(e.target.value)}
                   className="w-full pl-11 pr-4 py-3 border border-gray-200 rounded-xl focus:ring-2 focus:ring-blue-500 focus:border-transparent bg-white/50 backdrop-blur-sm transition-all duration-200"
                 />
               </div>
@@ -365,11 +423,11 @@ const AlertsPage = ({ userRole = 'ADMIN' }) => {
 
             {/* Severity Filters */}
             <div className="lg:col-span-4">
-              <label className="block text-sm font-medium text-gray-700 mb-2">Severity Filters</label>
+              <label className="block text-sm font-medium text-gray-700 mb-2">Severity Filter</label>
               <div className="flex items-center space-x-2">
                 {['CRITICAL', 'WARNING', 'INFO'].map(s => {
                   const cfg = severityConfig[s];
-                  const active = !!severityFilters[s];
+                  const active = severityFilter === s;
                   return (
                     <button
                       key={s}
@@ -394,7 +452,7 @@ const AlertsPage = ({ userRole = 'ADMIN' }) => {
                 <label className="block text-sm font-medium text-gray-700 mb-2">Type</label>
                 <select
                   value={typeFilter}
-                  onChange={(e) => { setTypeFilter(e.target.value); setCurrentPage(1); }}
+                  onChange={(e) => setTypeFilter(e.target.value)}
                   className="w-full px-3 py-3 border border-gray-200 rounded-xl focus:ring-2 focus:ring-blue-500 bg-white/50 backdrop-blur-sm"
                 >
                   <option value="">All Types</option>
@@ -406,7 +464,7 @@ const AlertsPage = ({ userRole = 'ADMIN' }) => {
                 <label className="block text-sm font-medium text-gray-700 mb-2">Entity</label>
                 <select
                   value={entityFilter}
-                  onChange={(e) => { setEntityFilter(e.target.value); setCurrentPage(1); }}
+                  onChange={(e) => setEntityFilter(e.target.value)}
                   className="w-full px-3 py-3 border border-gray-200 rounded-xl focus:ring-2 focus:ring-blue-500 bg-white/50 backdrop-blur-sm"
                 >
                   <option value="">All Entities</option>
@@ -419,13 +477,13 @@ const AlertsPage = ({ userRole = 'ADMIN' }) => {
 
         {/* Enhanced Alerts Grid */}
         <div className="grid grid-cols-1 lg:grid-cols-2 gap-6">
-          {paginated.length === 0 ? (
+          {filtered.length === 0 ? (
             <div className="lg:col-span-2 bg-white/80 backdrop-blur-sm rounded-2xl shadow-lg border border-white/20 p-12 text-center">
               <Bell className="h-16 w-16 text-gray-300 mx-auto mb-4" />
               <h3 className="text-lg font-medium text-gray-900 mb-2">No alerts found</h3>
               <p className="text-gray-500">Try adjusting your search terms or filters</p>
             </div>
-          ) : paginated.map(alert => {
+          ) : filtered.map(alert => {
             const sevCfg = severityConfig[alert.severity] || severityConfig.INFO;
             const entityKey = `${alert.entityType}_${alert.entityId}`;
             const entityDetail = entityDetails[entityKey];
@@ -486,64 +544,27 @@ const AlertsPage = ({ userRole = 'ADMIN' }) => {
           })}
         </div>
 
-        {/* Enhanced Pagination */}
-        {totalPages > 1 && (
+        {/* Load more: the next page after the cursor */}
+        {alerts.length > 0 && (
           <div className="bg-white/80 backdrop-blur-sm rounded-2xl shadow-lg border border-white/20 px-6 py-4">
             <div className="flex items-center justify-between">
               <div className="text-sm text-gray-700">
-                Showing <span className="font-semibold">{startIndex + 1}</span> to{' '}
-                <span className="font-semibold">{Math.min(startIndex + itemsPerPage, sorted.length)}</span> of{' '}
-                <span className="font-semibold">{sorted.length}</span> alerts
+                Showing <span className="font-semibold">{filtered.length}</span> of{' '}
+                <span className="font-semibold">{alerts.length}</span> loaded alerts
               </div>
-              
-              <div className="flex items-center space-x-2">
-                <button
-                  onClick={() => setCurrentPage(Math.max(1, currentPage - 1))}
-                  disabled={currentPage === 1}
-                  className="flex items-center px-4 py-2 text-sm font-medium text-gray-700 bg-white border border-gray-200 rounded-lg hover:bg-gray-50 disabled:opacity-50 disabled:cursor-not-allowed transition-all duration-200"
-                >
-                  <ChevronLeft className="h-4 w-4 mr-1" />
-                  Previous
-                </button>
-                
-                <div className="flex items-center space-x-1">
-                  {[...Array(Math.min(5, totalPages))].map((_, i) => {
-                    let pageNum;
-                    if (totalPages <= 5) {
-                      pageNum = i + 1;
-                    } else if (currentPage <= 3) {
-                      pageNum = i + 1;
-                    } else if (currentPage >= totalPages - 2) {
-                      pageNum = totalPages - 4 + i;
-                    } else {
-                      pageNum = currentPage - 2 + i;
-                    }
-                    
-                    return (
-                      <button
-                        key={pageNum}
-                        onClick={() => setCurrentPage(pageNum)}
-                        className={`w-10 h-10 text-sm font-medium rounded-lg transition-all duration-200 ${
-                          currentPage === pageNum
-                            ? 'bg-gradient-to-r from-blue-500 to-blue-600 text-white shadow-lg'
-                            : 'bg-white text-gray-700 border border-gray-200 hover:bg-gray-50'
-                        }`}
-                      >
-                        {pageNum}
-                      </button>
-                    );
-                  })}
-                </div>
-                
+
+              {nextCursor && (
                 <button
-                  onClick={() => setCurrentPage(Math.min(totalPages, currentPage + 1))}
-                  disabled={currentPage === totalPages}
+                  onClick={() => fetchAlerts(nextCursor)}
+                  disabled={loadingMore}
                   className="flex items-center px-4 py-2 text-sm font-medium text-gray-700 bg-white border border-gray-200 rounded-lg hover:bg-gray-50 disabled:opacity-50 disabled:cursor-not-allowed transition-all duration-200"
                 >
-                  Next
-                  <ChevronRight className="h-4 w-4 ml-1" />
+                  {loadingMore
+                    ? <RefreshCw className="h-4 w-4 mr-1 animate-spin" />
+                    : <ChevronDown className="h-4 w-4 mr-1" />}
+                  Load more
                 </button>
-              </div>
+              )}
             </div>
           </div>
         )}
@@ -90,100 +90,48 @@ const Dashboard = ({ userRole = 'ADMIN' }) => {
     const headers = { Authorization: `Bearer ${token}` };
 
     try {
-      // parallel calls to endpoints we care about
-      const [
-        productsRes,
-        rawMaterialsRes,
-        productInvRes,
-        rawMatInvRes,
-        suppliersRes,
-        productionOrdersRes,
-        alertsRes,
-        inboundRes,
-        outboundRes
-      ] = await Promise.all([
-        axios.get(`${API_URL}/product`, { headers }).catch(() => ({ data: [] })),
-        axios.get(`${API_URL}/raw-material`, { headers }).catch(() => ({ data: [] })),
-        axios.get(`${API_URL}/product-inventory`, { headers }).catch(() => ({ data: [] })),
-        axios.get(`${API_URL}/raw-material-inventory`, { headers }).catch(() => ({ data: [] })),
-        axios.get(`${API_URL}/suppliers`, { headers }).catch(() => ({ data: [] })),
-        axios.get(`${API_URL}/production-orders`, { headers }).catch(() => ({ data: [] })),
-        axios.get(`${API_URL}/alert`, { headers }).catch(() => ({ data: [] })),
-        axios.get(`${API_URL}/shipments/inbound`, { headers }).catch(() => ({ data: [] })),
-        axios.get(`${API_URL}/shipments/outbound`, { headers }).catch(() => ({ data: [] }))
-      ]);
-
-      const products = productsRes.data || [];
-      const rawMaterials = rawMaterialsRes.data || [];
-      const productInv = productInvRes.data || [];
-      const rawMatInv = rawMatInvRes.data || [];
-      const suppliers = suppliersRes.data || [];
-      const productionOrders = productionOrdersRes.data || [];
-      const alerts = alertsRes.data || [];
-      const inbound = inboundRes.data || [];
-      const outbound = outboundRes.data || [];
-
-      // compute low stock counts for products (using product inventory)
-      const productLowStock = (productInv || []).filter(pi => {
-        const threshold = Number(pi.reorderThreshold ?? 0);
-        return threshold > 0 && Number(pi.quantity ?? 0) <= threshold;
-      }).length;
-
-      // compute shortage for raw materials
-      const rawMatShortage = (rawMatInv || []).filter(ri => {
-        const threshold = Number(ri.reorderThreshold ?? 0);
-        return threshold > 0 && Number(ri.quantity ?? 0) <= threshold;
-      }).length;
-
-      // inbound/outbound shipments counts
-      const inboundTotal = (inbound || []).length;
-      const inboundInTransit = (inbound || []).filter(s => s.status === 'IN_TRANSIT').length;
-      const inboundDelayed = (inbound || []).filter(s => s.status === 'DELAYED').length;
-
-      const outboundTotal = (outbound || []).length;
-      const outboundInTransit = (outbound || []).filter(s => s.status === 'IN_TRANSIT').length;
-      const outboundDelayed = (outbound || []).filter(s => s.status === 'DELAYED').length;
-
-      // production orders counts
-      const prodTotal = (productionOrders || []).length;
-      const prodInProgress = (productionOrders || []).filter(po => po.status === 'IN_PROGRESS').length;
-      const prodCompleted = (productionOrders || []).filter(po => po.status === 'COMPLETED').length;
-
-      // alerts summary
-      const alertsTotal = (alerts || []).length;
-      const alertsCritical = (alerts || []).filter(a => a.severity === 'CRITICAL').length;
-      const alertsWarning = (alerts || []).filter(a => a.severity === 'WARNING').length;
-      const alertsInfo = (alerts || []).filter(a => a.severity === 'INFO').length;
+      // one call: the backend keeps the counts precomputed
+      const res = await axios.get(`${API_URL}/dashboard/summary`, { headers });
+      const summary = res.data || {};
+
+      const inbound = summary.shipmentsInbound?.counts || {};
+      const outbound = summary.shipmentsOutbound?.counts || {};
+      const orders = summary.productionOrders?.counts || {};
+      const alerts = summary.alerts?.counts || {};
 
       setDashboardData({
-        products: { total: products.length, lowStock: productLowStock },
-        rawMaterials: { total: rawMaterials.length, shortage: rawMatShortage },
-        shipmentsInbound: { total: inboundTotal, inTransit: inboundInTransit, delayed: inboundDelayed },
-        shipmentsOutbound: { total: outboundTotal, inTransit: outboundInTransit, delayed: outboundDelayed },
-        productionOrders: { total: prodTotal, inProgress: prodInProgress, completed: prodCompleted },
-        suppliers: { total: suppliers.length, active: suppliers.length },
-        alerts: { total: alertsTotal, critical: alertsCritical, warning: alertsWarning, info: alertsInfo }
+        products: { total: summary.products?.total ?? 0, lowStock: summary.products?.lowStock ?? 0 },
+        rawMaterials: { total: summary.rawMaterials?.total ?? 0, shortage: summary.rawMaterials?.lowStock ?? 0 },
+        shipmentsInbound: { total: summary.shipmentsInbound?.total ?? 0, inTransit: inbound.IN_TRANSIT ?? 0, delayed: inbound.DELAYED ?? 0 },
+        shipmentsOutbound: { total: summary.shipmentsOutbound?.total ?? 0, inTransit: outbound.IN_TRANSIT ?? 0, delayed: outbound.DELAYED ?? 0 },
+        productionOrders: { total: summary.productionOrders?.total ?? 0, inProgress: orders.IN_PROGRESS ?? 0, completed: orders.COMPLETED ?? 0 },
+        suppliers: { total: summary.suppliers ?? 0, active: summary.suppliers ?? 0 },
+        alerts: { total: summary.alerts?.total ?? 0, critical: alerts.CRITICAL ?? 0, warning: alerts.WARNING ?? 0, info: alerts.INFO ?? 0 }
       });
 
       // recent alerts: latest 5
-      const recent = (alerts || [])
-        .slice()
-        .sort((a, b) => new Date(b.createdAt) - new Date(a.createdAt))
-        .slice(0, 5)
-        .map(a => ({
-          id: a.id,
-          severity: a.severity,
-          alertType: a.alertType,
-          entityType: a.entityType,
-          entityId: a.entityId,
-          entityName: a.entityName ?? String(a.entityId ?? ''),
-          message: a.message,
-          createdAt: a.createdAt
-        }));
-
+      const recent = (summary.recentAlerts || []).map(a => ({
+        id: a.id,
+        severity: a.severity,
+        alertType: a.alertType,
+        entityType: a.entityType,
+        entityId: a.entityId,
+        entityName: a.entityName ?? String(a.entityId ?? ''),
+        message: a.message,
+        createdAt: a.createdAt
+      }));
       setRecentAlerts(recent);
+
+      // upcoming departures: PLANNED shipments by departure date
+      const upcoming = (summary.upcomingShipments || []).map(s => ({
+        ...s,
+        productDto: s.productName ? { name: s.productName } : undefined,
+        rawMaterialDto: s.rawMaterialName ? { name: s.rawMaterialName } : undefined
+      }));
+      setUpcomingShipments(upcoming);
     } catch (err) {
       console.error('Error fetching dashboard data', err);
+      setUpcomingShipments([]);
     } finally {
       setLoading(false);
     }
@@ -192,30 +140,24 @@ const Dashboard = ({ userRole = 'ADMIN' }) => {
   useEffect(() => {
     fetchData();
     // eslint-disable-next-line react-hooks/exhaustive-deps
-    const fetchUpcoming = async () => {
-    try {
-      const headers = { Authorization: `Bearer ${token}` };
-      const [inRes, outRes] = await Promise.all([
-        axios.get(`${API_URL}/shipments/inbound`, { headers }),
-        axios.get(`${API_URL}/shipments/outbound`, { headers })
-      ]);
-      const inbound = Array.isArray(inRes.data) ? inRes.data.map(s => ({ ...s, direction: 'INBOUND' })) : [];
-      const outbound = Array.isArray(outRes.data) ? outRes.data.map(s => ({ ...s, direction: 'OUTBOUND' })) : [];
-      const all = [...inbound, ...outbound];
-
-      const upcoming = all
-        .filter(s => s.departureDate && s.status === 'PLANNED') // only those with dates
-        .sort((a, b) => new Date(a.departureDate) - new Date(b.departureDate))
-        .slice(0, 8);
-
-      setUpcomingShipments(upcoming);
-    } catch (err) {
-      console.error('Failed to fetch upcoming shipments', err);
-      setUpcomingShipments([]);
-    }
-  };
+  }, []);
 
-  fetchUpcoming();
+  // Refresh the summary when the server reports a change; bursts collapse into one request
+  useEffect(() => {
+    const source = new EventSource(`${API_URL}/events?access_token=${encodeURIComponent(token)}`);
+    let timer = null;
+    const refresh = () => {
+      clearTimeout(timer);
+      timer = setTimeout(fetchData, 1000);
+    };
+    ['alert.created', 'alert.resolved', 'inventory.changed', 'shipment.status-changed', 'production-order.status-changed']
+      .forEach(type => source.addEventListener(type, refresh));
+
+    return () => {
+      clearTimeout(timer);
+      source.close();
+    };
+    // eslint-disable-next-line react-hooks/exhaustive-deps
   }, []);
 
 // compute raw-material low-stock %